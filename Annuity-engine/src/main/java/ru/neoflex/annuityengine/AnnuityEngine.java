@@ -0,0 +1,47 @@
+package ru.neoflex.annuityengine;
+
+import ru.neoflex.loanissuerlibrary.dto.PaymentScheduleElementDto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface AnnuityEngine {
+
+    BigDecimal calculateMonthlyPayment(BigDecimal monthlyRate, BigDecimal amount, Integer term);
+
+    /**
+     * Monthly payment for {@code amount} from {@code annuityFactor}, the monthly payment this engine
+     * calculated for an amount of one at the same rate and term.
+     */
+    default BigDecimal scaleAnnuityFactor(BigDecimal annuityFactor,
+                                          BigDecimal monthlyRate,
+                                          BigDecimal amount,
+                                          Integer term) {
+        return amount.multiply(annuityFactor);
+    }
+
+    /**
+     * Passes the schedule elements to {@code elementConsumer} one by one, in order,
+     * as they are calculated.
+     */
+    void createPaymentSchedule(BigDecimal amount,
+                               BigDecimal monthlyRate,
+                               BigDecimal monthlyPayment,
+                               Integer term,
+                               LocalDate firstPaymentDate,
+                               Consumer<PaymentScheduleElementDto> elementConsumer);
+
+    default List<PaymentScheduleElementDto> createPaymentSchedule(BigDecimal amount,
+                                                                  BigDecimal monthlyRate,
+                                                                  BigDecimal monthlyPayment,
+                                                                  Integer term,
+                                                                  LocalDate firstPaymentDate) {
+        List<PaymentScheduleElementDto> paymentScheduleElementDtoList = new ArrayList<>(term);
+        createPaymentSchedule(amount, monthlyRate, monthlyPayment, term, firstPaymentDate,
+                              paymentScheduleElementDtoList::add);
+        return paymentScheduleElementDtoList;
+    }
+}
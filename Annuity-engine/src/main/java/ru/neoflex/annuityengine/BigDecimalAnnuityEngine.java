@@ -0,0 +1,81 @@
+package ru.neoflex.annuityengine;
+
+import ru.neoflex.loanissuerlibrary.dto.PaymentScheduleElementDto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+public class BigDecimalAnnuityEngine implements AnnuityEngine {
+
+    private final int calculatingScale;
+    private final int presentationScale = 2;
+
+    public BigDecimalAnnuityEngine() {
+        this(200);
+    }
+
+    public BigDecimalAnnuityEngine(int calculatingScale) {
+        this.calculatingScale = calculatingScale;
+    }
+
+    @Override
+    public BigDecimal calculateMonthlyPayment(BigDecimal monthlyRate,
+                                              BigDecimal amount,
+                                              Integer term) {
+        BigDecimal dividend = amount.multiply(monthlyRate);
+        BigDecimal divisor = BigDecimal.ONE;
+        divisor = divisor.add(monthlyRate);
+        divisor = divisor.pow(term);
+        divisor = BigDecimal.ONE.divide(divisor, calculatingScale, RoundingMode.HALF_EVEN);
+        divisor = BigDecimal.ONE.subtract(divisor);
+        return dividend.divide(divisor, calculatingScale, RoundingMode.HALF_EVEN);
+    }
+
+    @Override
+    public void createPaymentSchedule(BigDecimal amount,
+                                      BigDecimal monthlyRate,
+                                      BigDecimal monthlyPayment,
+                                      Integer term,
+                                      LocalDate firstPaymentDate,
+                                      Consumer<PaymentScheduleElementDto> elementConsumer) {
+        LocalDate paymentDate = firstPaymentDate;
+        BigDecimal remainingDebt = amount;
+
+        for(int paymentNumber = 1; paymentNumber < term; ++paymentNumber) {
+            BigDecimal interestPayment = remainingDebt.multiply(monthlyRate);
+            BigDecimal debtPayment = monthlyPayment.subtract(interestPayment);
+            remainingDebt = remainingDebt.subtract(debtPayment);
+
+            elementConsumer.accept(
+                    PaymentScheduleElementDto.builder()
+                            .number(paymentNumber)
+                            .date(paymentDate)
+                            .totalPayment(monthlyPayment.setScale(presentationScale, RoundingMode.HALF_UP))
+                            .debtPayment(debtPayment.setScale(presentationScale, RoundingMode.HALF_UP))
+                            .interestPayment(interestPayment.setScale(presentationScale, RoundingMode.HALF_UP))
+                            .remainingDebt(remainingDebt.setScale(presentationScale, RoundingMode.HALF_UP))
+                            .build());
+            paymentDate = paymentDate.plusMonths(1);
+        }
+
+        BigDecimal interestPayment = remainingDebt.multiply(monthlyRate);
+        BigDecimal debtPayment = monthlyPayment.subtract(interestPayment);
+        if (remainingDebt.subtract(debtPayment).compareTo(BigDecimal.ZERO) <= 0) {
+            remainingDebt = BigDecimal.ZERO;
+        } else {
+            remainingDebt = remainingDebt.subtract(debtPayment);
+        }
+
+        elementConsumer.accept(
+                PaymentScheduleElementDto.builder()
+                        .number(term)
+                        .date(paymentDate)
+                        .totalPayment(monthlyPayment.setScale(presentationScale, RoundingMode.HALF_UP))
+                        .debtPayment(debtPayment.setScale(presentationScale, RoundingMode.HALF_UP))
+                        .interestPayment(interestPayment.setScale(presentationScale, RoundingMode.HALF_UP))
+                        .remainingDebt(remainingDebt.setScale(presentationScale, RoundingMode.HALF_UP))
+                        .build());
+    }
+}
@@ -0,0 +1,292 @@
+package ru.neoflex.annuityengine;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.neoflex.loanissuerlibrary.dto.PaymentScheduleElementDto;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/**
+ * Annuity engine that reproduces the output of {@link BigDecimalAnnuityEngine} without
+ * 200-digit arithmetic.
+ * <p>
+ * The monthly payment is computed with 40 significant digits. {@code BigDecimal.pow} works with
+ * {@code 40 + digits(term) + 1} digits, so for the supported terms and rates the payment differs
+ * from the 200-digit one by less than {@code 1e-32} relative; {@link #PAYMENT_RELATIVE_ERROR}
+ * is used as the bound.
+ * <p>
+ * The schedule loop runs on 128-bit fixed point numbers: money is Q64.64 (two longs: whole rubles
+ * and a 2^-64 fraction), the monthly rate is Q0.128. Every step keeps a bound of how far the
+ * remaining debt may be from the exact value the reference engine works with:
+ * <pre>
+ *     E(k+1) = E(k) * (1 + r) + remaining(k) * dr + ePayment + ulp
+ * </pre>
+ * A value is rounded to kopecks only when it is further than twice its bound from a rounding tie,
+ * in which case the rounded value is guaranteed to match the reference. Otherwise (and for inputs
+ * outside the supported range) the calculation is delegated to the fallback engine; elements that
+ * were already emitted are the same in both engines, so the fallback only supplies the rest.
+ * <p>
+ * The tie check is made on the payment that is actually rounded: a payment scaled from the factor for
+ * an amount of one is checked again in {@link #scaleAnnuityFactor}.
+ */
+@Slf4j
+public class FixedPointAnnuityEngine implements AnnuityEngine {
+
+    private static final MathContext SETUP_CONTEXT = new MathContext(40, RoundingMode.HALF_EVEN);
+    private static final BigDecimal TWO_POW_64 = new BigDecimal(BigInteger.ONE.shiftLeft(64));
+    private static final BigDecimal TWO_POW_128 = new BigDecimal(BigInteger.ONE.shiftLeft(128));
+    private static final BigDecimal HALF = new BigDecimal("0.5");
+
+    private static final BigDecimal MIN_MONTHLY_RATE = new BigDecimal("0.0001");
+    private static final BigDecimal MAX_MONTHLY_RATE = new BigDecimal("0.5");
+    private static final BigDecimal MAX_AMOUNT = new BigDecimal("1000000000000");
+    private static final int MAX_TERM = 1200;
+
+    private static final double ULP = 0x1p-64;
+    private static final double RATE_ERROR = 0x1p-128;
+    private static final double PAYMENT_RELATIVE_ERROR = 1e-30;
+    private static final double MAX_SCHEDULE_ERROR = 1e-6;
+
+    private final AnnuityEngine fallback;
+
+    public FixedPointAnnuityEngine(AnnuityEngine fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public BigDecimal calculateMonthlyPayment(BigDecimal monthlyRate,
+                                              BigDecimal amount,
+                                              Integer term) {
+        if (!isSupported(monthlyRate, amount, term)) {
+            return fallback.calculateMonthlyPayment(monthlyRate, amount, term);
+        }
+
+        BigDecimal divisor = BigDecimal.ONE.add(monthlyRate, SETUP_CONTEXT).pow(term, SETUP_CONTEXT);
+        divisor = BigDecimal.ONE.divide(divisor, SETUP_CONTEXT);
+        divisor = BigDecimal.ONE.subtract(divisor, SETUP_CONTEXT);
+        BigDecimal monthlyPayment = amount.multiply(monthlyRate, SETUP_CONTEXT).divide(divisor, SETUP_CONTEXT);
+
+        if (isPaymentNearRoundingTie(monthlyPayment, term)) {
+            log.debug("Monthly payment is too close to a rounding tie, falling back");
+            return fallback.calculateMonthlyPayment(monthlyRate, amount, term);
+        }
+
+        return monthlyPayment;
+    }
+
+    /**
+     * The scaled factor carries the factor's relative error, so the scaled payment and its total are
+     * checked for a rounding tie the same way a payment calculated for the amount itself is.
+     */
+    @Override
+    public BigDecimal scaleAnnuityFactor(BigDecimal annuityFactor,
+                                         BigDecimal monthlyRate,
+                                         BigDecimal amount,
+                                         Integer term) {
+        BigDecimal monthlyPayment = amount.multiply(annuityFactor);
+        if (isSupported(monthlyRate, amount, term) && isPaymentNearRoundingTie(monthlyPayment, term)) {
+            log.debug("Scaled monthly payment is too close to a rounding tie, falling back");
+            return fallback.calculateMonthlyPayment(monthlyRate, amount, term);
+        }
+
+        return monthlyPayment;
+    }
+
+    @Override
+    public void createPaymentSchedule(BigDecimal amount,
+                                      BigDecimal monthlyRate,
+                                      BigDecimal monthlyPayment,
+                                      Integer term,
+                                      LocalDate firstPaymentDate,
+                                      Consumer<PaymentScheduleElementDto> elementConsumer) {
+        if (!isSupported(monthlyRate, amount, term) ||
+            monthlyPayment.signum() <= 0 || monthlyPayment.compareTo(MAX_AMOUNT) > 0) {
+            fallback.createPaymentSchedule(amount, monthlyRate, monthlyPayment, term, firstPaymentDate, elementConsumer);
+            return;
+        }
+
+        int emitted = createFixedPointSchedule(amount, monthlyRate, monthlyPayment, term, firstPaymentDate,
+                                               elementConsumer);
+        if (emitted < term) {
+            // The elements already emitted are exactly the ones the fallback produces, so only the rest is passed on
+            log.debug("Payment schedule element {} is too close to a rounding tie, falling back", emitted + 1);
+            int[] skipped = {0};
+            fallback.createPaymentSchedule(amount, monthlyRate, monthlyPayment, term, firstPaymentDate,
+                                           element -> {
+                                               if (skipped[0] < emitted) {
+                                                   ++skipped[0];
+                                               } else {
+                                                   elementConsumer.accept(element);
+                                               }
+                                           });
+        }
+    }
+
+    // Returns the number of elements passed to the consumer; less than term if an element could not be rounded safely.
+    private int createFixedPointSchedule(BigDecimal amount,
+                                         BigDecimal monthlyRate,
+                                         BigDecimal monthlyPayment,
+                                         int term,
+                                         LocalDate firstPaymentDate,
+                                         Consumer<PaymentScheduleElementDto> elementConsumer) {
+        BigInteger scaledRate = toFixedPoint(monthlyRate, TWO_POW_128);
+        long rateHi = scaledRate.shiftRight(64).longValue();
+        long rateLo = scaledRate.longValue();
+
+        BigInteger scaledPayment = toFixedPoint(monthlyPayment, TWO_POW_64);
+        long paymentHi = scaledPayment.shiftRight(64).longValue();
+        long paymentLo = scaledPayment.longValue();
+
+        BigInteger scaledAmount = toFixedPoint(amount, TWO_POW_64);
+        long remainingHi = scaledAmount.shiftRight(64).longValue();
+        long remainingLo = scaledAmount.longValue();
+
+        double rate = monthlyRate.doubleValue();
+        double paymentError = monthlyPayment.doubleValue() * PAYMENT_RELATIVE_ERROR + ULP;
+        double remainingError = ULP;
+
+        BigDecimal totalPayment = roundToKopecks(paymentHi, paymentLo, paymentError);
+        if (totalPayment == null) {
+            return 0;
+        }
+
+        long[] interest = new long[2];
+        LocalDate paymentDate = firstPaymentDate;
+
+        for (int paymentNumber = 1; paymentNumber <= term; ++paymentNumber) {
+            if (remainingHi < 0) {
+                return paymentNumber - 1;
+            }
+
+            multiplyByRate(remainingHi, remainingLo, rateHi, rateLo, interest);
+            double interestError = remainingError * rate + toDouble(remainingHi, remainingLo) * RATE_ERROR + ULP;
+
+            long debtLo = paymentLo - interest[1];
+            long debtHi = paymentHi - interest[0] - borrow(paymentLo, interest[1]);
+            double debtError = paymentError + interestError;
+
+            long nextLo = remainingLo - debtLo;
+            long nextHi = remainingHi - debtHi - borrow(remainingLo, debtLo);
+            remainingError += debtError;
+
+            if (paymentNumber == term && (nextHi < 0 || (nextHi == 0 && nextLo == 0))) {
+                nextHi = 0;
+                nextLo = 0;
+            }
+            remainingHi = nextHi;
+            remainingLo = nextLo;
+
+            BigDecimal interestPayment = roundToKopecks(interest[0], interest[1], interestError);
+            BigDecimal debtPayment = roundToKopecks(debtHi, debtLo, debtError);
+            BigDecimal remainingDebt = roundToKopecks(remainingHi, remainingLo, remainingError);
+            if (interestPayment == null || debtPayment == null || remainingDebt == null ||
+                remainingError > MAX_SCHEDULE_ERROR) {
+                return paymentNumber - 1;
+            }
+
+            elementConsumer.accept(
+                    PaymentScheduleElementDto.builder()
+                            .number(paymentNumber)
+                            .date(paymentDate)
+                            .totalPayment(totalPayment)
+                            .debtPayment(debtPayment)
+                            .interestPayment(interestPayment)
+                            .remainingDebt(remainingDebt)
+                            .build());
+            paymentDate = paymentDate.plusMonths(1);
+        }
+
+        return term;
+    }
+
+    private boolean isSupported(BigDecimal monthlyRate, BigDecimal amount, Integer term) {
+        return term != null && term >= 1 && term <= MAX_TERM &&
+               monthlyRate.compareTo(MIN_MONTHLY_RATE) >= 0 && monthlyRate.compareTo(MAX_MONTHLY_RATE) < 0 &&
+               amount.signum() > 0 && amount.compareTo(MAX_AMOUNT) <= 0;
+    }
+
+    private static BigInteger toFixedPoint(BigDecimal value, BigDecimal scale) {
+        return value.multiply(scale).setScale(0, RoundingMode.HALF_EVEN).toBigInteger();
+    }
+
+    // Both the payment and the total of all payments (the PSK) are rounded to kopecks
+    private static boolean isPaymentNearRoundingTie(BigDecimal monthlyPayment, int term) {
+        double paymentError = monthlyPayment.doubleValue() * PAYMENT_RELATIVE_ERROR;
+        return isNearRoundingTie(monthlyPayment, paymentError) ||
+               isNearRoundingTie(monthlyPayment.multiply(new BigDecimal(term)), paymentError * term);
+    }
+
+    private static boolean isNearRoundingTie(BigDecimal value, double error) {
+        BigDecimal kopecks = value.movePointRight(2);
+        BigDecimal fraction = kopecks.subtract(new BigDecimal(kopecks.toBigInteger())).abs();
+        return fraction.subtract(HALF).abs().doubleValue() <= 2 * error * 100;
+    }
+
+    // Rounds a Q64.64 value to kopecks, or returns null if it is within 2 * error of a tie.
+    private static BigDecimal roundToKopecks(long hi, long lo, double error) {
+        long kopecksLo = lo * 100;
+        long kopecksHi = hi * 100 + Math.unsignedMultiplyHigh(lo, 100);
+
+        double distanceToTie = Math.abs((double) (kopecksLo ^ Long.MIN_VALUE)) * 0x1p-64;
+        if (distanceToTie <= 2 * error * 100) {
+            return null;
+        }
+
+        long kopecks = kopecksLo < 0 ? kopecksHi + 1 : kopecksHi;
+        return BigDecimal.valueOf(kopecks, 2);
+    }
+
+    // (hi, lo) is an unsigned Q64.64 value, (rateHi, rateLo) is Q0.128; the product is rounded to Q64.64.
+    private static void multiplyByRate(long hi, long lo, long rateHi, long rateLo, long[] result) {
+        long p00Hi = Math.unsignedMultiplyHigh(lo, rateLo);
+        long p01Lo = lo * rateHi;
+        long p01Hi = Math.unsignedMultiplyHigh(lo, rateHi);
+        long p10Lo = hi * rateLo;
+        long p10Hi = Math.unsignedMultiplyHigh(hi, rateLo);
+        long p11Lo = hi * rateHi;
+        long p11Hi = Math.unsignedMultiplyHigh(hi, rateHi);
+
+        long limb1 = p00Hi + p01Lo;
+        long carry1 = carry(limb1, p00Hi);
+        long sum = limb1 + p10Lo;
+        carry1 += carry(sum, limb1);
+        limb1 = sum;
+
+        long limb2 = p01Hi + p10Hi;
+        long carry2 = carry(limb2, p01Hi);
+        sum = limb2 + p11Lo;
+        carry2 += carry(sum, limb2);
+        limb2 = sum;
+        sum = limb2 + carry1;
+        carry2 += carry(sum, limb2);
+        limb2 = sum;
+
+        long limb3 = p11Hi + carry2;
+
+        if (limb1 < 0) {
+            limb2++;
+            if (limb2 == 0) {
+                limb3++;
+            }
+        }
+
+        result[0] = limb3;
+        result[1] = limb2;
+    }
+
+    private static long carry(long sum, long addend) {
+        return Long.compareUnsigned(sum, addend) < 0 ? 1 : 0;
+    }
+
+    private static long borrow(long minuend, long subtrahend) {
+        return Long.compareUnsigned(minuend, subtrahend) < 0 ? 1 : 0;
+    }
+
+    private static double toDouble(long hi, long lo) {
+        return hi + (lo >>> 11) * 0x1p-53;
+    }
+}
@@ -0,0 +1,183 @@
+package ru.neoflex.annuityengine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import ru.neoflex.loanissuerlibrary.dto.PaymentScheduleElementDto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedPointAnnuityEngineTest {
+
+    private final BigDecimalAnnuityEngine referenceEngine = new BigDecimalAnnuityEngine();
+    private final FixedPointAnnuityEngine fixedPointEngine = new FixedPointAnnuityEngine(referenceEngine);
+
+    private final LocalDate firstPaymentDate = LocalDate.of(2025, 1, 31);
+
+    @ParameterizedTest
+    @CsvSource({
+            "100000, 0.25, 6",
+            "115000.00, 0.19, 18",
+            "531941, 0.22, 24",
+            "20000, 0.13, 60",
+            "2345678.91, 0.29, 120",
+            "1000000, 0.16, 240"
+    })
+    @DisplayName("Ежемесячный платёж и ПСК совпадают с расчётом в BigDecimal после округления")
+    void monthlyPaymentMatchesReferenceEngine(String amount, String rate, int term) {
+        BigDecimal monthlyRate = monthlyRate(rate);
+
+        BigDecimal expected = referenceEngine.calculateMonthlyPayment(monthlyRate, new BigDecimal(amount), term);
+        BigDecimal actual = fixedPointEngine.calculateMonthlyPayment(monthlyRate, new BigDecimal(amount), term);
+
+        assertEquals(expected.setScale(2, RoundingMode.HALF_EVEN), actual.setScale(2, RoundingMode.HALF_EVEN));
+        assertEquals(expected.multiply(new BigDecimal(term)).setScale(2, RoundingMode.HALF_EVEN),
+                     actual.multiply(new BigDecimal(term)).setScale(2, RoundingMode.HALF_EVEN));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "100000, 0.25, 6",
+            "115000.00, 0.19, 18",
+            "531941, 0.22, 24",
+            "20000, 0.13, 60",
+            "2345678.91, 0.29, 120",
+            "1000000, 0.16, 240"
+    })
+    @DisplayName("График платежей совпадает с графиком, рассчитанным в BigDecimal")
+    void paymentScheduleMatchesReferenceEngine(String amount, String rate, int term) {
+        BigDecimal monthlyRate = monthlyRate(rate);
+
+        List<PaymentScheduleElementDto> expected = referenceEngine.createPaymentSchedule(
+                new BigDecimal(amount),
+                monthlyRate,
+                referenceEngine.calculateMonthlyPayment(monthlyRate, new BigDecimal(amount), term),
+                term,
+                firstPaymentDate);
+        List<PaymentScheduleElementDto> actual = fixedPointEngine.createPaymentSchedule(
+                new BigDecimal(amount),
+                monthlyRate,
+                fixedPointEngine.calculateMonthlyPayment(monthlyRate, new BigDecimal(amount), term),
+                term,
+                firstPaymentDate);
+
+        assertEquals(expected, actual);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "3000000, 0.16, 360",
+            "12345678.90, 0.29, 360",
+            "500000, 0.05, 360"
+    })
+    @DisplayName("График на 360 месяцев совпадает с BigDecimal поэлементно")
+    void longPaymentScheduleMatchesReferenceEngineElementByElement(String amount, String rate, int term) {
+        assertScheduleMatchesReferenceEngineElementByElement(new BigDecimal(amount), monthlyRate(rate), term);
+    }
+
+    @Test
+    @Tag("slow")
+    @DisplayName("График на MAX_TERM совпадает с BigDecimal поэлементно")
+    void maxTermPaymentScheduleMatchesReferenceEngineElementByElement() {
+        // Расчёт в BigDecimal здесь занимает около 30 секунд, поэтому тест запускается только с -Dexcluded.test.groups=none
+        assertScheduleMatchesReferenceEngineElementByElement(new BigDecimal("1000000"), monthlyRate("0.04"), 1200);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "100000, 0.25, 6",
+            "115000.00, 0.19, 18",
+            "531941, 0.22, 24",
+            "20000, 0.13, 60",
+            "2345678.91, 0.29, 120",
+            "1000000, 0.16, 240",
+            "3000000, 0.16, 360"
+    })
+    @DisplayName("Платёж, полученный из коэффициента для суммы 1, совпадает с расчётом в BigDecimal после округления")
+    void scaledAnnuityFactorMatchesReferenceEngine(String amount, String rate, int term) {
+        BigDecimal monthlyRate = monthlyRate(rate);
+
+        BigDecimal expected = referenceEngine.calculateMonthlyPayment(monthlyRate, new BigDecimal(amount), term);
+        BigDecimal actual = fixedPointEngine.scaleAnnuityFactor(
+                fixedPointEngine.calculateMonthlyPayment(monthlyRate, BigDecimal.ONE, term),
+                monthlyRate,
+                new BigDecimal(amount),
+                term);
+
+        assertEquals(expected.setScale(2, RoundingMode.HALF_EVEN), actual.setScale(2, RoundingMode.HALF_EVEN));
+        assertEquals(expected.multiply(new BigDecimal(term)).setScale(2, RoundingMode.HALF_EVEN),
+                     actual.multiply(new BigDecimal(term)).setScale(2, RoundingMode.HALF_EVEN));
+    }
+
+    @Test
+    @DisplayName("Платёж из коэффициента на границе округления рассчитывается в BigDecimal")
+    void scaledAnnuityFactorNearRoundingTieFallsBackToReferenceEngine() {
+        BigDecimal monthlyRate = monthlyRate("0.24");
+        BigDecimal amount = new BigDecimal("1234.25");
+        // Коэффициент, который даёт платёж ровно на границе округления, 100.005
+        BigDecimal annuityFactor = new BigDecimal("100.005").divide(amount, 40, RoundingMode.HALF_EVEN);
+
+        BigDecimal actual = fixedPointEngine.scaleAnnuityFactor(annuityFactor, monthlyRate, amount, 6);
+
+        assertEquals(referenceEngine.calculateMonthlyPayment(monthlyRate, amount, 6), actual);
+    }
+
+    @Test
+    @DisplayName("При точном попадании на границу округления используется расчёт в BigDecimal")
+    void roundingTieFallsBackToReferenceEngine() {
+        // 1234.25 * 0.24 / 12 = 24.685 - проценты первого месяца ровно на границе округления
+        BigDecimal amount = new BigDecimal("1234.25");
+        BigDecimal monthlyRate = monthlyRate("0.24");
+        BigDecimal monthlyPayment = referenceEngine.calculateMonthlyPayment(monthlyRate, amount, 6);
+
+        assertEquals(referenceEngine.createPaymentSchedule(amount, monthlyRate, monthlyPayment, 6, firstPaymentDate),
+                     fixedPointEngine.createPaymentSchedule(amount, monthlyRate, monthlyPayment, 6, firstPaymentDate));
+    }
+
+    @Test
+    @DisplayName("Дата каждого платежа сдвигается на месяц относительно предыдущей")
+    void paymentDatesAreShiftedByOneMonth() {
+        BigDecimal monthlyRate = monthlyRate("0.25");
+        BigDecimal amount = new BigDecimal("100000");
+        BigDecimal monthlyPayment = fixedPointEngine.calculateMonthlyPayment(monthlyRate, amount, 12);
+
+        List<PaymentScheduleElementDto> schedule = fixedPointEngine.createPaymentSchedule(amount,
+                                                                                          monthlyRate,
+                                                                                          monthlyPayment,
+                                                                                          12,
+                                                                                          firstPaymentDate);
+
+        LocalDate expectedDate = firstPaymentDate;
+        for (PaymentScheduleElementDto element : schedule) {
+            assertEquals(expectedDate, element.getDate());
+            expectedDate = expectedDate.plusMonths(1);
+        }
+    }
+
+    private void assertScheduleMatchesReferenceEngineElementByElement(BigDecimal amount,
+                                                                      BigDecimal monthlyRate,
+                                                                      int term) {
+        BigDecimal monthlyPayment = referenceEngine.calculateMonthlyPayment(monthlyRate, amount, term);
+
+        List<PaymentScheduleElementDto> expected = referenceEngine.createPaymentSchedule(
+                amount, monthlyRate, monthlyPayment, term, firstPaymentDate);
+        List<PaymentScheduleElementDto> actual = fixedPointEngine.createPaymentSchedule(
+                amount, monthlyRate, monthlyPayment, term, firstPaymentDate);
+
+        assertEquals(term, actual.size());
+        for (int index = 0; index < term; ++index) {
+            assertEquals(expected.get(index), actual.get(index), "Платёж номер " + (index + 1));
+        }
+    }
+
+    private BigDecimal monthlyRate(String rate) {
+        return new BigDecimal(rate).divide(new BigDecimal(12), 200, RoundingMode.HALF_EVEN);
+    }
+}
@@ -0,0 +1,41 @@
+package ru.neoflex.httpclient;
+
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.http.client.HttpClientAutoConfiguration;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.http.client.ClientHttpRequestFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.Executors;
+
+/**
+ * RestClient setup shared by every service that calls another one. Each service depends on this module, so the
+ * client is configured in one place.
+ */
+@AutoConfiguration(before = HttpClientAutoConfiguration.class)
+public class JdkRestClientAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ClientHttpRequestFactoryBuilder<?> clientHttpRequestFactoryBuilder(Environment environment) {
+        boolean virtualThreads = Threading.VIRTUAL.isActive(environment);
+
+        return ClientHttpRequestFactoryBuilder.jdk().withHttpClientCustomizer(httpClient -> {
+            httpClient.version(HttpClient.Version.HTTP_1_1);
+            if (virtualThreads) {
+                // The calls block the (virtual) request thread; the client's own tasks run on virtual threads too
+                httpClient.executor(Executors.newVirtualThreadPerTaskExecutor());
+            }
+        });
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RestClient restClient(RestClient.Builder restClientBuilder) {
+        return restClientBuilder.build();
+    }
+}
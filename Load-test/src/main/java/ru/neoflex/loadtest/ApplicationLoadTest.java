@@ -0,0 +1,185 @@
+package ru.neoflex.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Load test of the whole POST /statement chain (Gateway, Statement, Deal, Calculator) against running services.
+ * Submits {@code applications} loan applications with at most {@code concurrency} in flight, and reports
+ * the throughput, the latency percentiles and the peak number of live threads of every service, sampled
+ * from its /actuator/metrics/jvm.threads.live while the test runs.
+ * <p>
+ * Run it once with spring.threads.virtual.enabled=false and once with true on every service to compare:
+ * <pre>
+ * java -jar Load-test/target/load-test.jar \
+ *     --gateway=http://localhost:8084 --applications=5000 --concurrency=5000 \
+ *     --metrics=http://localhost:8084,http://localhost:8082,http://localhost:8081,http://localhost:8080
+ * </pre>
+ */
+public class ApplicationLoadTest {
+
+    private static final Pattern METRIC_VALUE = Pattern.compile("\"value\"\\s*:\\s*([0-9.Ee+-]+)");
+    private static final Duration SAMPLE_INTERVAL = Duration.ofMillis(250);
+
+    private final HttpClient httpClient;
+    private final URI statementUri;
+    private final List<String> metricsBaseUrls;
+    private final int applications;
+    private final int concurrency;
+
+    ApplicationLoadTest(String gatewayUrl, List<String> metricsBaseUrls, int applications, int concurrency) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        this.statementUri = URI.create(gatewayUrl + "/statement");
+        this.metricsBaseUrls = metricsBaseUrls;
+        this.applications = applications;
+        this.concurrency = concurrency;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(option[0], option.length > 1 ? option[1] : "");
+        }
+
+        String gatewayUrl = options.getOrDefault("gateway", "http://localhost:8084");
+        List<String> metricsBaseUrls = Arrays.stream(options.getOrDefault("metrics", gatewayUrl).split(","))
+                .filter(url -> !url.isBlank())
+                .toList();
+
+        new ApplicationLoadTest(gatewayUrl,
+                                metricsBaseUrls,
+                                Integer.parseInt(options.getOrDefault("applications", "5000")),
+                                Integer.parseInt(options.getOrDefault("concurrency", "5000")))
+                .run();
+    }
+
+    void run() throws InterruptedException {
+        Map<String, Integer> peakThreads = new ConcurrentHashMap<>();
+        metricsBaseUrls.forEach(url -> peakThreads.put(url, readLiveThreads(url)));
+        Map<String, Integer> idleThreads = new HashMap<>(peakThreads);
+
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> metricsBaseUrls.forEach(url ->
+                        peakThreads.merge(url, readLiveThreads(url), Math::max)),
+                0, SAMPLE_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+
+        long[] latencies = new long[applications];
+        Map<String, AtomicInteger> outcomes = new ConcurrentSkipListMap<>();
+        Semaphore inFlight = new Semaphore(concurrency);
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int application = 0; application < applications; ++application) {
+                int index = application;
+                inFlight.acquire();
+                executor.submit(() -> {
+                    try {
+                        long sent = System.nanoTime();
+                        String outcome = submitApplication(index);
+                        latencies[index] = System.nanoTime() - sent;
+                        outcomes.computeIfAbsent(outcome, key -> new AtomicInteger()).incrementAndGet();
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        sampler.shutdown();
+        sampler.awaitTermination(SAMPLE_INTERVAL.toMillis() * 2, TimeUnit.MILLISECONDS);
+
+        report(elapsedSeconds, latencies, outcomes, idleThreads, peakThreads);
+    }
+
+    private String submitApplication(int index) {
+        HttpRequest request = HttpRequest.newBuilder(statementUri)
+                .timeout(Duration.ofMinutes(5))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(createApplication(index)))
+                .build();
+        try {
+            return "HTTP " + httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (Exception e) {
+            return e.getClass().getSimpleName();
+        }
+    }
+
+    private String createApplication(int index) {
+        return """
+                {
+                  "amount": 300000,
+                  "term": 12,
+                  "firstName": "Load",
+                  "lastName": "Test",
+                  "middleName": "Client",
+                  "email": "load.test%d@loadtest.com",
+                  "birthdate": "%s",
+                  "passportSeries": "%04d",
+                  "passportNumber": "%06d"
+                }""".formatted(index,
+                               LocalDate.now().minusYears(30),
+                               index % 10_000,
+                               index % 1_000_000);
+    }
+
+    private int readLiveThreads(String baseUrl) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/metrics/jvm.threads.live"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        try {
+            Matcher matcher = METRIC_VALUE.matcher(httpClient.send(request, HttpResponse.BodyHandlers.ofString()).body());
+            return matcher.find() ? (int) Double.parseDouble(matcher.group(1)) : -1;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private void report(double elapsedSeconds,
+                        long[] latencies,
+                        Map<String, AtomicInteger> outcomes,
+                        Map<String, Integer> idleThreads,
+                        Map<String, Integer> peakThreads) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+
+        System.out.printf("Applications: %d, concurrency: %d, elapsed: %.1f s, throughput: %.1f applications/s%n",
+                          applications, concurrency, elapsedSeconds, applications / elapsedSeconds);
+        System.out.printf("Latency ms: p50 %.0f, p95 %.0f, p99 %.0f, max %.0f%n",
+                          percentile(sorted, 0.50), percentile(sorted, 0.95),
+                          percentile(sorted, 0.99), sorted[sorted.length - 1] / 1e6);
+        outcomes.forEach((outcome, count) -> System.out.printf("  %s: %d%n", outcome, count.get()));
+
+        System.out.println("Live threads (idle -> peak under load):");
+        metricsBaseUrls.forEach(url -> System.out.printf("  %s: %d -> %d%n",
+                                                         url, idleThreads.get(url), peakThreads.get(url)));
+    }
+
+    private double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+}
@@ -0,0 +1,61 @@
+package ru.neoflex.mscalculator.bench;
+
+import org.openjdk.jmh.annotations.*;
+import ru.neoflex.annuityengine.AnnuityEngine;
+import ru.neoflex.loanissuerlibrary.dto.PaymentScheduleElementDto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of the annuity calculation: the monthly payment and the payment schedule.
+ * {@code calculatingScale} is the scale of the BigDecimal engine (and of the fixed-point fallback).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnnuityEngineBenchmark {
+
+    @Param({"6", "24", "120", "360"})
+    private int term;
+
+    @Param({"20000", "531941.37", "5000000"})
+    private String amount;
+
+    @Param({"50", "200"})
+    private int calculatingScale;
+
+    @Param({"big-decimal", "fixed-point"})
+    private String engine;
+
+    private AnnuityEngine annuityEngine;
+    private BigDecimal loanAmount;
+    private BigDecimal monthlyRate;
+    private BigDecimal monthlyPayment;
+    private LocalDate firstPaymentDate;
+
+    @Setup
+    public void setUp() {
+        annuityEngine = AnnuityEngines.create(engine, calculatingScale);
+        loanAmount = new BigDecimal(amount);
+        monthlyRate = new BigDecimal("0.25").divide(new BigDecimal(12), calculatingScale, RoundingMode.HALF_EVEN);
+        monthlyPayment = annuityEngine.calculateMonthlyPayment(monthlyRate, loanAmount, term);
+        firstPaymentDate = LocalDate.of(2025, 1, 31);
+    }
+
+    @Benchmark
+    public BigDecimal calculateMonthlyPayment() {
+        return annuityEngine.calculateMonthlyPayment(monthlyRate, loanAmount, term);
+    }
+
+    @Benchmark
+    public List<PaymentScheduleElementDto> createPaymentSchedule() {
+        return annuityEngine.createPaymentSchedule(loanAmount, monthlyRate, monthlyPayment, term, firstPaymentDate);
+    }
+}
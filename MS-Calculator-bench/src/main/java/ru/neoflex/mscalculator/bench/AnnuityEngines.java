@@ -0,0 +1,19 @@
+package ru.neoflex.mscalculator.bench;
+
+import ru.neoflex.annuityengine.AnnuityEngine;
+import ru.neoflex.annuityengine.BigDecimalAnnuityEngine;
+import ru.neoflex.annuityengine.FixedPointAnnuityEngine;
+
+final class AnnuityEngines {
+
+    private AnnuityEngines() {
+    }
+
+    static AnnuityEngine create(String engine, int calculatingScale) {
+        return switch (engine) {
+            case "big-decimal" -> new BigDecimalAnnuityEngine(calculatingScale);
+            case "fixed-point" -> new FixedPointAnnuityEngine(new BigDecimalAnnuityEngine(calculatingScale));
+            default -> throw new IllegalArgumentException("Unknown annuity engine: " + engine);
+        };
+    }
+}
@@ -0,0 +1,123 @@
+package ru.neoflex.mscalculator.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+import ru.neoflex.loanissuerlibrary.dto.*;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.EmploymentStatus;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.Gender;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.MaritalStatus;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.WorkPosition;
+import ru.neoflex.loanissuerlibrary.exception.CreditDeniedException;
+import ru.neoflex.mscalculator.cache.OfferCache;
+import ru.neoflex.mscalculator.rates.RateProvider;
+import ru.neoflex.mscalculator.scoring.ScoringCalendar;
+import ru.neoflex.mscalculator.scoring.ScoringRulesProvider;
+import ru.neoflex.mscalculator.service.CalculatorService;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end calculator requests: four offers for a statement and a full credit with its schedule.
+ * Rates are taken from the same {@code service.properties} the service tests use, scoring rules
+ * from the default {@code scoring-rules.properties}. The engines use the service's own scale of 200:
+ * CalculatorService divides with it regardless of the engine, see {@link AnnuityEngineBenchmark} for other scales.
+ * With {@code offerCacheEnabled=false} the offer cache is emptied before every invocation, outside the measured time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CalculatorServiceBenchmark {
+
+    private static final int CALCULATING_SCALE = 200;
+
+    @Param({"6", "24", "120", "360"})
+    private int term;
+
+    @Param({"20000", "531941.37", "5000000"})
+    private String amount;
+
+    @Param({"big-decimal", "fixed-point"})
+    private String engine;
+
+    @Param({"true", "false"})
+    private boolean offerCacheEnabled;
+
+    private CalculatorService calculatorService;
+    private OfferCache offerCache;
+    private LoanStatementRequestDto loanStatementRequest;
+    private ScoringDataDto scoringData;
+
+    @Setup
+    public void setUp() {
+        offerCache = new OfferCache(1024, 10000);
+        calculatorService = new CalculatorService(new RateProvider(new ClassPathResource("service.properties")),
+                                                  AnnuityEngines.create(engine, CALCULATING_SCALE),
+                                                  offerCache,
+                                                  new ScoringRulesProvider(
+                                                          new ClassPathResource("scoring-rules.properties")),
+                                                  new ScoringCalendar(Clock.systemDefaultZone()));
+
+        loanStatementRequest = LoanStatementRequestDto.builder()
+                .amount(new BigDecimal(amount))
+                .term(term)
+                .firstName("John")
+                .lastName("Doe")
+                .email("john@doe.com")
+                .birthdate(LocalDate.of(1990, 1, 1))
+                .passportSeries("1234")
+                .passportNumber("123456")
+                .build();
+
+        EmploymentDto employment = EmploymentDto.builder()
+                .employmentStatus(EmploymentStatus.EMPLOYED)
+                .employerINN("123456789101")
+                .salary(new BigDecimal("5000000"))
+                .position(WorkPosition.MIDDLE)
+                .workExperienceTotal(22)
+                .workExperienceCurrent(19)
+                .build();
+
+        scoringData = ScoringDataDto.builder()
+                .amount(new BigDecimal(amount))
+                .term(term)
+                .firstName("John")
+                .lastName("Doe")
+                .gender(Gender.MALE)
+                .birthdate(LocalDate.of(1990, 1, 1))
+                .passportSeries("1234")
+                .passportNumber("123456")
+                .passportIssueDate(LocalDate.of(2004, 1, 1))
+                .passportIssueBranch("Branch which issued the passport")
+                .maritalStatus(MaritalStatus.NOT_MARRIED)
+                .dependentAmount(0)
+                .employment(employment)
+                .accountNumber("12315124")
+                .isInsuranceEnabled(true)
+                .isSalaryClient(true)
+                .build();
+    }
+
+    @Setup(Level.Invocation)
+    public void invalidateOfferCache() {
+        if (!offerCacheEnabled) {
+            offerCache.invalidateAll();
+        }
+    }
+
+    @Benchmark
+    public List<LoanOfferDto> getOffers() {
+        return calculatorService.getOffers(loanStatementRequest);
+    }
+
+    @Benchmark
+    public CreditDto getCredit() throws CreditDeniedException {
+        return calculatorService.getCredit(scoringData);
+    }
+}
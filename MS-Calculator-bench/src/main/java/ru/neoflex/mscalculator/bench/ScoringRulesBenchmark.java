@@ -0,0 +1,85 @@
+package ru.neoflex.mscalculator.bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+import ru.neoflex.loanissuerlibrary.dto.EmploymentDto;
+import ru.neoflex.loanissuerlibrary.dto.ScoringDataDto;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.EmploymentStatus;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.Gender;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.MaritalStatus;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.WorkPosition;
+import ru.neoflex.loanissuerlibrary.exception.CreditDeniedException;
+import ru.neoflex.mscalculator.scoring.ScoringCalendar;
+import ru.neoflex.mscalculator.scoring.ScoringContext;
+import ru.neoflex.mscalculator.scoring.ScoringRules;
+import ru.neoflex.mscalculator.scoring.ScoringRulesProvider;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scoring a request against the compiled decision table; run with the GC profiler to see
+ * the allocation rate of the scoring path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScoringRulesBenchmark {
+
+    private static final int AGE = 35;
+
+    private ScoringRulesProvider scoringRulesProvider;
+    private ScoringCalendar scoringCalendar;
+    private ScoringDataDto scoringData;
+
+    @Setup
+    public void setUp() {
+        scoringRulesProvider = new ScoringRulesProvider(new ClassPathResource("scoring-rules.properties"));
+        scoringCalendar = new ScoringCalendar(Clock.systemDefaultZone());
+
+        scoringData = ScoringDataDto.builder()
+                .amount(new BigDecimal("100000"))
+                .term(6)
+                .gender(Gender.FEMALE)
+                .birthdate(LocalDate.now().minusYears(AGE))
+                .maritalStatus(MaritalStatus.MARRIED)
+                .employment(EmploymentDto.builder()
+                                    .employmentStatus(EmploymentStatus.SELF_EMPLOYED)
+                                    .salary(new BigDecimal("50000"))
+                                    .position(WorkPosition.SENIOR)
+                                    .workExperienceTotal(22)
+                                    .workExperienceCurrent(19)
+                                    .build())
+                .isInsuranceEnabled(true)
+                .isSalaryClient(true)
+                .build();
+    }
+
+    @Benchmark
+    public BigDecimal getRateAdjustment() {
+        return scoringRulesProvider.getRules().getRateAdjustment(scoringData, AGE);
+    }
+
+    @Benchmark
+    public ScoringRules checkEligibility() throws CreditDeniedException {
+        ScoringRules scoringRules = scoringRulesProvider.getRules();
+        scoringRules.checkEligibility(scoringData, AGE);
+        return scoringRules;
+    }
+
+    @Benchmark
+    public long ageFromLocalDateNow() {
+        return ChronoUnit.YEARS.between(scoringData.getBirthdate(), LocalDate.now());
+    }
+
+    @Benchmark
+    public ScoringContext createScoringContext() {
+        return scoringCalendar.createContext(scoringData);
+    }
+}
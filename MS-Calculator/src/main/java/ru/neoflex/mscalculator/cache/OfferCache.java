@@ -0,0 +1,82 @@
+package ru.neoflex.mscalculator.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.neoflex.loanissuerlibrary.dto.LoanOfferDto;
+import ru.neoflex.mscalculator.rates.RateSnapshot;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Caches used by {@code CalculatorService.getOffers}: annuity factors keyed by (term, monthly rate)
+ * and the sorted offer quad keyed by (amount, term).
+ * <p>
+ * Both caches belong to one published {@link RateSnapshot}. When a call comes with a snapshot
+ * version different from the one the entries were calculated with, everything is dropped before
+ * the lookup; the version is also part of the offer key, so a request racing with the change
+ * cannot put an offer calculated with the old rates under the new ones.
+ */
+@Slf4j
+public class OfferCache {
+
+    private final BoundedCache<AnnuityFactorKey, BigDecimal> annuityFactors;
+    private final BoundedCache<OfferKey, List<LoanOfferDto>> offers;
+
+    private static final long NO_RATES_VERSION = -1;
+
+    // Read on every call without locking; the lock is only taken when the rates actually change
+    private volatile long ratesVersion = NO_RATES_VERSION;
+
+    public OfferCache(int annuityFactorsMaximumSize, int offersMaximumSize) {
+        this.annuityFactors = new BoundedCache<>("annuity-factors", annuityFactorsMaximumSize);
+        this.offers = new BoundedCache<>("offers", offersMaximumSize);
+    }
+
+    public BigDecimal getAnnuityFactor(int term, BigDecimal monthlyRate, Supplier<BigDecimal> loader) {
+        return annuityFactors.get(new AnnuityFactorKey(term, monthlyRate.stripTrailingZeros()), key -> loader.get());
+    }
+
+    public List<LoanOfferDto> getOffers(BigDecimal amount,
+                                        int term,
+                                        RateSnapshot rates,
+                                        Supplier<List<LoanOfferDto>> loader) {
+        invalidateIfRatesChanged(rates.version());
+        return offers.get(new OfferKey(amount.stripTrailingZeros(), term, rates.version()), key -> List.copyOf(loader.get()));
+    }
+
+    public void invalidateAll() {
+        annuityFactors.invalidateAll();
+        offers.invalidateAll();
+    }
+
+    public BoundedCache<?, ?> getAnnuityFactors() {
+        return annuityFactors;
+    }
+
+    public BoundedCache<?, ?> getOffers() {
+        return offers;
+    }
+
+    private void invalidateIfRatesChanged(long currentRatesVersion) {
+        if (currentRatesVersion == ratesVersion) {
+            return;
+        }
+
+        synchronized (this) {
+            if (currentRatesVersion != ratesVersion) {
+                if (ratesVersion != NO_RATES_VERSION) {
+                    log.info("Rates changed to version {}, invalidating offer caches", currentRatesVersion);
+                }
+                invalidateAll();
+                ratesVersion = currentRatesVersion;
+            }
+        }
+    }
+
+    private record AnnuityFactorKey(int term, BigDecimal monthlyRate) {
+    }
+
+    private record OfferKey(BigDecimal amount, int term, long ratesVersion) {
+    }
+}
@@ -0,0 +1,25 @@
+package ru.neoflex.mscalculator.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.neoflex.annuityengine.AnnuityEngine;
+import ru.neoflex.annuityengine.BigDecimalAnnuityEngine;
+import ru.neoflex.annuityengine.FixedPointAnnuityEngine;
+
+@Slf4j
+@Configuration
+public class AnnuityEngineConfig {
+
+    @Bean
+    public AnnuityEngine annuityEngine(@Value("${calculator.annuity.engine:big-decimal}") String engine) {
+        log.info("Using {} annuity engine", engine);
+
+        return switch (engine) {
+            case "big-decimal" -> new BigDecimalAnnuityEngine();
+            case "fixed-point" -> new FixedPointAnnuityEngine(new BigDecimalAnnuityEngine());
+            default -> throw new IllegalArgumentException("Unknown annuity engine: " + engine);
+        };
+    }
+}
@@ -0,0 +1,21 @@
+package ru.neoflex.mscalculator.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+
+@Slf4j
+@Configuration
+public class BatchOffersConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool batchOffersPool(@Value("${calculator.batch.parallelism:0}") int parallelism) {
+        int poolParallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        log.info("Batch offers pool parallelism: {}", poolParallelism);
+
+        return new ForkJoinPool(poolParallelism);
+    }
+}
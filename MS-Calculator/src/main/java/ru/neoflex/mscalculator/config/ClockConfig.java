@@ -0,0 +1,26 @@
+package ru.neoflex.mscalculator.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+@Slf4j
+@Configuration
+public class ClockConfig {
+
+    @Bean
+    public Clock clock(@Value("${calculator.clock.fixed-date:}") String fixedDate) {
+        if (fixedDate.isBlank()) {
+            return Clock.systemDefaultZone();
+        }
+
+        log.warn("Using a fixed clock, every request is calculated as of {}", fixedDate);
+        ZoneId zone = ZoneId.systemDefault();
+        return Clock.fixed(LocalDate.parse(fixedDate).atStartOfDay(zone).toInstant(), zone);
+    }
+}
@@ -0,0 +1,50 @@
+package ru.neoflex.mscalculator.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.neoflex.mscalculator.cache.BoundedCache;
+import ru.neoflex.mscalculator.cache.OfferCache;
+
+@Slf4j
+@Configuration
+public class OfferCacheConfig {
+
+    @Bean
+    public OfferCache offerCache(@Value("${calculator.cache.annuity-factors.max-size:1024}") int annuityFactorsMaxSize,
+                                 @Value("${calculator.cache.offers.max-size:10000}") int offersMaxSize) {
+        log.info("Offer cache sizes: annuity factors {}, offers {}", annuityFactorsMaxSize, offersMaxSize);
+
+        return new OfferCache(annuityFactorsMaxSize, offersMaxSize);
+    }
+
+    @Bean
+    public MeterBinder offerCacheMetrics(OfferCache offerCache) {
+        return registry -> {
+            bindCache(registry, offerCache.getAnnuityFactors());
+            bindCache(registry, offerCache.getOffers());
+        };
+    }
+
+    private void bindCache(MeterRegistry registry, BoundedCache<?, ?> cache) {
+        FunctionCounter.builder("calculator.cache.gets", cache, BoundedCache::getHits)
+                .tag("cache", cache.getName())
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("calculator.cache.gets", cache, BoundedCache::getMisses)
+                .tag("cache", cache.getName())
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("calculator.cache.evictions", cache, BoundedCache::getEvictions)
+                .tag("cache", cache.getName())
+                .register(registry);
+        Gauge.builder("calculator.cache.size", cache, BoundedCache::size)
+                .tag("cache", cache.getName())
+                .register(registry);
+    }
+}
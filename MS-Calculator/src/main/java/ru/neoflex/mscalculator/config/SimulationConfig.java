@@ -0,0 +1,21 @@
+package ru.neoflex.mscalculator.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+
+@Slf4j
+@Configuration
+public class SimulationConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool simulationPool(@Value("${calculator.simulation.parallelism:0}") int parallelism) {
+        int poolParallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        log.info("Simulation pool parallelism: {}", poolParallelism);
+
+        return new ForkJoinPool(poolParallelism);
+    }
+}
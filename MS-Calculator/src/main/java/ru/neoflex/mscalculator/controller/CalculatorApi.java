@@ -9,15 +9,18 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.neoflex.loanissuerlibrary.dto.CreditDto;
 import ru.neoflex.loanissuerlibrary.dto.LoanOfferDto;
 import ru.neoflex.loanissuerlibrary.dto.LoanStatementRequestDto;
 import ru.neoflex.loanissuerlibrary.dto.ScoringDataDto;
 import ru.neoflex.loanissuerlibrary.exception.CreditDeniedException;
+import ru.neoflex.mscalculator.dto.BatchOfferResultDto;
 
 import java.util.List;
 
@@ -42,14 +45,43 @@ public interface CalculatorApi {
                     на основании всех возможных комбинаций булевых полей \
                     isInsuranceEnabled и isSalaryClient.\r\n
                     Ответ на запрос - список из четырёх LoanOfferDto, которые сортируются \
-                    по мере уменьшения процентной ставки."""
+                    по мере уменьшения процентной ставки.\r\n
+                    В заголовке X-Rates-Version передаётся версия ставок, по которым выполнен расчёт."""
     )
     @PostMapping(path = "/offers")
-    List<LoanOfferDto> getOffers(@io.swagger.v3.oas.annotations.parameters.RequestBody(
+    ResponseEntity<List<LoanOfferDto>> getOffers(@io.swagger.v3.oas.annotations.parameters.RequestBody(
             description = "Заявка на кредит от клиента в виде LoanStatementRequestDto.",
             required = true)
-                                        @RequestBody
-                                        @Valid LoanStatementRequestDto loanStatementRequestDto);
+                                                        @RequestBody
+                                                        @Valid LoanStatementRequestDto loanStatementRequestDto);
+
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK", content = {
+                    @Content(mediaType = "application/x-ndjson", schema =
+                    @Schema(implementation = BatchOfferResultDto.class))
+            }),
+            @ApiResponse(responseCode = "400", description = "Batch is empty or too large", content = {
+                    @Content(mediaType = "application/json")
+            })
+    })
+    @Operation(
+            summary = "Пакетный расчёт возможных условий кредита.",
+            description = """
+                    На вход получает список LoanStatementRequestDto.\r\n
+                    Каждая заявка валидируется и рассчитывается отдельно, параллельно с остальными. \
+                    Ошибка валидации или расчёта одной заявки не прерывает обработку пакета.\r\n
+                    Ответ на запрос - поток BatchOfferResultDto в формате NDJSON, по одному на заявку, \
+                    в порядке готовности. Каждый результат содержит номер заявки в пакете и либо \
+                    четыре LoanOfferDto, либо описание ошибок.\r\n
+                    Весь пакет рассчитывается по одной версии ставок, она передаётся в заголовке X-Rates-Version \
+                    и в каждом результате."""
+    )
+    @PostMapping(path = "/offers/batch", produces = "application/x-ndjson")
+    ResponseEntity<StreamingResponseBody> getOffersBatch(@io.swagger.v3.oas.annotations.parameters.RequestBody(
+            description = "Список заявок на кредит в виде LoanStatementRequestDto.",
+            required = true)
+                                                         @RequestBody
+                                                         List<LoanStatementRequestDto> loanStatementRequestDtoList);
 
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "OK", content = {
@@ -74,14 +106,47 @@ public interface CalculatorApi {
                     ежемесячный платёж. На основе вычисленных данных создаётся график ежемесячных платежей, \
                     который представлен в виде списка из PaymentScheduleElementDto.\r\n
                     Если же клиент не прошёл проверку, то выбрасывается CreditDeniedException.\r\n
-                    Ответ на запрос - CreditDto, насыщенный всеми рассчитанными параметрами."""
+                    Ответ на запрос - CreditDto, насыщенный всеми рассчитанными параметрами.\r\n
+                    В заголовке X-Rates-Version передаётся версия ставок, по которым выполнен расчёт, \
+                    в заголовке X-Insurance-Rate - применённая ставка страховки (0 без страховки)."""
     )
     @PostMapping(path = "/calc")
-    CreditDto calculateCredit(@io.swagger.v3.oas.annotations.parameters.RequestBody(
+    ResponseEntity<CreditDto> calculateCredit(@io.swagger.v3.oas.annotations.parameters.RequestBody(
+            description = """
+                    Наиболее полные данные о клиенте, необходимые для расчёта
+                    условий кредита, представленные в виде ScoringDataDto.""",
+            required = true)
+                                              @RequestBody @Valid ScoringDataDto scoringDataDto)
+                                              throws CreditDeniedException;
+
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK", content = {
+                    @Content(mediaType = "application/x-ndjson")
+            }),
+            @ApiResponse(responseCode = "400", description = "Dto validation failed", content = {
+                    @Content(mediaType = "application/json")
+            }),
+            @ApiResponse(responseCode = "403", description = "Credit application denied", content = {
+                    @Content(mediaType = "application/json")
+            })
+    })
+    @Operation(
+            summary = "Полный расчёт параметров кредита с потоковой выдачей графика платежей.",
+            description = """
+                    Вызывается вместо /calculator/calc, если в заголовке Accept указан application/x-ndjson.\r\n
+                    Проверка кредитоспособности и расчёт параметров кредита такие же, как в /calculator/calc.\r\n
+                    Ответ на запрос - поток в формате NDJSON: первая строка - CreditDto без графика платежей, \
+                    каждая следующая - PaymentScheduleElementDto в порядке номеров платежей. \
+                    Элементы графика отправляются по мере расчёта и не накапливаются в памяти.\r\n
+                    Весь поток рассчитывается по одной версии ставок, она передаётся в заголовке X-Rates-Version, \
+                    применённая ставка страховки - в заголовке X-Insurance-Rate."""
+    )
+    @PostMapping(path = "/calc", produces = "application/x-ndjson")
+    ResponseEntity<StreamingResponseBody> calculateCreditStream(@io.swagger.v3.oas.annotations.parameters.RequestBody(
             description = """
                     Наиболее полные данные о клиенте, необходимые для расчёта
                     условий кредита, представленные в виде ScoringDataDto.""",
             required = true)
-                                     @RequestBody @Valid ScoringDataDto scoringDataDto)
-                                     throws CreditDeniedException;
+                                                                @RequestBody @Valid ScoringDataDto scoringDataDto)
+                                                                throws CreditDeniedException;
 }
@@ -1,15 +1,30 @@
 package ru.neoflex.mscalculator.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.neoflex.loanissuerlibrary.dto.CreditDto;
 import ru.neoflex.loanissuerlibrary.dto.LoanOfferDto;
 import ru.neoflex.loanissuerlibrary.dto.LoanStatementRequestDto;
 import ru.neoflex.loanissuerlibrary.dto.ScoringDataDto;
 import ru.neoflex.loanissuerlibrary.exception.CreditDeniedException;
+import ru.neoflex.mscalculator.rates.RateSnapshot;
+import ru.neoflex.mscalculator.scoring.ScoringContext;
+import ru.neoflex.mscalculator.service.BatchOffersService;
 import ru.neoflex.mscalculator.service.CalculatorService;
+import ru.neoflex.mscalculator.service.CalculatorService.CreditCalculation;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @Slf4j
@@ -18,32 +33,82 @@ import java.util.List;
 @RequestMapping("/calculator")
 public class CalculatorController implements CalculatorApi {
 
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    static final String RATES_VERSION_HEADER = "X-Rates-Version";
+    static final String INSURANCE_RATE_HEADER = "X-Insurance-Rate";
+
     private final CalculatorService calculatorService;
+    private final BatchOffersService batchOffersService;
+    private final ObjectMapper objectMapper;
+    private final int maxBatchSize;
 
-    public CalculatorController(CalculatorService calculatorService) {
+    public CalculatorController(CalculatorService calculatorService,
+                                BatchOffersService batchOffersService,
+                                ObjectMapper objectMapper,
+                                @Value("${calculator.batch.max-size:10000}") int maxBatchSize) {
         this.calculatorService = calculatorService;
+        this.batchOffersService = batchOffersService;
+        this.objectMapper = objectMapper;
+        this.maxBatchSize = maxBatchSize;
     }
 
     @Override
     @PostMapping(path = "/offers")
-    public List<LoanOfferDto> getOffers(LoanStatementRequestDto loanStatementRequestDto) {
+    public ResponseEntity<List<LoanOfferDto>> getOffers(LoanStatementRequestDto loanStatementRequestDto) {
 
         log.info("Received a valid request to /calculator/offers; amount: {}, term: {}",
                                                         loanStatementRequestDto.getAmount(),
                                                         loanStatementRequestDto.getTerm());
 
-        List<LoanOfferDto> offers = calculatorService.getOffers(loanStatementRequestDto);
+        RateSnapshot rates = calculatorService.getRates();
+        List<LoanOfferDto> offers = calculatorService.getOffers(loanStatementRequestDto, rates);
 
         log.info("Generated loan offers: {}", offers.stream()
                                               .map(offer -> String.format("statementId=%s",
                                               offer.getStatementId()))
                                               .toList());
-        return offers;
+        return ResponseEntity.ok()
+                .header(RATES_VERSION_HEADER, String.valueOf(rates.version()))
+                .body(offers);
+    }
+
+    @Override
+    @PostMapping(path = "/offers/batch", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> getOffersBatch(List<LoanStatementRequestDto> loanStatementRequestDtoList) {
+
+        log.info("Received a request to /calculator/offers/batch; batch size: {}", loanStatementRequestDtoList.size());
+
+        if (loanStatementRequestDtoList.isEmpty() || loanStatementRequestDtoList.size() > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                                              "Batch size must be between 1 and " + maxBatchSize);
+        }
+
+        RateSnapshot rates = calculatorService.getRates();
+        StreamingResponseBody body = outputStream -> {
+            try {
+                batchOffersService.getOffers(loanStatementRequestDtoList, rates, result -> {
+                    writeNdjsonLine(outputStream, result);
+                    flush(outputStream);
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Batch calculation was interrupted");
+            }
+
+            log.info("Streamed offers for a batch of {} requests", loanStatementRequestDtoList.size());
+        };
+
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_NDJSON)
+                .header(RATES_VERSION_HEADER, String.valueOf(rates.version()))
+                .body(body);
     }
 
     @Override
     @PostMapping(path = "/calc")
-    public CreditDto calculateCredit(ScoringDataDto scoringDataDto) throws CreditDeniedException {
+    public ResponseEntity<CreditDto> calculateCredit(ScoringDataDto scoringDataDto) throws CreditDeniedException {
         log.info("Received a valid request to /calculator/calc; " +
                  "amount: {}, term: {} isInsuranceEnabled: {}, isSalaryClient: {}",
                 scoringDataDto.getAmount(),
@@ -52,14 +117,83 @@ public class CalculatorController implements CalculatorApi {
                 scoringDataDto.getIsSalaryClient()
         );
 
-        calculatorService.isEligibleForCredit(scoringDataDto);
+        ScoringContext scoringContext = calculatorService.createScoringContext(scoringDataDto);
+        calculatorService.isEligibleForCredit(scoringDataDto, scoringContext);
 
         log.info("Clients is eligible for credit, proceeding to create a CreditDto");
-        CreditDto creditDto = calculatorService.getCredit(scoringDataDto);
+        RateSnapshot rates = calculatorService.getRates();
+        CreditDto creditDto = calculatorService.getCredit(scoringDataDto, rates, scoringContext);
 
         log.info("Generated CreditDto: {}", creditDto.toString());
 
-        return creditDto;
+        return ResponseEntity.ok()
+                .header(RATES_VERSION_HEADER, String.valueOf(rates.version()))
+                .header(INSURANCE_RATE_HEADER, getInsuranceRate(scoringDataDto, rates))
+                .body(creditDto);
+    }
+
+    @Override
+    @PostMapping(path = "/calc", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> calculateCreditStream(ScoringDataDto scoringDataDto)
+                                                                    throws CreditDeniedException {
+        log.info("Received a valid streaming request to /calculator/calc; " +
+                 "amount: {}, term: {} isInsuranceEnabled: {}, isSalaryClient: {}",
+                scoringDataDto.getAmount(),
+                scoringDataDto.getTerm(),
+                scoringDataDto.getIsInsuranceEnabled(),
+                scoringDataDto.getIsSalaryClient()
+        );
+
+        ScoringContext scoringContext = calculatorService.createScoringContext(scoringDataDto);
+        calculatorService.isEligibleForCredit(scoringDataDto, scoringContext);
+
+        log.info("Clients is eligible for credit, proceeding to stream a CreditDto");
+        RateSnapshot rates = calculatorService.getRates();
+        CreditCalculation creditCalculation = calculatorService.calculateCredit(scoringDataDto, rates, scoringContext);
+        CreditDto creditTerms = calculatorService.getCreditTerms(scoringDataDto, creditCalculation);
+
+        StreamingResponseBody body = outputStream -> {
+            try {
+                writeNdjsonLine(outputStream, creditTerms);
+                calculatorService.createPaymentSchedule(scoringDataDto,
+                                                        creditCalculation,
+                                                        scoringContext,
+                                                        element -> writeNdjsonLine(outputStream, element));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            log.info("Streamed CreditDto with a payment schedule of {} elements", creditTerms.getTerm());
+        };
+
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_NDJSON)
+                .header(RATES_VERSION_HEADER, String.valueOf(rates.version()))
+                .header(INSURANCE_RATE_HEADER, getInsuranceRate(scoringDataDto, rates))
+                .body(body);
+    }
+
+    private String getInsuranceRate(ScoringDataDto scoringDataDto, RateSnapshot rates) {
+        return calculatorService.getInsuranceRate(rates,
+                                                  scoringDataDto.getIsInsuranceEnabled(),
+                                                  scoringDataDto.getIsSalaryClient())
+                                .toPlainString();
     }
 
+    private void writeNdjsonLine(OutputStream outputStream, Object value) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(value));
+            outputStream.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void flush(OutputStream outputStream) {
+        try {
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
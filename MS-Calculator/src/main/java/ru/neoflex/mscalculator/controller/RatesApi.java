@@ -0,0 +1,59 @@
+package ru.neoflex.mscalculator.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.validation.Valid;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.neoflex.mscalculator.dto.RatesDto;
+
+@RestController
+@RequestMapping("/calculator/admin/rates")
+public interface RatesApi {
+
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK", content = {
+                    @Content(mediaType = "application/json", schema =
+                    @Schema(implementation = RatesDto.class))
+            })
+    })
+    @Operation(
+            summary = "Получение текущих ставок.",
+            description = "Ответ на запрос - RatesDto с текущими ставками и их версией."
+    )
+    @GetMapping
+    RatesDto getRates();
+
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK", content = {
+                    @Content(mediaType = "application/json", schema =
+                    @Schema(implementation = RatesDto.class))
+            }),
+            @ApiResponse(responseCode = "400", description = "Dto validation failed", content = {
+                    @Content(mediaType = "application/json")
+            })
+    })
+    @Operation(
+            summary = "Изменение ставок без перезапуска сервиса.",
+            description = """
+                    На вход получает RatesDto, он валидируется. Базовая ставка должна быть больше \
+                    суммы обоих уменьшений, иначе ставки не применяются.\r\n
+                    Новые ставки применяются ко всем запросам, начатым после изменения; \
+                    запросы, которые уже выполняются, дорабатывают по прежним ставкам. \
+                    Если ставки не отличаются от текущих, версия не меняется.\r\n
+                    Изменение действует до следующего изменения файла ставок или \
+                    следующего вызова этого метода.\r\n
+                    Ответ на запрос - RatesDto с применёнными ставками и их версией."""
+    )
+    @PutMapping
+    RatesDto updateRates(@io.swagger.v3.oas.annotations.parameters.RequestBody(
+            description = "Новые ставки в виде RatesDto.",
+            required = true)
+                         @RequestBody @Valid RatesDto ratesDto);
+}
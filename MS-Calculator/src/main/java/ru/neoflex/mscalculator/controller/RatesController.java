@@ -0,0 +1,63 @@
+package ru.neoflex.mscalculator.controller;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import ru.neoflex.mscalculator.dto.RatesDto;
+import ru.neoflex.mscalculator.rates.RateProvider;
+import ru.neoflex.mscalculator.rates.RateSnapshot;
+
+@Slf4j
+@Tag(name = "ms_calculator_admin")
+@RestController
+@RequestMapping("/calculator/admin/rates")
+public class RatesController implements RatesApi {
+
+    private final RateProvider rateProvider;
+
+    public RatesController(RateProvider rateProvider) {
+        this.rateProvider = rateProvider;
+    }
+
+    @Override
+    @GetMapping
+    public RatesDto getRates() {
+        return toRatesDto(rateProvider.getSnapshot());
+    }
+
+    @Override
+    @PutMapping
+    public RatesDto updateRates(RatesDto ratesDto) {
+        log.info("Received a valid request to update rates: {}", ratesDto);
+
+        RateSnapshot published;
+        try {
+            published = rateProvider.publish(new RateSnapshot(0,
+                                                              ratesDto.getBaseRate(),
+                                                              ratesDto.getInsuranceRate(),
+                                                              ratesDto.getClientInsuranceRate(),
+                                                              ratesDto.getInsuranceDecrement(),
+                                                              ratesDto.getClientDecrement()));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        return toRatesDto(published);
+    }
+
+    private RatesDto toRatesDto(RateSnapshot rateSnapshot) {
+        return RatesDto.builder()
+                .version(rateSnapshot.version())
+                .baseRate(rateSnapshot.baseRate())
+                .insuranceRate(rateSnapshot.insuranceRate())
+                .clientInsuranceRate(rateSnapshot.clientInsuranceRate())
+                .insuranceDecrement(rateSnapshot.insuranceDecrement())
+                .clientDecrement(rateSnapshot.clientDecrement())
+                .build();
+    }
+}
@@ -0,0 +1,67 @@
+package ru.neoflex.mscalculator.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.neoflex.mscalculator.dto.SimulationRequestDto;
+import ru.neoflex.mscalculator.dto.SimulationResultDto;
+
+@RestController
+@RequestMapping("/calculator/simulation")
+public interface SimulationApi {
+
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK", content = {
+                    @Content(mediaType = "application/json", schema =
+                    @Schema(implementation = SimulationResultDto.class))
+            }),
+            @ApiResponse(responseCode = "400", description = "Dto validation failed or the grid is too large", content = {
+                    @Content(mediaType = "application/json")
+            })
+    })
+    @Operation(
+            summary = "Моделирование предложений при изменённых ставках.",
+            description = """
+                    На вход получает SimulationRequestDto, он валидируется.\r\n
+                    Для каждой суммы и каждого срока из заданных диапазонов рассчитываются ежемесячный платёж \
+                    и полная стоимость кредита так же, как в /calculator/offers, но по текущим ставкам, \
+                    в которых заменены переданные в запросе значения. Текущие ставки не меняются.\r\n
+                    Расчёт выполняется параллельно; размер сетки ограничен.\r\n
+                    Ответ на запрос - SimulationResultDto, в котором результаты представлены столбцами."""
+    )
+    @PostMapping
+    ResponseEntity<SimulationResultDto> simulate(@io.swagger.v3.oas.annotations.parameters.RequestBody(
+            description = "Изменённые ставки и диапазоны сумм и сроков в виде SimulationRequestDto.",
+            required = true)
+                                                 @RequestBody @Valid SimulationRequestDto simulationRequestDto);
+
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK", content = {
+                    @Content(mediaType = "text/csv")
+            }),
+            @ApiResponse(responseCode = "400", description = "Dto validation failed or the grid is too large", content = {
+                    @Content(mediaType = "application/json")
+            })
+    })
+    @Operation(
+            summary = "Моделирование предложений при изменённых ставках в формате CSV.",
+            description = """
+                    Вызывается вместо /calculator/simulation, если в заголовке Accept указан text/csv.\r\n
+                    Расчёт такой же, как в /calculator/simulation.\r\n
+                    Ответ на запрос - CSV с заголовком amount,term,monthlyPayment,psk и строкой на каждую \
+                    пару суммы и срока."""
+    )
+    @PostMapping(produces = "text/csv")
+    ResponseEntity<String> simulateCsv(@io.swagger.v3.oas.annotations.parameters.RequestBody(
+            description = "Изменённые ставки и диапазоны сумм и сроков в виде SimulationRequestDto.",
+            required = true)
+                                       @RequestBody @Valid SimulationRequestDto simulationRequestDto);
+}
@@ -0,0 +1,72 @@
+package ru.neoflex.mscalculator.controller;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import ru.neoflex.mscalculator.dto.SimulationRequestDto;
+import ru.neoflex.mscalculator.dto.SimulationResultDto;
+import ru.neoflex.mscalculator.service.SimulationService;
+
+@Slf4j
+@Tag(name = "ms_calculator_simulation")
+@RestController
+@RequestMapping("/calculator/simulation")
+public class SimulationController implements SimulationApi {
+
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private final SimulationService simulationService;
+
+    public SimulationController(SimulationService simulationService) {
+        this.simulationService = simulationService;
+    }
+
+    @Override
+    @PostMapping
+    public ResponseEntity<SimulationResultDto> simulate(SimulationRequestDto simulationRequestDto) {
+        log.info("Received a valid request to /calculator/simulation: {}", simulationRequestDto);
+
+        SimulationResultDto result = runSimulation(simulationRequestDto);
+
+        return ResponseEntity.ok()
+                .header(CalculatorController.RATES_VERSION_HEADER, String.valueOf(result.getRatesVersion()))
+                .body(result);
+    }
+
+    @Override
+    @PostMapping(produces = "text/csv")
+    public ResponseEntity<String> simulateCsv(SimulationRequestDto simulationRequestDto) {
+        log.info("Received a valid CSV request to /calculator/simulation: {}", simulationRequestDto);
+
+        SimulationResultDto result = runSimulation(simulationRequestDto);
+
+        int terms = result.getTerms().length;
+        StringBuilder csv = new StringBuilder(64 * result.getMonthlyPayments().length);
+        csv.append("amount,term,monthlyPayment,psk\n");
+        for (int cell = 0; cell < result.getMonthlyPayments().length; ++cell) {
+            csv.append(result.getAmounts()[cell / terms].toPlainString()).append(',')
+                    .append(result.getTerms()[cell % terms]).append(',')
+                    .append(result.getMonthlyPayments()[cell].toPlainString()).append(',')
+                    .append(result.getPsks()[cell].toPlainString()).append('\n');
+        }
+
+        return ResponseEntity.ok()
+                .contentType(TEXT_CSV)
+                .header(CalculatorController.RATES_VERSION_HEADER, String.valueOf(result.getRatesVersion()))
+                .body(csv.toString());
+    }
+
+    private SimulationResultDto runSimulation(SimulationRequestDto simulationRequestDto) {
+        try {
+            return simulationService.simulate(simulationRequestDto);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
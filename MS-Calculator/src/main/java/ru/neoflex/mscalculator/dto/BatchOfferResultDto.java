@@ -0,0 +1,33 @@
+package ru.neoflex.mscalculator.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.neoflex.loanissuerlibrary.dto.LoanOfferDto;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "DTO, содержащий результат расчёта предложений для одной заявки из пакета")
+public class BatchOfferResultDto {
+
+    @Schema(description = "Порядковый номер заявки в пакете, начиная с 0")
+    private Integer index;
+
+    @Schema(description = "Версия ставок, по которым рассчитан пакет")
+    private Long ratesVersion;
+
+    @Schema(description = "Кредитные предложения, если заявка обработана успешно")
+    private List<LoanOfferDto> offers;
+
+    @Schema(description = "Ошибки валидации или расчёта, если заявка не обработана")
+    private Map<String, String> errors;
+}
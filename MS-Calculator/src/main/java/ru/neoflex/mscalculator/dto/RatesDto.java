@@ -0,0 +1,47 @@
+package ru.neoflex.mscalculator.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "DTO, содержащий ставки, по которым рассчитываются предложения и кредиты")
+public class RatesDto {
+
+    @Schema(description = "Версия ставок; при изменении ставок игнорируется", accessMode = Schema.AccessMode.READ_ONLY)
+    private Long version;
+
+    @NotNull
+    @DecimalMin("0")
+    @Schema(description = "Базовая годовая ставка", example = "0.25")
+    private BigDecimal baseRate;
+
+    @NotNull
+    @DecimalMin("0")
+    @Schema(description = "Стоимость страховки в долях от суммы кредита", example = "0.30")
+    private BigDecimal insuranceRate;
+
+    @NotNull
+    @DecimalMin("0")
+    @Schema(description = "Стоимость страховки для зарплатных клиентов в долях от суммы кредита", example = "0.15")
+    private BigDecimal clientInsuranceRate;
+
+    @NotNull
+    @DecimalMin("0")
+    @Schema(description = "Снижение ставки при включённой страховке", example = "0.02")
+    private BigDecimal insuranceDecrement;
+
+    @NotNull
+    @DecimalMin("0")
+    @Schema(description = "Снижение ставки для зарплатных клиентов", example = "0.01")
+    private BigDecimal clientDecrement;
+}
@@ -0,0 +1,80 @@
+package ru.neoflex.mscalculator.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "DTO, содержащий параметры моделирования предложений на сетке сумм и сроков")
+public class SimulationRequestDto {
+
+    @DecimalMin("0")
+    @Schema(description = "Базовая годовая ставка; если не указана, берётся текущая", example = "0.27")
+    private BigDecimal baseRate;
+
+    @DecimalMin("0")
+    @Schema(description = "Стоимость страховки в долях от суммы кредита; если не указана, берётся текущая")
+    private BigDecimal insuranceRate;
+
+    @DecimalMin("0")
+    @Schema(description = "Стоимость страховки для зарплатных клиентов; если не указана, берётся текущая")
+    private BigDecimal clientInsuranceRate;
+
+    @DecimalMin("0")
+    @Schema(description = "Снижение ставки при включённой страховке; если не указано, берётся текущее")
+    private BigDecimal insuranceDecrement;
+
+    @DecimalMin("0")
+    @Schema(description = "Снижение ставки для зарплатных клиентов; если не указано, берётся текущее")
+    private BigDecimal clientDecrement;
+
+    @NotNull
+    @DecimalMin(value = "0", inclusive = false)
+    @Schema(description = "Наименьшая сумма кредита", example = "100000")
+    private BigDecimal amountFrom;
+
+    @NotNull
+    @DecimalMin(value = "0", inclusive = false)
+    @Schema(description = "Наибольшая сумма кредита, включительно", example = "1000000")
+    private BigDecimal amountTo;
+
+    @NotNull
+    @DecimalMin(value = "0", inclusive = false)
+    @Schema(description = "Шаг суммы кредита", example = "50000")
+    private BigDecimal amountStep;
+
+    @NotNull
+    @Min(1)
+    @Schema(description = "Наименьший срок кредита в месяцах", example = "6")
+    private Integer termFrom;
+
+    @NotNull
+    @Min(1)
+    @Max(1200)
+    @Schema(description = "Наибольший срок кредита в месяцах, включительно", example = "60")
+    private Integer termTo;
+
+    @NotNull
+    @Min(1)
+    @Schema(description = "Шаг срока кредита в месяцах", example = "6")
+    private Integer termStep;
+
+    @NotNull
+    @Schema(description = "Включена ли страховка")
+    private Boolean isInsuranceEnabled;
+
+    @NotNull
+    @Schema(description = "Является ли клиент зарплатным")
+    private Boolean isSalaryClient;
+}
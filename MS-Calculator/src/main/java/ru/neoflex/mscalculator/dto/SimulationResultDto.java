@@ -0,0 +1,38 @@
+package ru.neoflex.mscalculator.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = """
+        DTO, содержащий результат моделирования в виде столбцов. \
+        Значение для суммы amounts[i] и срока terms[j] находится в monthlyPayments и psks \
+        по индексу i * terms.length + j""")
+public class SimulationResultDto {
+
+    @Schema(description = "Версия текущих ставок, к которым применены переданные значения")
+    private Long ratesVersion;
+
+    @Schema(description = "Итоговая годовая ставка предложения")
+    private BigDecimal rate;
+
+    @Schema(description = "Суммы кредита по возрастанию")
+    private BigDecimal[] amounts;
+
+    @Schema(description = "Сроки кредита по возрастанию")
+    private int[] terms;
+
+    @Schema(description = "Ежемесячные платежи")
+    private BigDecimal[] monthlyPayments;
+
+    @Schema(description = "Полная стоимость кредита")
+    private BigDecimal[] psks;
+}
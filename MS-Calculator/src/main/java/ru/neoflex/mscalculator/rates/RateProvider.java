@@ -0,0 +1,97 @@
+package ru.neoflex.mscalculator.rates;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.neoflex.mscalculator.util.ReloadableResource;
+
+import java.math.BigDecimal;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Publishes the current {@link RateSnapshot}. Rates come from the rates file, which is checked
+ * for changes periodically, or from the admin endpoint; whichever was published last is in use.
+ * Readers only do a volatile read, publishing is serialized.
+ */
+@Slf4j
+@Component
+public class RateProvider {
+
+    private final ReloadableResource<RateSnapshot> resource;
+    private final AtomicReference<RateSnapshot> snapshot = new AtomicReference<>();
+
+    public RateProvider(@Value("${calculator.rates.location:classpath:service.properties}") Resource location) {
+        this.resource = new ReloadableResource<>(location, "rates", this::parse);
+        this.snapshot.set(validate(resource.load()).withVersion(1));
+        log.info("Loaded rates from {}: {}", location, snapshot.get());
+    }
+
+    public RateSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    @Scheduled(fixedDelayString = "${calculator.rates.reload-interval:PT30S}",
+               initialDelayString = "${calculator.rates.reload-interval:PT30S}")
+    public void reloadIfModified() {
+        resource.reloadIfModified(this::publish);
+    }
+
+    /**
+     * Makes {@code rates} the current rates; the version of {@code rates} is ignored.
+     *
+     * @return the published snapshot, or the current one if the rates are the same
+     * @throws IllegalArgumentException if the rates leave a credit with a rate of zero or less
+     */
+    public synchronized RateSnapshot publish(RateSnapshot rates) {
+        validate(rates);
+        RateSnapshot current = snapshot.get();
+        if (current.hasSameRates(rates)) {
+            return current;
+        }
+
+        RateSnapshot published = rates.withVersion(current.version() + 1);
+        snapshot.set(published);
+        log.info("Published rates: {}", published);
+        return published;
+    }
+
+    // The rate of an insured salary client gets both decrements and must stay positive to be divided by
+    private RateSnapshot validate(RateSnapshot rates) {
+        BigDecimal lowestRate = rates.baseRate().subtract(rates.insuranceDecrement()).subtract(rates.clientDecrement());
+        if (lowestRate.signum() <= 0) {
+            throw new IllegalArgumentException("Base rate must be greater than the decrements together, " +
+                                               "the lowest rate would be " + lowestRate.toPlainString());
+        }
+        return rates;
+    }
+
+    private RateSnapshot parse(Properties properties) {
+        return new RateSnapshot(0,
+                                getRate(properties, "rate"),
+                                getRate(properties, "insurance.rate"),
+                                getRate(properties, "client.insurance.rate"),
+                                getRate(properties, "rate.decrement.for.insurance"),
+                                getRate(properties, "rate.decrement.for.clients"));
+    }
+
+    private BigDecimal getRate(Properties properties, String key) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("Rate " + key + " must be set");
+        }
+
+        BigDecimal rate;
+        try {
+            rate = new BigDecimal(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Rate " + key + " must be a number: " + value);
+        }
+        if (rate.signum() < 0) {
+            throw new IllegalArgumentException("Rate " + key + " must not be negative: " + value);
+        }
+        return rate;
+    }
+}
@@ -0,0 +1,28 @@
+package ru.neoflex.mscalculator.rates;
+
+import java.math.BigDecimal;
+
+/**
+ * One consistent set of rates. A calculation reads the snapshot once and uses it throughout,
+ * so a rate change never mixes old and new values within one request.
+ * The version grows by one every time different rates are published.
+ */
+public record RateSnapshot(long version,
+                           BigDecimal baseRate,
+                           BigDecimal insuranceRate,
+                           BigDecimal clientInsuranceRate,
+                           BigDecimal insuranceDecrement,
+                           BigDecimal clientDecrement) {
+
+    public boolean hasSameRates(RateSnapshot other) {
+        return baseRate.compareTo(other.baseRate) == 0 &&
+               insuranceRate.compareTo(other.insuranceRate) == 0 &&
+               clientInsuranceRate.compareTo(other.clientInsuranceRate) == 0 &&
+               insuranceDecrement.compareTo(other.insuranceDecrement) == 0 &&
+               clientDecrement.compareTo(other.clientDecrement) == 0;
+    }
+
+    RateSnapshot withVersion(long version) {
+        return new RateSnapshot(version, baseRate, insuranceRate, clientInsuranceRate, insuranceDecrement, clientDecrement);
+    }
+}
@@ -0,0 +1,82 @@
+package ru.neoflex.mscalculator.scoring;
+
+import org.springframework.stereotype.Component;
+import ru.neoflex.loanissuerlibrary.dto.ScoringDataDto;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Source of "today" for scoring. The current day and the epoch milliseconds it starts and ends at
+ * are cached, so within a day getting the date is one {@link Clock#millis()} call and the age is
+ * derived from the cached year and month/day without any date arithmetic.
+ */
+@Component
+public class ScoringCalendar {
+
+    private final Clock clock;
+
+    private volatile Day day;
+
+    public ScoringCalendar(Clock clock) {
+        this.clock = clock;
+    }
+
+    public ScoringContext createContext(ScoringDataDto scoringDataDto) {
+        Day current = currentDay();
+        return new ScoringContext(current.date(), calculateAge(scoringDataDto.getBirthdate(), current));
+    }
+
+    public LocalDate today() {
+        return currentDay().date();
+    }
+
+    /**
+     * Full years between {@code birthdate} and today, the same as {@code ChronoUnit.YEARS.between}.
+     */
+    public int calculateAge(LocalDate birthdate) {
+        return calculateAge(birthdate, currentDay());
+    }
+
+    private int calculateAge(LocalDate birthdate, Day current) {
+        if (birthdate.isAfter(current.date())) {
+            // Only invalid data gets here, there is no point in optimizing it
+            return (int) ChronoUnit.YEARS.between(birthdate, current.date());
+        }
+
+        int age = current.date().getYear() - birthdate.getYear();
+        if (current.monthDay() < monthDay(birthdate.getMonthValue(), birthdate.getDayOfMonth())) {
+            --age;
+        }
+        return age;
+    }
+
+    private Day currentDay() {
+        Day current = day;
+        long now = clock.millis();
+        if (current == null || now < current.startMillis() || now >= current.endMillis()) {
+            current = createDay(now);
+            day = current;
+        }
+        return current;
+    }
+
+    private Day createDay(long now) {
+        ZoneId zone = clock.getZone();
+        LocalDate date = LocalDate.ofInstant(Instant.ofEpochMilli(now), zone);
+        return new Day(date,
+                       monthDay(date.getMonthValue(), date.getDayOfMonth()),
+                       date.atStartOfDay(zone).toInstant().toEpochMilli(),
+                       date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+    }
+
+    private static int monthDay(int month, int dayOfMonth) {
+        return month * 32 + dayOfMonth;
+    }
+
+    private record Day(LocalDate date, int monthDay, long startMillis, long endMillis) {
+    }
+}
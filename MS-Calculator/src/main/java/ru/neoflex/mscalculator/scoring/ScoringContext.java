@@ -0,0 +1,10 @@
+package ru.neoflex.mscalculator.scoring;
+
+import java.time.LocalDate;
+
+/**
+ * Date-dependent values of one scoring request, calculated once and passed to every stage:
+ * eligibility, rate adjustment and the payment schedule all see the same day.
+ */
+public record ScoringContext(LocalDate today, int age) {
+}
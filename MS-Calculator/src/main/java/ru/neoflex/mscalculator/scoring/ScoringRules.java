@@ -0,0 +1,254 @@
+package ru.neoflex.mscalculator.scoring;
+
+import ru.neoflex.loanissuerlibrary.dto.ScoringDataDto;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.EmploymentStatus;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.Gender;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.MaritalStatus;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.WorkPosition;
+import ru.neoflex.loanissuerlibrary.exception.CreditDeniedException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Scoring rules compiled into an immutable decision table.
+ * <p>
+ * The rate adjustment for every combination of employment status, position, marital status and
+ * age discount is summed up once in {@link #compile(Properties)}, so scoring a request is a single
+ * array lookup by enum ordinals and does not create any {@code BigDecimal}.
+ */
+public final class ScoringRules {
+
+    private static final String PREFIX = "scoring.";
+
+    private static final int STATUSES = EmploymentStatus.values().length;
+    private static final int POSITIONS = WorkPosition.values().length;
+    private static final int MARITAL_STATUSES = MaritalStatus.values().length;
+    private static final int GENDERS = Gender.values().length;
+
+    private final String[] deniedEmploymentStatuses;
+    private final int minWorkExperienceTotal;
+    private final int minWorkExperienceCurrent;
+    private final int minAge;
+    private final int maxAge;
+    private final BigDecimal maxAmountInSalaries;
+
+    private final String workExperienceTotalMessage;
+    private final String workExperienceCurrentMessage;
+    private final String minAgeMessage;
+    private final String maxAgeMessage;
+
+    private final int[] ageDiscountMinAge;
+    private final int[] ageDiscountMaxAge;
+    private final BigDecimal[] adjustments;
+
+    private ScoringRules(String[] deniedEmploymentStatuses,
+                         int minWorkExperienceTotal,
+                         int minWorkExperienceCurrent,
+                         int minAge,
+                         int maxAge,
+                         BigDecimal maxAmountInSalaries,
+                         int[] ageDiscountMinAge,
+                         int[] ageDiscountMaxAge,
+                         BigDecimal[] adjustments) {
+        this.deniedEmploymentStatuses = deniedEmploymentStatuses;
+        this.minWorkExperienceTotal = minWorkExperienceTotal;
+        this.minWorkExperienceCurrent = minWorkExperienceCurrent;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+        this.maxAmountInSalaries = maxAmountInSalaries;
+        this.ageDiscountMinAge = ageDiscountMinAge;
+        this.ageDiscountMaxAge = ageDiscountMaxAge;
+        this.adjustments = adjustments;
+
+        this.workExperienceTotalMessage =
+                "Must be working over " + minWorkExperienceTotal + " months in total to get a loan.";
+        this.workExperienceCurrentMessage =
+                "Must be working at a current job at least for full " + minWorkExperienceCurrent + " months.";
+        this.minAgeMessage = "Must be at least " + minAge + " years old to get a loan.";
+        this.maxAgeMessage = "Must be at most " + maxAge + " years old to get a loan.";
+    }
+
+    /**
+     * Builds the decision table from {@code scoring.*} properties.
+     *
+     * @throws IllegalArgumentException if a rule is missing, malformed or unknown
+     */
+    public static ScoringRules compile(Properties properties) {
+        RuleReader reader = new RuleReader(properties);
+
+        String[] deniedEmploymentStatuses = new String[STATUSES];
+        BigDecimal[] statusAdjustments = new BigDecimal[STATUSES];
+        for (EmploymentStatus status : EmploymentStatus.values()) {
+            deniedEmploymentStatuses[status.ordinal()] = reader.getString("denied.employment-status." + status.name());
+            statusAdjustments[status.ordinal()] = reader.getDecimal("adjustment.employment-status." + status.name());
+        }
+
+        BigDecimal[] positionAdjustments = new BigDecimal[POSITIONS];
+        for (WorkPosition position : WorkPosition.values()) {
+            positionAdjustments[position.ordinal()] = reader.getDecimal("adjustment.position." + position.name());
+        }
+
+        BigDecimal[] maritalStatusAdjustments = new BigDecimal[MARITAL_STATUSES];
+        for (MaritalStatus maritalStatus : MaritalStatus.values()) {
+            maritalStatusAdjustments[maritalStatus.ordinal()] =
+                    reader.getDecimal("adjustment.marital-status." + maritalStatus.name());
+        }
+
+        int[] ageDiscountMinAge = new int[GENDERS];
+        int[] ageDiscountMaxAge = new int[GENDERS];
+        for (Gender gender : Gender.values()) {
+            Integer from = reader.getInteger("adjustment.age." + gender.name() + ".min", false);
+            Integer to = reader.getInteger("adjustment.age." + gender.name() + ".max", false);
+            if ((from == null) != (to == null)) {
+                throw new IllegalArgumentException("Both min and max age must be set for the " + gender +
+                                                   " age adjustment");
+            }
+            // An empty range never matches
+            ageDiscountMinAge[gender.ordinal()] = from == null ? 1 : from;
+            ageDiscountMaxAge[gender.ordinal()] = to == null ? 0 : to;
+        }
+        BigDecimal ageAdjustment = reader.getDecimal("adjustment.age.value");
+
+        BigDecimal[] adjustments = new BigDecimal[STATUSES * POSITIONS * MARITAL_STATUSES * 2];
+        for (int status = 0; status < STATUSES; ++status) {
+            for (int position = 0; position < POSITIONS; ++position) {
+                for (int maritalStatus = 0; maritalStatus < MARITAL_STATUSES; ++maritalStatus) {
+                    BigDecimal adjustment = statusAdjustments[status]
+                            .add(positionAdjustments[position])
+                            .add(maritalStatusAdjustments[maritalStatus]);
+                    int index = index(status, position, maritalStatus);
+                    adjustments[index] = adjustment;
+                    adjustments[index + 1] = adjustment.add(ageAdjustment);
+                }
+            }
+        }
+
+        ScoringRules scoringRules = new ScoringRules(deniedEmploymentStatuses,
+                                                     reader.getInteger("min-work-experience.total", true),
+                                                     reader.getInteger("min-work-experience.current", true),
+                                                     reader.getInteger("age.min", true),
+                                                     reader.getInteger("age.max", true),
+                                                     reader.getRequiredDecimal("max-amount.salaries"),
+                                                     ageDiscountMinAge,
+                                                     ageDiscountMaxAge,
+                                                     adjustments);
+        reader.checkNoUnknownRules();
+        return scoringRules;
+    }
+
+    public void checkEligibility(ScoringDataDto scoringDataDto, int age) throws CreditDeniedException {
+        String deniedStatusMessage =
+                deniedEmploymentStatuses[scoringDataDto.getEmployment().getEmploymentStatus().ordinal()];
+        if (deniedStatusMessage != null) {
+            throw new CreditDeniedException(deniedStatusMessage);
+        }
+
+        if (scoringDataDto.getEmployment().getWorkExperienceTotal() < minWorkExperienceTotal) {
+            throw new CreditDeniedException(workExperienceTotalMessage);
+        }
+
+        if (scoringDataDto.getEmployment().getWorkExperienceCurrent() < minWorkExperienceCurrent) {
+            throw new CreditDeniedException(workExperienceCurrentMessage);
+        }
+
+        if (age < minAge) {
+            throw new CreditDeniedException(minAgeMessage);
+        }
+
+        if (age > maxAge) {
+            throw new CreditDeniedException(maxAgeMessage);
+        }
+
+        BigDecimal maxAmount = scoringDataDto.getEmployment().getSalary().multiply(maxAmountInSalaries);
+        if (scoringDataDto.getAmount().compareTo(maxAmount) > 0) {
+            throw new CreditDeniedException("The requested amount must be at most " +
+                                            maxAmount.setScale(1, RoundingMode.HALF_EVEN));
+        }
+    }
+
+    /**
+     * Returns the precomputed rate adjustment; the employment position must not be null.
+     */
+    public BigDecimal getRateAdjustment(ScoringDataDto scoringDataDto, int age) {
+        int index = index(scoringDataDto.getEmployment().getEmploymentStatus().ordinal(),
+                          scoringDataDto.getEmployment().getPosition().ordinal(),
+                          scoringDataDto.getMaritalStatus().ordinal());
+
+        Gender gender = scoringDataDto.getGender();
+        if (gender != null &&
+            age >= ageDiscountMinAge[gender.ordinal()] && age <= ageDiscountMaxAge[gender.ordinal()]) {
+            ++index;
+        }
+
+        return adjustments[index];
+    }
+
+    private static int index(int status, int position, int maritalStatus) {
+        return ((status * POSITIONS + position) * MARITAL_STATUSES + maritalStatus) * 2;
+    }
+
+    private static class RuleReader {
+
+        private final Properties properties;
+        private final Set<String> readKeys = new HashSet<>();
+
+        RuleReader(Properties properties) {
+            this.properties = properties;
+        }
+
+        String getString(String rule) {
+            readKeys.add(PREFIX + rule);
+            String value = properties.getProperty(PREFIX + rule);
+            return value == null || value.isBlank() ? null : value.trim();
+        }
+
+        Integer getInteger(String rule, boolean required) {
+            String value = required ? getRequiredString(rule) : getString(rule);
+            if (value == null) {
+                return null;
+            }
+            try {
+                return Integer.valueOf(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Scoring rule " + PREFIX + rule + " must be an integer: " + value);
+            }
+        }
+
+        BigDecimal getDecimal(String rule) {
+            String value = getString(rule);
+            return value == null ? BigDecimal.ZERO : toDecimal(rule, value);
+        }
+
+        BigDecimal getRequiredDecimal(String rule) {
+            return toDecimal(rule, getRequiredString(rule));
+        }
+
+        void checkNoUnknownRules() {
+            for (String key : properties.stringPropertyNames()) {
+                if (key.startsWith(PREFIX) && !readKeys.contains(key)) {
+                    throw new IllegalArgumentException("Unknown scoring rule: " + key);
+                }
+            }
+        }
+
+        private String getRequiredString(String rule) {
+            String value = getString(rule);
+            if (value == null) {
+                throw new IllegalArgumentException("Scoring rule " + PREFIX + rule + " must be set");
+            }
+            return value;
+        }
+
+        private BigDecimal toDecimal(String rule, String value) {
+            try {
+                return new BigDecimal(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Scoring rule " + PREFIX + rule + " must be a number: " + value);
+            }
+        }
+    }
+}
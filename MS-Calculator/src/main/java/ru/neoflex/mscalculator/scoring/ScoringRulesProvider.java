@@ -0,0 +1,48 @@
+package ru.neoflex.mscalculator.scoring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.neoflex.mscalculator.util.ReloadableResource;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current {@link ScoringRules}. The rules file is checked for changes periodically;
+ * a changed file is compiled into a new table which then replaces the old one atomically, so a
+ * request always sees one consistent set of rules. A file that fails to compile is logged and
+ * the previous rules stay in use.
+ */
+@Slf4j
+@Component
+public class ScoringRulesProvider {
+
+    private final ReloadableResource<ScoringRules> resource;
+    private final AtomicReference<ScoringRules> rules = new AtomicReference<>();
+
+    public ScoringRulesProvider(@Value("${calculator.scoring.rules-location:classpath:scoring-rules.properties}")
+                                Resource location) {
+        this.resource = new ReloadableResource<>(location, "scoring rules", ScoringRules::compile);
+        this.rules.set(resource.load());
+        log.info("Loaded scoring rules from {}", location);
+    }
+
+    public ScoringRules getRules() {
+        return rules.get();
+    }
+
+    @Scheduled(fixedDelayString = "${calculator.scoring.reload-interval:PT30S}",
+               initialDelayString = "${calculator.scoring.reload-interval:PT30S}")
+    public void reloadIfModified() {
+        resource.reloadIfModified(rules::set);
+    }
+
+    /**
+     * @return whether the new rules were applied
+     */
+    public boolean reload() {
+        return resource.reload(rules::set);
+    }
+}
@@ -0,0 +1,106 @@
+package ru.neoflex.mscalculator.service;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import ru.neoflex.loanissuerlibrary.dto.LoanStatementRequestDto;
+import ru.neoflex.mscalculator.dto.BatchOfferResultDto;
+import ru.neoflex.mscalculator.rates.RateSnapshot;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+@Slf4j
+@Service
+public class BatchOffersService {
+
+    private final CalculatorService calculatorService;
+    private final Validator validator;
+    private final ForkJoinPool batchOffersPool;
+
+    public BatchOffersService(CalculatorService calculatorService,
+                              Validator validator,
+                              @Qualifier("batchOffersPool") ForkJoinPool batchOffersPool) {
+        this.calculatorService = calculatorService;
+        this.validator = validator;
+        this.batchOffersPool = batchOffersPool;
+    }
+
+    /**
+     * Calculates offers for every request of the batch on the batch pool and passes the results
+     * to {@code resultConsumer} in the calling thread, in order of completion.
+     * All requests are calculated with the same {@code rates}.
+     * If the consumer fails (e.g. the client went away), the remaining calculations are cancelled.
+     */
+    public void getOffers(List<LoanStatementRequestDto> loanStatementRequestDtoList,
+                          RateSnapshot rates,
+                          Consumer<BatchOfferResultDto> resultConsumer) throws InterruptedException {
+
+        BlockingQueue<BatchOfferResultDto> results = new LinkedBlockingQueue<>();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(loanStatementRequestDtoList.size());
+
+        for (int index = 0; index < loanStatementRequestDtoList.size(); ++index) {
+            int requestIndex = index;
+            LoanStatementRequestDto loanStatementRequestDto = loanStatementRequestDtoList.get(index);
+            tasks.add(batchOffersPool.submit(
+                    () -> results.add(calculateOffers(requestIndex, loanStatementRequestDto, rates))));
+        }
+
+        try {
+            for (int received = 0; received < tasks.size(); ++received) {
+                resultConsumer.accept(results.take());
+            }
+        } catch (RuntimeException | InterruptedException e) {
+            log.warn("Batch of {} requests aborted: {}", tasks.size(), e.getMessage());
+            tasks.forEach(task -> task.cancel(false));
+            throw e;
+        }
+    }
+
+    private BatchOfferResultDto calculateOffers(int index,
+                                                LoanStatementRequestDto loanStatementRequestDto,
+                                                RateSnapshot rates) {
+        if (loanStatementRequestDto == null) {
+            return BatchOfferResultDto.builder()
+                    .index(index)
+                    .ratesVersion(rates.version())
+                    .errors(Map.of("request", "must not be null"))
+                    .build();
+        }
+
+        try {
+            Set<ConstraintViolation<LoanStatementRequestDto>> violations = validator.validate(loanStatementRequestDto);
+            if (!violations.isEmpty()) {
+                Map<String, String> errors = new TreeMap<>();
+                for (ConstraintViolation<LoanStatementRequestDto> violation : violations) {
+                    errors.merge(violation.getPropertyPath().toString(), violation.getMessage(),
+                                 (first, second) -> first + "; " + second);
+                }
+                return BatchOfferResultDto.builder()
+                        .index(index)
+                        .ratesVersion(rates.version())
+                        .errors(errors)
+                        .build();
+            }
+
+            return BatchOfferResultDto.builder()
+                    .index(index)
+                    .ratesVersion(rates.version())
+                    .offers(calculatorService.getOffers(loanStatementRequestDto, rates))
+                    .build();
+        } catch (RuntimeException e) {
+            log.warn("Failed to calculate offers for request {} of the batch", index, e);
+            return BatchOfferResultDto.builder()
+                    .index(index)
+                    .ratesVersion(rates.version())
+                    .errors(Map.of("request", String.valueOf(e.getMessage())))
+                    .build();
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package ru.neoflex.mscalculator.service;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import ru.neoflex.loanissuerlibrary.dto.enumeration.EmploymentStatus;
-import ru.neoflex.loanissuerlibrary.dto.enumeration.Gender;
+import ru.neoflex.annuityengine.AnnuityEngine;
 import ru.neoflex.loanissuerlibrary.exception.CreditDeniedException;
+import ru.neoflex.mscalculator.cache.OfferCache;
+import ru.neoflex.mscalculator.rates.RateProvider;
+import ru.neoflex.mscalculator.rates.RateSnapshot;
+import ru.neoflex.mscalculator.scoring.ScoringCalendar;
+import ru.neoflex.mscalculator.scoring.ScoringContext;
+import ru.neoflex.mscalculator.scoring.ScoringRulesProvider;
 import ru.neoflex.mscalculator.util.RateComparator;
 
 import ru.neoflex.loanissuerlibrary.dto.*;
@@ -13,48 +17,75 @@ import ru.neoflex.loanissuerlibrary.dto.*;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
 public class CalculatorService {
 
-    private final BigDecimal baseRate;
-    private final BigDecimal insuranceRate;
-    private final BigDecimal clientInsuranceRate;
-    private final BigDecimal insuranceDecrement;
-    private final BigDecimal clientDecrement;
+    private final RateProvider rateProvider;
+    private final AnnuityEngine annuityEngine;
+    private final OfferCache offerCache;
+    private final ScoringRulesProvider scoringRulesProvider;
+    private final ScoringCalendar scoringCalendar;
 
     private final int calculatingScale = 200;
     private final int presentationScale = 2;
     private final int monthsInYear = 12;
 
-    public CalculatorService(@Value("${rate}") BigDecimal baseRate,
-                             @Value("${insurance.rate}") BigDecimal insuranceRate,
-                             @Value("${client.insurance.rate}") BigDecimal clientInsuranceRate,
-                             @Value("${rate.decrement.for.insurance}") BigDecimal insuranceDecrement,
-                             @Value("${rate.decrement.for.clients}") BigDecimal clientDecrement)
+    public CalculatorService(RateProvider rateProvider,
+                             AnnuityEngine annuityEngine,
+                             OfferCache offerCache,
+                             ScoringRulesProvider scoringRulesProvider,
+                             ScoringCalendar scoringCalendar)
     {
-        this.baseRate = baseRate;
-        this.insuranceRate = insuranceRate;
-        this.clientInsuranceRate = clientInsuranceRate;
-        this.insuranceDecrement = insuranceDecrement;
-        this.clientDecrement = clientDecrement;
+        this.rateProvider = rateProvider;
+        this.annuityEngine = annuityEngine;
+        this.offerCache = offerCache;
+        this.scoringRulesProvider = scoringRulesProvider;
+        this.scoringCalendar = scoringCalendar;
+    }
+
+    /**
+     * Returns the current rates. Callers that need to know which rates a result was calculated with
+     * read the snapshot once and pass it to the calculation.
+     */
+    public RateSnapshot getRates() {
+        return rateProvider.getSnapshot();
     }
 
     public List<LoanOfferDto> getOffers(LoanStatementRequestDto loanStatementRequestDto) {
+        return getOffers(loanStatementRequestDto, getRates());
+    }
+
+    public List<LoanOfferDto> getOffers(LoanStatementRequestDto loanStatementRequestDto, RateSnapshot rates) {
+
+        List<LoanOfferDto> cachedOffers = offerCache.getOffers(loanStatementRequestDto.getAmount(),
+                                                               loanStatementRequestDto.getTerm(),
+                                                               rates,
+                                                               () -> calculateOffers(loanStatementRequestDto, rates));
+
+        List<LoanOfferDto> loanOfferDtoList = new ArrayList<>(cachedOffers.size());
+        for (LoanOfferDto cachedOffer : cachedOffers) {
+            loanOfferDtoList.add(copyWithNewStatementId(cachedOffer));
+        }
+
+        return loanOfferDtoList;
+    }
+
+    private List<LoanOfferDto> calculateOffers(LoanStatementRequestDto loanStatementRequestDto, RateSnapshot rates) {
 
         List<LoanOfferDto> loanOfferDtoList = new ArrayList<>();
 
-        loanOfferDtoList.add(createLoanOfferDto(loanStatementRequestDto,
+        loanOfferDtoList.add(createLoanOfferDto(loanStatementRequestDto, rates,
                 false, false));
 
-        loanOfferDtoList.add(createLoanOfferDto(loanStatementRequestDto,
+        loanOfferDtoList.add(createLoanOfferDto(loanStatementRequestDto, rates,
                 false, true));
-        loanOfferDtoList.add(createLoanOfferDto(loanStatementRequestDto,
+        loanOfferDtoList.add(createLoanOfferDto(loanStatementRequestDto, rates,
                 true, false));
-        loanOfferDtoList.add(createLoanOfferDto(loanStatementRequestDto,
+        loanOfferDtoList.add(createLoanOfferDto(loanStatementRequestDto, rates,
                 true, true));
 
         loanOfferDtoList.sort(new RateComparator().reversed());
@@ -62,54 +93,97 @@ public class CalculatorService {
         return loanOfferDtoList;
     }
 
+    /**
+     * Calculates the date-dependent values of a scoring request once; the same context is then passed
+     * to the eligibility check and the credit calculation.
+     */
+    public ScoringContext createScoringContext(ScoringDataDto scoringDataDto) {
+        return scoringCalendar.createContext(scoringDataDto);
+    }
+
     public void isEligibleForCredit(ScoringDataDto scoringDataDto) throws CreditDeniedException {
+        isEligibleForCredit(scoringDataDto, createScoringContext(scoringDataDto));
+    }
 
-        if (scoringDataDto.getEmployment().getEmploymentStatus() == EmploymentStatus.NOT_EMPLOYED) {
-            throw new CreditDeniedException("Must be employed to get a loan.");
-        }
+    public void isEligibleForCredit(ScoringDataDto scoringDataDto,
+                                    ScoringContext scoringContext) throws CreditDeniedException {
+        scoringRulesProvider.getRules().checkEligibility(scoringDataDto, scoringContext.age());
+    }
 
-        if (scoringDataDto.getEmployment().getWorkExperienceTotal() < 18) {
-            throw new CreditDeniedException("Must be working over 18 months in total to get a loan.");
-        }
+    public CreditDto getCredit(ScoringDataDto scoringDataDto) throws CreditDeniedException {
+        return getCredit(scoringDataDto, getRates(), createScoringContext(scoringDataDto));
+    }
 
-        if (scoringDataDto.getEmployment().getWorkExperienceCurrent() < 3) {
-            throw new CreditDeniedException("Must be working at a current job at least for full 3 months.");
-        }
+    public CreditDto getCredit(ScoringDataDto scoringDataDto,
+                               RateSnapshot rates,
+                               ScoringContext scoringContext) throws CreditDeniedException {
+        CreditCalculation creditCalculation = calculateCredit(scoringDataDto, rates, scoringContext);
 
-        int age = (int) ChronoUnit.YEARS.between(scoringDataDto.getBirthdate(), LocalDate.now());
-        if (age < 20) {
-            throw new CreditDeniedException("Must be at least 20 years old to get a loan.");
-        }
+        List<PaymentScheduleElementDto> paymentSchedule = new ArrayList<>(scoringDataDto.getTerm());
+        createPaymentSchedule(scoringDataDto, creditCalculation, scoringContext, paymentSchedule::add);
 
-        if (age > 65) {
-            throw new CreditDeniedException("Must be at most 65 years old to get a loan.");
-        }
+        return createCreditDto(scoringDataDto, creditCalculation, paymentSchedule);
+    }
 
-        BigDecimal maxAmount = scoringDataDto.getEmployment().getSalary().multiply(BigDecimal.valueOf(24));
-        if (scoringDataDto.getAmount().compareTo(maxAmount) > 0) {
-            throw new CreditDeniedException("The requested amount must be at most " +
-                                            maxAmount.setScale(1, RoundingMode.HALF_EVEN));
-        }
+    /**
+     * Calculates the credit like {@link #getCredit(ScoringDataDto, RateSnapshot, ScoringContext)} does,
+     * but without the payment schedule. The result gives the credit terms with
+     * {@link #getCreditTerms(ScoringDataDto, CreditCalculation)}, and the schedule element by element with
+     * {@link #createPaymentSchedule(ScoringDataDto, CreditCalculation, ScoringContext, Consumer)},
+     * without calculating the credit again.
+     */
+    public CreditCalculation calculateCredit(ScoringDataDto scoringDataDto,
+                                             RateSnapshot rates,
+                                             ScoringContext scoringContext) throws CreditDeniedException {
+        return calculateCredit(scoringDataDto, rates, calculateAdjustedRate(scoringDataDto, rates, scoringContext));
     }
 
-    public CreditDto getCredit(ScoringDataDto scoringDataDto) throws CreditDeniedException {
-        BigDecimal calculatedRate = calculateRate(scoringDataDto.getIsInsuranceEnabled(),
-                                                  scoringDataDto.getIsSalaryClient());
+    public CreditDto getCreditTerms(ScoringDataDto scoringDataDto, CreditCalculation creditCalculation) {
+        return createCreditDto(scoringDataDto, creditCalculation, null);
+    }
 
-        BigDecimal insurancePayment = BigDecimal.ZERO;
-        if (scoringDataDto.getIsInsuranceEnabled()) {
-            insurancePayment = scoringDataDto.getIsSalaryClient() ?
-                    scoringDataDto.getAmount().multiply(clientInsuranceRate) :
-                    scoringDataDto.getAmount().multiply(insuranceRate);
-        }
+    public void createPaymentSchedule(ScoringDataDto scoringDataDto,
+                                      CreditCalculation creditCalculation,
+                                      ScoringContext scoringContext,
+                                      Consumer<PaymentScheduleElementDto> elementConsumer) {
+        Integer term = scoringDataDto.getTerm();
+        LocalDate paymentDate = scoringContext.today().plusMonths(1);
+
+        log.info("Creating payment schedule from {} to {}; amount: {}, monthlyRate: {}, monthlyPayment: {}",
+                paymentDate,
+                scoringContext.today().plusMonths(term),
+                creditCalculation.amountWithInsurance().setScale(presentationScale, RoundingMode.HALF_EVEN),
+                creditCalculation.monthlyRate().setScale(presentationScale, RoundingMode.HALF_EVEN),
+                creditCalculation.monthlyPayment().setScale(presentationScale, RoundingMode.HALF_EVEN)
+        );
 
-        BigDecimal adjustedRate = calculatedRate.add(calculateRateAdjustment(scoringDataDto));
+        annuityEngine.createPaymentSchedule(creditCalculation.amountWithInsurance(),
+                                            creditCalculation.monthlyRate(),
+                                            creditCalculation.monthlyPayment(),
+                                            term,
+                                            paymentDate,
+                                            elementConsumer);
+    }
 
-        BigDecimal monthlyRate = adjustedRate.divide(new BigDecimal(monthsInYear),
-                calculatingScale, RoundingMode.HALF_EVEN);
+    private BigDecimal calculateAdjustedRate(ScoringDataDto scoringDataDto,
+                                             RateSnapshot rates,
+                                             ScoringContext scoringContext) throws CreditDeniedException {
+        BigDecimal calculatedRate = calculateRate(rates,
+                                                  scoringDataDto.getIsInsuranceEnabled(),
+                                                  scoringDataDto.getIsSalaryClient());
+
+        return calculatedRate.add(calculateRateAdjustment(scoringDataDto, scoringContext));
+    }
 
-        BigDecimal amountWithInsurance = scoringDataDto.getAmount().add(insurancePayment);
+    private CreditCalculation calculateCredit(ScoringDataDto scoringDataDto,
+                                              RateSnapshot rates,
+                                              BigDecimal adjustedRate) {
+        BigDecimal monthlyRate = calculateMonthlyRate(adjustedRate);
 
+        BigDecimal amountWithInsurance = calculateInsuredAmount(scoringDataDto.getAmount(),
+                                                                rates,
+                                                                scoringDataDto.getIsInsuranceEnabled(),
+                                                                scoringDataDto.getIsSalaryClient());
 
         BigDecimal monthlyPayment = calculateMonthlyPayment(monthlyRate,
                                                             amountWithInsurance,
@@ -123,187 +197,79 @@ public class CalculatorService {
                 monthlyPayment.setScale(presentationScale, RoundingMode.HALF_EVEN),
                 psk.setScale(presentationScale, RoundingMode.HALF_EVEN));
 
-        List<PaymentScheduleElementDto> paymentSchedule = createPaymentSchedule(amountWithInsurance,
-                                                                                monthlyRate,
-                                                                                monthlyPayment,
-                                                                                scoringDataDto.getTerm());
+        return new CreditCalculation(adjustedRate, monthlyRate, amountWithInsurance, monthlyPayment, psk);
+    }
 
+    private CreditDto createCreditDto(ScoringDataDto scoringDataDto,
+                                      CreditCalculation creditCalculation,
+                                      List<PaymentScheduleElementDto> paymentSchedule) {
         return CreditDto.builder()
                 .amount(scoringDataDto.getAmount().setScale(presentationScale, RoundingMode.HALF_EVEN))
                 .term(scoringDataDto.getTerm())
-                .monthlyPayment(monthlyPayment.setScale(presentationScale, RoundingMode.HALF_EVEN))
-                .rate(adjustedRate)
-                .psk(psk.setScale(presentationScale, RoundingMode.HALF_EVEN))
+                .monthlyPayment(creditCalculation.monthlyPayment().setScale(presentationScale, RoundingMode.HALF_EVEN))
+                .rate(creditCalculation.adjustedRate())
+                .psk(creditCalculation.psk().setScale(presentationScale, RoundingMode.HALF_EVEN))
                 .isInsuranceEnabled(scoringDataDto.getIsInsuranceEnabled())
                 .isSalaryClient(scoringDataDto.getIsSalaryClient())
                 .paymentSchedule(paymentSchedule)
                 .build();
     }
 
-    private BigDecimal calculatePsk(BigDecimal monthlyPayment, Integer term) {
+    BigDecimal calculatePsk(BigDecimal monthlyPayment, Integer term) {
         return monthlyPayment.multiply(new BigDecimal(term));
     }
 
-    private List<PaymentScheduleElementDto> createPaymentSchedule(BigDecimal amount,
-                                                                  BigDecimal monthlyRate,
-                                                                  BigDecimal monthlyPayment,
-                                                                  Integer term) {
-        LocalDate paymentDate = LocalDate.now().plusMonths(1);
-
-        log.info("Creating payment schedule from {} to {}; amount: {}, monthlyRate: {}, monthlyPayment: {}",
-                paymentDate,
-                LocalDate.now().plusMonths(term),
-                amount.setScale(presentationScale, RoundingMode.HALF_EVEN),
-                monthlyRate.setScale(presentationScale, RoundingMode.HALF_EVEN),
-                monthlyPayment.setScale(presentationScale, RoundingMode.HALF_EVEN)
-        );
-
-        BigDecimal remainingDebt = amount;
-
-        List<PaymentScheduleElementDto> paymentScheduleElementDtoList = new ArrayList<>();
-
-        for(int paymentNumber = 1; paymentNumber < term; ++paymentNumber) {
-            BigDecimal interestPayment = remainingDebt.multiply(monthlyRate);
-            BigDecimal debtPayment = monthlyPayment.subtract(interestPayment);
-            remainingDebt = remainingDebt.subtract(debtPayment);
-
-            paymentScheduleElementDtoList.add(
-                    PaymentScheduleElementDto.builder()
-                            .number(paymentNumber)
-                            .date(paymentDate)
-                            .totalPayment(monthlyPayment.setScale(presentationScale, RoundingMode.HALF_UP))
-                            .debtPayment(debtPayment.setScale(presentationScale, RoundingMode.HALF_UP))
-                            .interestPayment(interestPayment.setScale(presentationScale, RoundingMode.HALF_UP))
-                            .remainingDebt(remainingDebt.setScale(presentationScale, RoundingMode.HALF_UP))
-                            .build());
-            paymentDate = paymentDate.plusMonths(1);
-        }
-
-        BigDecimal interestPayment = remainingDebt.multiply(monthlyRate);
-        BigDecimal debtPayment = monthlyPayment.subtract(interestPayment);
-        if (remainingDebt.subtract(debtPayment).compareTo(BigDecimal.ZERO) <= 0) {
-            remainingDebt = BigDecimal.ZERO;
-        } else {
-            remainingDebt = remainingDebt.subtract(debtPayment);
-        }
-
-        paymentScheduleElementDtoList.add(
-                PaymentScheduleElementDto.builder()
-                        .number(term)
-                        .date(paymentDate)
-                        .totalPayment(monthlyPayment.setScale(presentationScale, RoundingMode.HALF_UP))
-                        .debtPayment(debtPayment.setScale(presentationScale, RoundingMode.HALF_UP))
-                        .interestPayment(interestPayment.setScale(presentationScale, RoundingMode.HALF_UP))
-                        .remainingDebt(remainingDebt.setScale(presentationScale, RoundingMode.HALF_UP))
-                        .build());
-
-        return paymentScheduleElementDtoList;
-    }
-
     private BigDecimal calculateMonthlyPayment(BigDecimal monthlyRate,
                                                BigDecimal amount,
                                                Integer term) {
-        BigDecimal dividend = amount.multiply(monthlyRate);
-        BigDecimal divisor = BigDecimal.ONE;
-        divisor = divisor.add(monthlyRate);
-        divisor = divisor.pow(term);
-        divisor = BigDecimal.ONE.divide(divisor, calculatingScale, RoundingMode.HALF_EVEN);
-        divisor = BigDecimal.ONE.subtract(divisor);
-        return dividend.divide(divisor, calculatingScale, RoundingMode.HALF_EVEN);
+        return annuityEngine.calculateMonthlyPayment(monthlyRate, amount, term);
+    }
+
+    private BigDecimal calculateAnnuityFactor(BigDecimal monthlyRate, Integer term) {
+        return offerCache.getAnnuityFactor(term, monthlyRate,
+                                           () -> calculateMonthlyPayment(monthlyRate, BigDecimal.ONE, term));
     }
 
-    private BigDecimal calculateRateAdjustment(ScoringDataDto scoringDataDto) throws CreditDeniedException {
+    private BigDecimal calculateRateAdjustment(ScoringDataDto scoringDataDto,
+                                               ScoringContext scoringContext) throws CreditDeniedException {
 
         if (scoringDataDto.getEmployment().getPosition() == null) {
             throw new CreditDeniedException("Employment position must be provided.");
         }
 
-        int age = (int) ChronoUnit.YEARS.between(scoringDataDto.getBirthdate(), LocalDate.now());
-
-        BigDecimal adjustment = BigDecimal.ZERO;
-
-        switch(scoringDataDto.getEmployment().getEmploymentStatus()) {
-            case SELF_EMPLOYED:
-                adjustment = adjustment.add(new BigDecimal("0.02"));
-                break;
-            case EMPLOYER:
-                adjustment = adjustment.add(new BigDecimal("0.01"));
-                break;
-            default:
-                break;
-        }
-
-        switch(scoringDataDto.getEmployment().getPosition()) {
-            case JUNIOR:
-                adjustment = adjustment.add(new BigDecimal("0.01"));
-                break;
-            case SENIOR:
-                adjustment = adjustment.subtract(new BigDecimal("0.01"));
-                break;
-            case TEAM_LEAD:
-                adjustment = adjustment.subtract(new BigDecimal("0.02"));
-                break;
-            case TOP_MANAGER:
-                adjustment = adjustment.subtract(new BigDecimal("0.03"));
-                break;
-            default:
-                break;
-        }
-
-        switch(scoringDataDto.getMaritalStatus()) {
-            case MARRIED:
-                adjustment = adjustment.subtract(new BigDecimal("0.03"));
-                break;
-            case DIVORCED:
-                adjustment = adjustment.add(new BigDecimal("0.01"));
-                break;
-            default:
-                break;
-        }
-
-        if ((scoringDataDto.getGender() == Gender.FEMALE && age >= 32 && age <= 60) ||
-            (scoringDataDto.getGender() == Gender.MALE && age >= 30 && age <= 55)) {
-            adjustment = adjustment.subtract(new BigDecimal("0.03"));
-        }
-
-        return adjustment;
+        return scoringRulesProvider.getRules().getRateAdjustment(scoringDataDto, scoringContext.age());
     }
 
-    private BigDecimal calculateRate(Boolean isInsuranceEnabled, Boolean isSalaryClient) {
+    BigDecimal calculateRate(RateSnapshot rates, Boolean isInsuranceEnabled, Boolean isSalaryClient) {
 
-        BigDecimal rate = baseRate;
+        BigDecimal rate = rates.baseRate();
 
         if (isInsuranceEnabled) {
-            rate = rate.subtract(insuranceDecrement);
+            rate = rate.subtract(rates.insuranceDecrement());
         }
 
         if (isSalaryClient) {
-            rate = rate.subtract(clientDecrement);
+            rate = rate.subtract(rates.clientDecrement());
         }
 
         return rate;
     }
 
     private LoanOfferDto createLoanOfferDto(LoanStatementRequestDto loanStatementRequestDto,
+                                            RateSnapshot rates,
                                             Boolean isInsuranceEnabled, Boolean isSalaryClient) {
 
         BigDecimal requestedAmount = loanStatementRequestDto.getAmount();
         Integer term = loanStatementRequestDto.getTerm();
 
-        BigDecimal rate = calculateRate(isInsuranceEnabled, isSalaryClient);
-
-        BigDecimal insurancePayment = BigDecimal.ZERO;
-        if (isInsuranceEnabled) {
-            insurancePayment = isSalaryClient ?
-                    requestedAmount.multiply(clientInsuranceRate) :
-                    requestedAmount.multiply(insuranceRate);
-        }
-
-        BigDecimal insuredAmount = requestedAmount.add(insurancePayment);
+        BigDecimal rate = calculateRate(rates, isInsuranceEnabled, isSalaryClient);
+        BigDecimal monthlyRate = calculateMonthlyRate(rate);
 
-        BigDecimal monthlyPayment = calculateMonthlyPayment(rate.divide(new BigDecimal(monthsInYear),
-                                                            calculatingScale, RoundingMode.HALF_EVEN),
-                                                            insuredAmount, term);
+        BigDecimal monthlyPayment = annuityEngine.scaleAnnuityFactor(
+                calculateAnnuityFactor(monthlyRate, term),
+                monthlyRate,
+                calculateInsuredAmount(requestedAmount, rates, isInsuranceEnabled, isSalaryClient),
+                term);
         BigDecimal totalAmount = calculatePsk(monthlyPayment, term);
 
         return LoanOfferDto.builder()
@@ -317,4 +283,53 @@ public class CalculatorService {
                 .isInsuranceEnabled(isInsuranceEnabled)
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Requested amount plus the insurance payment, the amount an offer's monthly payment is calculated from.
+     */
+    BigDecimal calculateInsuredAmount(BigDecimal requestedAmount,
+                                      RateSnapshot rates,
+                                      Boolean isInsuranceEnabled,
+                                      Boolean isSalaryClient) {
+        BigDecimal insuranceRate = getInsuranceRate(rates, isInsuranceEnabled, isSalaryClient);
+
+        return requestedAmount.add(requestedAmount.multiply(insuranceRate));
+    }
+
+    /**
+     * Share of the requested amount added to the credit as the insurance payment; zero without insurance.
+     */
+    public BigDecimal getInsuranceRate(RateSnapshot rates, Boolean isInsuranceEnabled, Boolean isSalaryClient) {
+        if (!isInsuranceEnabled) {
+            return BigDecimal.ZERO;
+        }
+        return isSalaryClient ? rates.clientInsuranceRate() : rates.insuranceRate();
+    }
+
+    BigDecimal calculateMonthlyRate(BigDecimal rate) {
+        return rate.divide(new BigDecimal(monthsInYear), calculatingScale, RoundingMode.HALF_EVEN);
+    }
+
+    private LoanOfferDto copyWithNewStatementId(LoanOfferDto loanOfferDto) {
+        return LoanOfferDto.builder()
+                .statementId(UUID.randomUUID())
+                .requestedAmount(loanOfferDto.getRequestedAmount())
+                .totalAmount(loanOfferDto.getTotalAmount())
+                .term(loanOfferDto.getTerm())
+                .monthlyPayment(loanOfferDto.getMonthlyPayment())
+                .rate(loanOfferDto.getRate())
+                .isSalaryClient(loanOfferDto.getIsSalaryClient())
+                .isInsuranceEnabled(loanOfferDto.getIsInsuranceEnabled())
+                .build();
+    }
+
+    /**
+     * The calculated credit without its payment schedule, in calculating precision.
+     */
+    public record CreditCalculation(BigDecimal adjustedRate,
+                                     BigDecimal monthlyRate,
+                                     BigDecimal amountWithInsurance,
+                                     BigDecimal monthlyPayment,
+                                     BigDecimal psk) {
+    }
+}
@@ -0,0 +1,195 @@
+package ru.neoflex.mscalculator.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.neoflex.annuityengine.AnnuityEngine;
+import ru.neoflex.mscalculator.dto.SimulationRequestDto;
+import ru.neoflex.mscalculator.dto.SimulationResultDto;
+import ru.neoflex.mscalculator.rates.RateSnapshot;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+@Slf4j
+@Service
+public class SimulationService {
+
+    // Annuity factors are expensive, so every term gets its own task; a cell is two multiplications
+    private static final int FACTOR_BATCH_SIZE = 1;
+    private static final int CELL_BATCH_SIZE = 1024;
+
+    private final CalculatorService calculatorService;
+    private final AnnuityEngine annuityEngine;
+    private final ForkJoinPool simulationPool;
+    private final int maxCells;
+
+    private final int presentationScale = 2;
+
+    public SimulationService(CalculatorService calculatorService,
+                             AnnuityEngine annuityEngine,
+                             @Qualifier("simulationPool") ForkJoinPool simulationPool,
+                             @Value("${calculator.simulation.max-cells:100000}") int maxCells) {
+        this.calculatorService = calculatorService;
+        this.annuityEngine = annuityEngine;
+        this.simulationPool = simulationPool;
+        this.maxCells = maxCells;
+    }
+
+    /**
+     * Calculates the offer's monthly payment and PSK for every amount and term of the grid,
+     * the same way {@link CalculatorService#getOffers} does, with the current rates overridden
+     * by the ones set in the request.
+     *
+     * @throws IllegalArgumentException if a range is empty, the grid is larger than allowed or the rates
+     *                                  leave a credit rate of zero or less
+     */
+    public SimulationResultDto simulate(SimulationRequestDto simulationRequestDto) {
+        RateSnapshot rates = applyOverrides(calculatorService.getRates(), simulationRequestDto);
+
+        BigDecimal[] amounts = createAmounts(simulationRequestDto);
+        int[] terms = createTerms(simulationRequestDto);
+        long gridSize = (long) amounts.length * terms.length;
+        if (gridSize > maxCells) {
+            throw new IllegalArgumentException("Simulation grid must have at most " + maxCells + " cells, got " + gridSize);
+        }
+        int cells = (int) gridSize;
+
+        boolean isInsuranceEnabled = simulationRequestDto.getIsInsuranceEnabled();
+        boolean isSalaryClient = simulationRequestDto.getIsSalaryClient();
+        BigDecimal rate = calculatorService.calculateRate(rates, isInsuranceEnabled, isSalaryClient);
+        if (rate.signum() <= 0) {
+            throw new IllegalArgumentException("Credit rate must be positive, got " + rate.toPlainString());
+        }
+        BigDecimal monthlyRate = calculatorService.calculateMonthlyRate(rate);
+
+        log.info("Simulating {} amounts x {} terms at rate {}", amounts.length, terms.length, rate);
+
+        // Computed here rather than through the offer cache, so overridden rates do not evict real offers
+        BigDecimal[] annuityFactors = new BigDecimal[terms.length];
+        simulationPool.invoke(new RangeTask(0, terms.length, FACTOR_BATCH_SIZE,
+                termIndex -> annuityFactors[termIndex] =
+                        annuityEngine.calculateMonthlyPayment(monthlyRate, BigDecimal.ONE, terms[termIndex])));
+
+        BigDecimal[] insuredAmounts = new BigDecimal[amounts.length];
+        for (int amountIndex = 0; amountIndex < amounts.length; ++amountIndex) {
+            insuredAmounts[amountIndex] = calculatorService.calculateInsuredAmount(amounts[amountIndex],
+                                                                                  rates,
+                                                                                  isInsuranceEnabled,
+                                                                                  isSalaryClient);
+        }
+
+        BigDecimal[] monthlyPayments = new BigDecimal[cells];
+        BigDecimal[] psks = new BigDecimal[cells];
+        simulationPool.invoke(new RangeTask(0, cells, CELL_BATCH_SIZE, cell -> {
+            int amountIndex = cell / terms.length;
+            int termIndex = cell % terms.length;
+
+            BigDecimal monthlyPayment = insuredAmounts[amountIndex].multiply(annuityFactors[termIndex]);
+            monthlyPayments[cell] = monthlyPayment.setScale(presentationScale, RoundingMode.HALF_EVEN);
+            psks[cell] = calculatorService.calculatePsk(monthlyPayment, terms[termIndex])
+                    .setScale(presentationScale, RoundingMode.HALF_EVEN);
+        }));
+
+        return SimulationResultDto.builder()
+                .ratesVersion(rates.version())
+                .rate(rate)
+                .amounts(amounts)
+                .terms(terms)
+                .monthlyPayments(monthlyPayments)
+                .psks(psks)
+                .build();
+    }
+
+    private RateSnapshot applyOverrides(RateSnapshot rates, SimulationRequestDto simulationRequestDto) {
+        return new RateSnapshot(rates.version(),
+                                valueOrDefault(simulationRequestDto.getBaseRate(), rates.baseRate()),
+                                valueOrDefault(simulationRequestDto.getInsuranceRate(), rates.insuranceRate()),
+                                valueOrDefault(simulationRequestDto.getClientInsuranceRate(), rates.clientInsuranceRate()),
+                                valueOrDefault(simulationRequestDto.getInsuranceDecrement(), rates.insuranceDecrement()),
+                                valueOrDefault(simulationRequestDto.getClientDecrement(), rates.clientDecrement()));
+    }
+
+    private BigDecimal valueOrDefault(BigDecimal value, BigDecimal defaultValue) {
+        return value != null ? value : defaultValue;
+    }
+
+    private BigDecimal[] createAmounts(SimulationRequestDto simulationRequestDto) {
+        BigDecimal from = simulationRequestDto.getAmountFrom();
+        BigDecimal to = simulationRequestDto.getAmountTo();
+        BigDecimal step = simulationRequestDto.getAmountStep();
+        if (from.compareTo(to) > 0) {
+            throw new IllegalArgumentException("amountFrom must not be greater than amountTo");
+        }
+
+        BigDecimal count = to.subtract(from).divideToIntegralValue(step).add(BigDecimal.ONE);
+        if (count.compareTo(BigDecimal.valueOf(maxCells)) > 0) {
+            throw new IllegalArgumentException("Simulation grid must have at most " + maxCells + " cells");
+        }
+
+        BigDecimal[] amounts = new BigDecimal[count.intValue()];
+        BigDecimal amount = from;
+        for (int index = 0; index < amounts.length; ++index) {
+            amounts[index] = amount;
+            amount = amount.add(step);
+        }
+        return amounts;
+    }
+
+    private int[] createTerms(SimulationRequestDto simulationRequestDto) {
+        int from = simulationRequestDto.getTermFrom();
+        int to = simulationRequestDto.getTermTo();
+        int step = simulationRequestDto.getTermStep();
+        if (from > to) {
+            throw new IllegalArgumentException("termFrom must not be greater than termTo");
+        }
+
+        int count = (to - from) / step + 1;
+        if (count > maxCells) {
+            throw new IllegalArgumentException("Simulation grid must have at most " + maxCells + " cells");
+        }
+
+        int[] terms = new int[count];
+        for (int index = 0; index < terms.length; ++index) {
+            terms[index] = from + index * step;
+        }
+        return terms;
+    }
+
+    /**
+     * Calls {@code action} for every index of [from, to), splitting the range in halves
+     * until it is at most {@code batchSize} long.
+     */
+    private static class RangeTask extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+        private final int batchSize;
+        private final IntConsumer action;
+
+        RangeTask(int from, int to, int batchSize, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.batchSize = batchSize;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= batchSize) {
+                for (int index = from; index < to; ++index) {
+                    action.accept(index);
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, middle, batchSize, action),
+                      new RangeTask(middle, to, batchSize, action));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package ru.neoflex.mscalculator.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Properties;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A properties resource a value is built from, e.g. the rates or the scoring rules. The owner keeps the value
+ * and passes in how to apply a new one; a resource that cannot be read, parsed or applied is logged and the
+ * previous value stays in use.
+ *
+ * @param <T> the value built from the properties
+ */
+@Slf4j
+public class ReloadableResource<T> {
+
+    private final Resource location;
+    private final String name;
+    private final Function<Properties, T> parser;
+
+    private long lastModified;
+
+    /**
+     * @param name   what the resource holds, for the log
+     * @param parser builds the value, throwing a {@link RuntimeException} if the properties are invalid
+     */
+    public ReloadableResource(Resource location, String name, Function<Properties, T> parser) {
+        this.location = location;
+        this.name = name;
+        this.parser = parser;
+        this.lastModified = lastModified();
+    }
+
+    public Resource getLocation() {
+        return location;
+    }
+
+    /**
+     * Reads and parses the resource.
+     *
+     * @throws UncheckedIOException if the resource cannot be read
+     */
+    public T load() {
+        Properties properties = new Properties();
+        try (InputStream inputStream = location.getInputStream()) {
+            properties.load(inputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + name + " from " + location, e);
+        }
+        return parser.apply(properties);
+    }
+
+    /**
+     * Reloads the resource if it was modified since it was last checked.
+     */
+    public synchronized void reloadIfModified(Consumer<T> apply) {
+        long modified = lastModified();
+        if (modified != lastModified) {
+            lastModified = modified;
+            reload(apply);
+        }
+    }
+
+    /**
+     * @return whether the new value was applied
+     */
+    public synchronized boolean reload(Consumer<T> apply) {
+        try {
+            apply.accept(load());
+        } catch (RuntimeException e) {
+            log.error("Could not reload {} from {}, keeping the previous ones", name, location, e);
+            return false;
+        }
+        log.info("Reloaded {} from {}", name, location);
+        return true;
+    }
+
+    private long lastModified() {
+        try {
+            return location.lastModified();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -14,15 +14,28 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.validation.Validator;
 import ru.neoflex.loanissuerlibrary.dto.*;
 import ru.neoflex.loanissuerlibrary.dto.enumeration.*;
 import ru.neoflex.mscalculator.service.CalculatorService;
+import ru.neoflex.mscalculator.dto.BatchOfferResultDto;
+import ru.neoflex.mscalculator.dto.RatesDto;
+import ru.neoflex.mscalculator.dto.SimulationRequestDto;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
 
 @ExtendWith(SpringExtension.class)
 @SpringBootTest
@@ -295,4 +308,238 @@ class CalculatorControllerTest {
                         status().isForbidden()
                 );
     }
+
+    @Test
+    @DisplayName("Пакетный запрос возвращает результат для каждой заявки, ошибка одной заявки не прерывает пакет")
+    void batchRequestReturnsResultForEveryRequestEvenIfOneIsInvalid() throws Exception {
+        LoanStatementRequestDto invalidRequest = LoanStatementRequestDto.builder()
+                .amount(new BigDecimal("10000"))
+                .term(6)
+                .firstName("John")
+                .lastName("Doe")
+                .email("John@Doe.com")
+                .birthdate(LocalDate.of(1990,1,1))
+                .passportSeries("1234")
+                .passportNumber("123456")
+                .build();
+
+        MvcResult mvcResult = this.mockMvc.perform(post("/calculator/offers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(validRequest, invalidRequest))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String responseBody = this.mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+
+        List<BatchOfferResultDto> results = responseBody.lines()
+                .map(line -> {
+                    try {
+                        return objectMapper.readValue(line, BatchOfferResultDto.class);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .sorted(Comparator.comparing(BatchOfferResultDto::getIndex))
+                .toList();
+
+        assertEquals(2, results.size());
+        assertEquals(4, results.get(0).getOffers().size());
+        assertNull(results.get(0).getErrors());
+        assertNull(results.get(1).getOffers());
+        assertTrue(results.get(1).getErrors().containsKey("amount"));
+    }
+
+    @Test
+    @DisplayName("При запросе NDJSON график платежей передаётся построчно после CreditDto")
+    void streamingCalcReturnsCreditFollowedByPaymentScheduleElements() throws Exception {
+        MvcResult mvcResult = this.mockMvc.perform(post("/calculator/calc")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept("application/x-ndjson")
+                        .content(objectMapper.writeValueAsString(validScoringData)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        List<String> lines = this.mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Insurance-Rate", "0.15"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8)
+                .lines()
+                .toList();
+
+        assertEquals(validScoringData.getTerm() + 1, lines.size());
+        assertEquals(validScoringData.getTerm(),
+                     objectMapper.readTree(lines.get(0)).get("term").asInt());
+        for (int number = 1; number < lines.size(); ++number) {
+            assertEquals(number, objectMapper.readTree(lines.get(number)).get("number").asInt());
+        }
+    }
+
+    @Test
+    @DisplayName("При запросе NDJSON неподходящему клиенту вернётся статус 403")
+    void streamingCalcReturnsForbiddenForIneligibleClient() throws Exception {
+        validScoringData.getEmployment().setEmploymentStatus(EmploymentStatus.NOT_EMPLOYED);
+
+        this.mockMvc.perform(post("/calculator/calc")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept("application/x-ndjson")
+                        .content(objectMapper.writeValueAsString(validScoringData)))
+                .andExpect(
+                        status().isForbidden()
+                );
+    }
+
+    @Test
+    @DisplayName("Пустой пакетный запрос не будет обработан")
+    void batchRequestFailsWhenBatchIsEmpty() throws Exception {
+        this.mockMvc.perform(post("/calculator/offers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(
+                        status().isBadRequest()
+                );
+    }
+
+    @Test
+    @DisplayName("После изменения ставок через /calculator/admin/rates предложения рассчитываются по новым ставкам")
+    void updatedRatesAreUsedForOffersAndVersionIsReturned() throws Exception {
+        RatesDto initialRates = objectMapper.readValue(this.mockMvc.perform(get("/calculator/admin/rates"))
+                                                               .andExpect(status().isOk())
+                                                               .andReturn()
+                                                               .getResponse()
+                                                               .getContentAsString(), RatesDto.class);
+        RatesDto updatedRates = RatesDto.builder()
+                .baseRate(initialRates.getBaseRate().add(new BigDecimal("0.05")))
+                .insuranceRate(initialRates.getInsuranceRate())
+                .clientInsuranceRate(initialRates.getClientInsuranceRate())
+                .insuranceDecrement(initialRates.getInsuranceDecrement())
+                .clientDecrement(initialRates.getClientDecrement())
+                .build();
+
+        try {
+            RatesDto publishedRates = objectMapper.readValue(this.mockMvc.perform(put("/calculator/admin/rates")
+                                                                     .contentType(MediaType.APPLICATION_JSON)
+                                                                     .content(objectMapper.writeValueAsString(updatedRates)))
+                                                                     .andExpect(status().isOk())
+                                                                     .andReturn()
+                                                                     .getResponse()
+                                                                     .getContentAsString(), RatesDto.class);
+            assertEquals(initialRates.getVersion() + 1, publishedRates.getVersion());
+
+            MvcResult offersResult = this.mockMvc.perform(post("/calculator/offers")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(validRequest)))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("X-Rates-Version", String.valueOf(publishedRates.getVersion())))
+                    .andReturn();
+
+            BigDecimal highestRate = new BigDecimal(objectMapper.readTree(offersResult.getResponse().getContentAsString())
+                                                            .get(0).get("rate").asText());
+            assertEquals(0, updatedRates.getBaseRate().compareTo(highestRate));
+        } finally {
+            initialRates.setVersion(null);
+            this.mockMvc.perform(put("/calculator/admin/rates")
+                                 .contentType(MediaType.APPLICATION_JSON)
+                                 .content(objectMapper.writeValueAsString(initialRates)))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    @DisplayName("Отрицательная ставка не будет применена")
+    void validationForRatesFailsWhenPassingNegativeRate() throws Exception {
+        RatesDto invalidRates = RatesDto.builder()
+                .baseRate(new BigDecimal("-0.25"))
+                .insuranceRate(new BigDecimal("0.30"))
+                .clientInsuranceRate(new BigDecimal("0.15"))
+                .insuranceDecrement(new BigDecimal("0.02"))
+                .clientDecrement(new BigDecimal("0.01"))
+                .build();
+
+        this.mockMvc.perform(put("/calculator/admin/rates")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(invalidRates)))
+                .andExpect(
+                        status().isBadRequest()
+                );
+    }
+
+    @Test
+    @DisplayName("Ставки, при которых ставка кредита не больше нуля, не будут применены")
+    void validationForRatesFailsWhenDecrementsAreNotLessThanBaseRate() throws Exception {
+        RatesDto invalidRates = RatesDto.builder()
+                .baseRate(new BigDecimal("0.03"))
+                .insuranceRate(new BigDecimal("0.30"))
+                .clientInsuranceRate(new BigDecimal("0.15"))
+                .insuranceDecrement(new BigDecimal("0.02"))
+                .clientDecrement(new BigDecimal("0.01"))
+                .build();
+
+        this.mockMvc.perform(put("/calculator/admin/rates")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(invalidRates)))
+                .andExpect(
+                        status().isBadRequest()
+                );
+    }
+
+    @Test
+    @DisplayName("Моделирование в формате CSV возвращает строку на каждую пару суммы и срока")
+    void simulationCsvReturnsLinePerGridCell() throws Exception {
+        SimulationRequestDto simulationRequest = SimulationRequestDto.builder()
+                .baseRate(new BigDecimal("0.30"))
+                .amountFrom(new BigDecimal("100000"))
+                .amountTo(new BigDecimal("200000"))
+                .amountStep(new BigDecimal("50000"))
+                .termFrom(6)
+                .termTo(12)
+                .termStep(6)
+                .isInsuranceEnabled(false)
+                .isSalaryClient(false)
+                .build();
+
+        List<String> lines = this.mockMvc.perform(post("/calculator/simulation")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept("text/csv")
+                        .content(objectMapper.writeValueAsString(simulationRequest)))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("X-Rates-Version"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8)
+                .lines()
+                .toList();
+
+        assertEquals(7, lines.size());
+        assertEquals("amount,term,monthlyPayment,psk", lines.get(0));
+        assertTrue(lines.get(1).startsWith("100000,6,"));
+        assertTrue(lines.get(6).startsWith("200000,12,"));
+    }
+
+    @Test
+    @DisplayName("Моделирование на слишком большой сетке не будет выполнено")
+    void simulationFailsWhenGridIsTooLarge() throws Exception {
+        SimulationRequestDto simulationRequest = SimulationRequestDto.builder()
+                .amountFrom(new BigDecimal("100000"))
+                .amountTo(new BigDecimal("10000000"))
+                .amountStep(new BigDecimal("1"))
+                .termFrom(6)
+                .termTo(12)
+                .termStep(1)
+                .isInsuranceEnabled(false)
+                .isSalaryClient(false)
+                .build();
+
+        this.mockMvc.perform(post("/calculator/simulation")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(simulationRequest)))
+                .andExpect(
+                        status().isBadRequest()
+                );
+    }
 }
@@ -0,0 +1,127 @@
+package ru.neoflex.mscalculator.rates;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateProviderTest {
+
+    private static final String RATES = """
+            rate=0.25
+            insurance.rate=0.30
+            client.insurance.rate=0.15
+            rate.decrement.for.insurance=0.02
+            rate.decrement.for.clients=0.01
+            """;
+
+    @TempDir
+    Path directory;
+
+    private Path ratesFile;
+    private RateProvider rateProvider;
+    private long modifiedMillis = System.currentTimeMillis();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ratesFile = directory.resolve("service.properties");
+        Files.writeString(ratesFile, RATES);
+        rateProvider = new RateProvider(new FileSystemResource(ratesFile));
+    }
+
+    @Test
+    @DisplayName("Ставки загружаются из файла, первая версия равна 1")
+    void ratesAreLoadedFromFile() {
+        RateSnapshot rates = rateProvider.getSnapshot();
+
+        assertEquals(1, rates.version());
+        assertEquals(new BigDecimal("0.25"), rates.baseRate());
+        assertEquals(new BigDecimal("0.30"), rates.insuranceRate());
+        assertEquals(new BigDecimal("0.15"), rates.clientInsuranceRate());
+        assertEquals(new BigDecimal("0.02"), rates.insuranceDecrement());
+        assertEquals(new BigDecimal("0.01"), rates.clientDecrement());
+    }
+
+    @Test
+    @DisplayName("Новые ставки публикуются со следующей версией, те же ставки версию не меняют")
+    void publishingIncrementsVersionOnlyForDifferentRates() {
+        RateSnapshot initial = rateProvider.getSnapshot();
+
+        assertSame(initial, rateProvider.publish(new RateSnapshot(0,
+                                                                  new BigDecimal("0.250"),
+                                                                  initial.insuranceRate(),
+                                                                  initial.clientInsuranceRate(),
+                                                                  initial.insuranceDecrement(),
+                                                                  initial.clientDecrement())));
+
+        RateSnapshot published = rateProvider.publish(new RateSnapshot(0,
+                                                                       new BigDecimal("0.20"),
+                                                                       initial.insuranceRate(),
+                                                                       initial.clientInsuranceRate(),
+                                                                       initial.insuranceDecrement(),
+                                                                       initial.clientDecrement()));
+
+        assertEquals(2, published.version());
+        assertSame(published, rateProvider.getSnapshot());
+        assertSame(initial.insuranceRate(), published.insuranceRate());
+    }
+
+    @Test
+    @DisplayName("Изменённый файл перечитывается, некорректный файл оставляет прежние ставки")
+    void modifiedFileIsReloadedAndInvalidFileIsIgnored() throws IOException {
+        RateSnapshot initial = rateProvider.getSnapshot();
+
+        Files.writeString(ratesFile, RATES.replace("rate=0.25", "rate=abc"));
+        touch();
+        rateProvider.reloadIfModified();
+        assertSame(initial, rateProvider.getSnapshot());
+
+        Files.writeString(ratesFile, RATES.replace("client.insurance.rate=0.15", "client.insurance.rate=0.10"));
+        touch();
+        rateProvider.reloadIfModified();
+        assertEquals(2, rateProvider.getSnapshot().version());
+        assertEquals(new BigDecimal("0.10"), rateProvider.getSnapshot().clientInsuranceRate());
+    }
+
+    @Test
+    @DisplayName("Ставки, при которых ставка кредита не больше нуля, не публикуются")
+    void ratesLeavingNoPositiveCreditRateAreRejected() {
+        RateSnapshot initial = rateProvider.getSnapshot();
+
+        assertThrows(IllegalArgumentException.class,
+                     () -> rateProvider.publish(new RateSnapshot(0,
+                                                                 new BigDecimal("0.03"),
+                                                                 initial.insuranceRate(),
+                                                                 initial.clientInsuranceRate(),
+                                                                 new BigDecimal("0.02"),
+                                                                 new BigDecimal("0.01"))));
+        assertSame(initial, rateProvider.getSnapshot());
+    }
+
+    @Test
+    @DisplayName("Файл со ставками, при которых ставка кредита не больше нуля, оставляет прежние ставки")
+    void reloadedRatesLeavingNoPositiveCreditRateAreIgnored() throws IOException {
+        RateSnapshot initial = rateProvider.getSnapshot();
+
+        Files.writeString(ratesFile, RATES.replace("rate.decrement.for.insurance=0.02",
+                                                   "rate.decrement.for.insurance=0.24"));
+        touch();
+        rateProvider.reloadIfModified();
+
+        assertSame(initial, rateProvider.getSnapshot());
+    }
+
+    private void touch() throws IOException {
+        modifiedMillis += 1000;
+        Files.setLastModifiedTime(ratesFile, FileTime.fromMillis(modifiedMillis));
+    }
+}
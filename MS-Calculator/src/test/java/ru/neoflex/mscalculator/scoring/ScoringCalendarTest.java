@@ -0,0 +1,92 @@
+package ru.neoflex.mscalculator.scoring;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.neoflex.loanissuerlibrary.dto.ScoringDataDto;
+
+import java.time.*;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoringCalendarTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Moscow");
+
+    @Test
+    @DisplayName("Возраст совпадает с ChronoUnit.YEARS.between для любых дат, включая 29 февраля")
+    void ageMatchesChronoUnit() {
+        LocalDate[] todays = {
+                LocalDate.of(2024, 2, 28), LocalDate.of(2024, 2, 29), LocalDate.of(2024, 3, 1),
+                LocalDate.of(2025, 2, 28), LocalDate.of(2025, 3, 1), LocalDate.of(2025, 12, 31),
+                LocalDate.of(2026, 1, 1), LocalDate.of(2026, 6, 15)
+        };
+
+        for (LocalDate today : todays) {
+            ScoringCalendar scoringCalendar = new ScoringCalendar(fixedClock(today));
+            for (LocalDate birthdate = LocalDate.of(1955, 1, 1);
+                 birthdate.isBefore(LocalDate.of(2010, 1, 1));
+                 birthdate = birthdate.plusDays(1)) {
+                assertEquals(ChronoUnit.YEARS.between(birthdate, today),
+                             scoringCalendar.calculateAge(birthdate),
+                             birthdate + " " + today);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("С фиксированными часами контекст одинаков для каждого запроса")
+    void fixedClockGivesSameContext() {
+        ScoringCalendar scoringCalendar = new ScoringCalendar(fixedClock(LocalDate.of(2025, 3, 10)));
+        ScoringDataDto scoringData = ScoringDataDto.builder()
+                .birthdate(LocalDate.of(1990, 3, 11))
+                .build();
+
+        ScoringContext scoringContext = scoringCalendar.createContext(scoringData);
+        assertEquals(new ScoringContext(LocalDate.of(2025, 3, 10), 34), scoringContext);
+        assertEquals(scoringContext, scoringCalendar.createContext(scoringData));
+    }
+
+    @Test
+    @DisplayName("При смене дня дата и возраст пересчитываются")
+    void dayRolloverIsDetected() {
+        MutableClock clock = new MutableClock(LocalDate.of(2025, 3, 10).atTime(23, 59).atZone(ZONE).toInstant());
+        ScoringCalendar scoringCalendar = new ScoringCalendar(clock);
+        LocalDate birthdate = LocalDate.of(1990, 3, 11);
+
+        assertEquals(LocalDate.of(2025, 3, 10), scoringCalendar.today());
+        assertEquals(34, scoringCalendar.calculateAge(birthdate));
+
+        clock.instant = clock.instant.plus(Duration.ofMinutes(1));
+        assertEquals(LocalDate.of(2025, 3, 11), scoringCalendar.today());
+        assertEquals(35, scoringCalendar.calculateAge(birthdate));
+    }
+
+    private Clock fixedClock(LocalDate today) {
+        return Clock.fixed(today.atTime(12, 0).atZone(ZONE).toInstant(), ZONE);
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZONE;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
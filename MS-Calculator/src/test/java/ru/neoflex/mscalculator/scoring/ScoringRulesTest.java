@@ -0,0 +1,166 @@
+package ru.neoflex.mscalculator.scoring;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import ru.neoflex.loanissuerlibrary.dto.EmploymentDto;
+import ru.neoflex.loanissuerlibrary.dto.ScoringDataDto;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.EmploymentStatus;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.Gender;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.MaritalStatus;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.WorkPosition;
+import ru.neoflex.loanissuerlibrary.exception.CreditDeniedException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoringRulesTest {
+
+    private Properties defaultRules;
+    private ScoringRules scoringRules;
+    private EmploymentDto employment;
+    private ScoringDataDto scoringData;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        defaultRules = new Properties();
+        try (InputStream inputStream = new ClassPathResource("scoring-rules.properties").getInputStream()) {
+            defaultRules.load(inputStream);
+        }
+        scoringRules = ScoringRules.compile(defaultRules);
+
+        employment = EmploymentDto.builder()
+                .employmentStatus(EmploymentStatus.EMPLOYED)
+                .salary(new BigDecimal("50000"))
+                .position(WorkPosition.MIDDLE)
+                .workExperienceTotal(22)
+                .workExperienceCurrent(19)
+                .build();
+
+        scoringData = ScoringDataDto.builder()
+                .amount(new BigDecimal("100000"))
+                .gender(Gender.MALE)
+                .maritalStatus(MaritalStatus.NOT_MARRIED)
+                .employment(employment)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Корректировка ставки по таблице совпадает с суммой корректировок по каждому признаку")
+    void rateAdjustmentMatchesSumOfAdjustments() {
+        for (EmploymentStatus status : EmploymentStatus.values()) {
+            for (WorkPosition position : WorkPosition.values()) {
+                for (MaritalStatus maritalStatus : MaritalStatus.values()) {
+                    for (Gender gender : Gender.values()) {
+                        for (int age = 18; age <= 70; ++age) {
+                            employment.setEmploymentStatus(status);
+                            employment.setPosition(position);
+                            scoringData.setMaritalStatus(maritalStatus);
+                            scoringData.setGender(gender);
+
+                            assertEquals(0, expectedAdjustment(status, position, maritalStatus, gender, age)
+                                                 .compareTo(scoringRules.getRateAdjustment(scoringData, age)),
+                                         status + " " + position + " " + maritalStatus + " " + gender + " " + age);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Для одних и тех же данных возвращается один и тот же заранее рассчитанный экземпляр")
+    void rateAdjustmentIsPrecomputed() {
+        assertSame(scoringRules.getRateAdjustment(scoringData, 34), scoringRules.getRateAdjustment(scoringData, 34));
+    }
+
+    @Test
+    @DisplayName("Пороги отказа берутся из правил")
+    void eligibilityThresholdsAreTakenFromRules() throws CreditDeniedException {
+        scoringRules.checkEligibility(scoringData, 34);
+
+        defaultRules.setProperty("scoring.min-work-experience.total", "24");
+        CreditDeniedException exception = assertThrowsExactly(CreditDeniedException.class,
+                () -> ScoringRules.compile(defaultRules).checkEligibility(scoringData, 34));
+        assertEquals("Must be working over 24 months in total to get a loan.", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Неизвестное или некорректное правило не компилируется")
+    void invalidRulesAreRejected() {
+        Properties unknownRule = new Properties();
+        unknownRule.putAll(defaultRules);
+        unknownRule.setProperty("scoring.adjustment.position.INTERN", "0.05");
+        assertThrows(IllegalArgumentException.class, () -> ScoringRules.compile(unknownRule));
+
+        Properties invalidNumber = new Properties();
+        invalidNumber.putAll(defaultRules);
+        invalidNumber.setProperty("scoring.age.min", "twenty");
+        assertThrows(IllegalArgumentException.class, () -> ScoringRules.compile(invalidNumber));
+
+        Properties missingRule = new Properties();
+        missingRule.putAll(defaultRules);
+        missingRule.remove("scoring.age.max");
+        assertThrows(IllegalArgumentException.class, () -> ScoringRules.compile(missingRule));
+    }
+
+    @Test
+    @DisplayName("При перезагрузке правила заменяются, а некорректный файл оставляет прежние правила")
+    void reloadSwapsRulesAndKeepsPreviousOnError(@TempDir Path directory) throws IOException {
+        Path rulesFile = directory.resolve("scoring-rules.properties");
+        try (InputStream inputStream = new ClassPathResource("scoring-rules.properties").getInputStream()) {
+            Files.copy(inputStream, rulesFile);
+        }
+        ScoringRulesProvider provider = new ScoringRulesProvider(new FileSystemResource(rulesFile));
+        ScoringRules initialRules = provider.getRules();
+
+        Files.writeString(rulesFile, "scoring.age.min=twenty");
+        assertFalse(provider.reload());
+        assertSame(initialRules, provider.getRules());
+
+        defaultRules.setProperty("scoring.adjustment.marital-status.NOT_MARRIED", "0.05");
+        try (var writer = Files.newBufferedWriter(rulesFile)) {
+            defaultRules.store(writer, null);
+        }
+        assertTrue(provider.reload());
+        assertEquals(0, new BigDecimal("0.05").compareTo(provider.getRules().getRateAdjustment(scoringData, 20)));
+    }
+
+    private BigDecimal expectedAdjustment(EmploymentStatus status,
+                                          WorkPosition position,
+                                          MaritalStatus maritalStatus,
+                                          Gender gender,
+                                          int age) {
+        BigDecimal adjustment = switch (status) {
+            case SELF_EMPLOYED -> new BigDecimal("0.02");
+            case EMPLOYER -> new BigDecimal("0.01");
+            default -> BigDecimal.ZERO;
+        };
+        adjustment = adjustment.add(switch (position) {
+            case JUNIOR -> new BigDecimal("0.01");
+            case SENIOR -> new BigDecimal("-0.01");
+            case TEAM_LEAD -> new BigDecimal("-0.02");
+            case TOP_MANAGER -> new BigDecimal("-0.03");
+            default -> BigDecimal.ZERO;
+        });
+        adjustment = adjustment.add(switch (maritalStatus) {
+            case MARRIED -> new BigDecimal("-0.03");
+            case DIVORCED -> new BigDecimal("0.01");
+            default -> BigDecimal.ZERO;
+        });
+        if ((gender == Gender.FEMALE && age >= 32 && age <= 60) ||
+            (gender == Gender.MALE && age >= 30 && age <= 55)) {
+            adjustment = adjustment.add(new BigDecimal("-0.03"));
+        }
+        return adjustment;
+    }
+}
@@ -158,6 +158,37 @@ class CalculatorServiceTest {
         assertNotNull(findOfferByBooleans(offers, true, true));
     }
 
+    @Test
+    @DisplayName("Повторный запрос возвращает те же условия, но с новыми statementId")
+    void givenRepeatedRequestReturnsSameOffersWithNewStatementIds() {
+        List<LoanOfferDto> firstOffers = calculatorService.getOffers(validRequest);
+        List<LoanOfferDto> secondOffers = calculatorService.getOffers(validRequest);
+
+        for (int index = 0; index < firstOffers.size(); ++index) {
+            LoanOfferDto first = firstOffers.get(index);
+            LoanOfferDto second = secondOffers.get(index);
+
+            assertNotEquals(first.getStatementId(), second.getStatementId());
+            assertEquals(first.getMonthlyPayment(), second.getMonthlyPayment());
+            assertEquals(first.getTotalAmount(), second.getTotalAmount());
+            assertEquals(first.getRate(), second.getRate());
+        }
+    }
+
+    @Test
+    @DisplayName("Ежемесячный платёж в предложении совпадает с платежом, рассчитанным в getCredit()")
+    void givenSameConditionsOfferAndCreditHaveSameMonthlyPayment() throws CreditDeniedException {
+        validScoringData.setBirthdate(LocalDate.now().minusYears(25));
+        validRequest.setAmount(validScoringData.getAmount());
+        validRequest.setTerm(validScoringData.getTerm());
+
+        LoanOfferDto offer = findOfferByBooleans(calculatorService.getOffers(validRequest), true, true);
+        CreditDto credit = calculatorService.getCredit(validScoringData);
+
+        assertNotNull(offer);
+        assertEquals(credit.getMonthlyPayment(), offer.getMonthlyPayment());
+    }
+
     @ParameterizedTest
     @ValueSource(ints = {0, 1, 2, 3})
     @DisplayName("Сумма займа не меняется в зависимости от страховки при вызове getOffers()")
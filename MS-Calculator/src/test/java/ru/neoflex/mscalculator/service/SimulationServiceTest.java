@@ -0,0 +1,126 @@
+package ru.neoflex.mscalculator.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import ru.neoflex.loanissuerlibrary.dto.LoanOfferDto;
+import ru.neoflex.loanissuerlibrary.dto.LoanStatementRequestDto;
+import ru.neoflex.mscalculator.dto.SimulationRequestDto;
+import ru.neoflex.mscalculator.dto.SimulationResultDto;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource("classpath:service.properties")
+class SimulationServiceTest {
+
+    @Autowired
+    private SimulationService simulationService;
+
+    @Autowired
+    private CalculatorService calculatorService;
+
+    private SimulationRequestDto simulationRequest;
+
+    @BeforeEach
+    void setUp() {
+        simulationRequest = SimulationRequestDto.builder()
+                .amountFrom(new BigDecimal("100000"))
+                .amountTo(new BigDecimal("300000"))
+                .amountStep(new BigDecimal("50000"))
+                .termFrom(6)
+                .termTo(24)
+                .termStep(6)
+                .isInsuranceEnabled(true)
+                .isSalaryClient(false)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Сетка содержит все суммы и сроки из диапазонов, значения расположены по суммам, затем по срокам")
+    void simulationReturnsFullGrid() {
+        SimulationResultDto result = simulationService.simulate(simulationRequest);
+
+        assertEquals(5, result.getAmounts().length);
+        assertEquals(4, result.getTerms().length);
+        assertEquals(20, result.getMonthlyPayments().length);
+        assertEquals(20, result.getPsks().length);
+        assertEquals(0, new BigDecimal("300000").compareTo(result.getAmounts()[4]));
+        assertEquals(24, result.getTerms()[3]);
+    }
+
+    @Test
+    @DisplayName("Без изменения ставок результат совпадает с предложениями из getOffers()")
+    void simulationWithoutOverridesMatchesOffers() {
+        SimulationResultDto result = simulationService.simulate(simulationRequest);
+
+        for (int amountIndex = 0; amountIndex < result.getAmounts().length; ++amountIndex) {
+            for (int termIndex = 0; termIndex < result.getTerms().length; ++termIndex) {
+                LoanStatementRequestDto request = LoanStatementRequestDto.builder()
+                        .amount(result.getAmounts()[amountIndex])
+                        .term(result.getTerms()[termIndex])
+                        .build();
+                LoanOfferDto offer = calculatorService.getOffers(request).stream()
+                        .filter(loanOfferDto -> loanOfferDto.getIsInsuranceEnabled() &&
+                                                !loanOfferDto.getIsSalaryClient())
+                        .findFirst()
+                        .orElseThrow();
+
+                int cell = amountIndex * result.getTerms().length + termIndex;
+                assertEquals(offer.getMonthlyPayment(), result.getMonthlyPayments()[cell]);
+                assertEquals(offer.getTotalAmount(), result.getPsks()[cell]);
+                assertEquals(0, offer.getRate().compareTo(result.getRate()));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Изменённая базовая ставка увеличивает платёж, но не меняет текущие ставки")
+    void baseRateOverrideChangesPaymentsOnly() {
+        SimulationResultDto current = simulationService.simulate(simulationRequest);
+
+        simulationRequest.setBaseRate(calculatorService.getRates().baseRate().add(new BigDecimal("0.05")));
+        SimulationResultDto simulated = simulationService.simulate(simulationRequest);
+
+        assertEquals(0, current.getRate().add(new BigDecimal("0.05")).compareTo(simulated.getRate()));
+        for (int cell = 0; cell < current.getMonthlyPayments().length; ++cell) {
+            assertTrue(simulated.getMonthlyPayments()[cell].compareTo(current.getMonthlyPayments()[cell]) > 0);
+        }
+        assertEquals(current.getRatesVersion(), simulated.getRatesVersion());
+        assertEquals(0, current.getRate().compareTo(simulationService.simulate(
+                SimulationRequestDto.builder()
+                        .amountFrom(simulationRequest.getAmountFrom())
+                        .amountTo(simulationRequest.getAmountFrom())
+                        .amountStep(simulationRequest.getAmountStep())
+                        .termFrom(6)
+                        .termTo(6)
+                        .termStep(1)
+                        .isInsuranceEnabled(true)
+                        .isSalaryClient(false)
+                        .build()).getRate()));
+    }
+
+    @Test
+    @DisplayName("Слишком большая сетка или пустой диапазон не рассчитываются")
+    void invalidGridIsRejected() {
+        simulationRequest.setAmountStep(new BigDecimal("0.01"));
+        assertThrows(IllegalArgumentException.class, () -> simulationService.simulate(simulationRequest));
+
+        simulationRequest.setAmountStep(new BigDecimal("50000"));
+        simulationRequest.setTermFrom(30);
+        assertThrows(IllegalArgumentException.class, () -> simulationService.simulate(simulationRequest));
+    }
+
+    @Test
+    @DisplayName("Ставки, при которых ставка кредита не больше нуля, не рассчитываются")
+    void simulationIsRejectedWhenRateIsNotPositive() {
+        simulationRequest.setBaseRate(calculatorService.getRates().insuranceDecrement());
+
+        assertThrows(IllegalArgumentException.class, () -> simulationService.simulate(simulationRequest));
+    }
+}
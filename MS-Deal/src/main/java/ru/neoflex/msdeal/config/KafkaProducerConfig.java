@@ -20,6 +20,24 @@ public class KafkaProducerConfig {
     @Value(value = "${spring.kafka.bootstrap-servers}")
     private String bootstrapAddress;
 
+    @Value(value = "${spring.kafka.producer.acks:all}")
+    private String acks;
+
+    @Value(value = "${spring.kafka.producer.batch-size:65536}")
+    private int batchSize;
+
+    @Value(value = "${spring.kafka.producer.compression-type:lz4}")
+    private String compressionType;
+
+    @Value(value = "${spring.kafka.producer.properties.linger.ms:20}")
+    private int lingerMs;
+
+    @Value(value = "${spring.kafka.producer.properties.enable.idempotence:true}")
+    private boolean idempotence;
+
+    @Value(value = "${spring.kafka.producer.properties.max.in.flight.requests.per.connection:5}")
+    private int maxInFlightRequests;
+
     @Bean
     public ProducerFactory<String, EmailMessageDto> emailProducerFactory() {
         Map<String, Object> configProps = new HashMap<>();
@@ -27,6 +45,14 @@ public class KafkaProducerConfig {
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapAddress);
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        configProps.put(ProducerConfig.ACKS_CONFIG, acks);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        // Idempotence keeps broker-side retries from duplicating or reordering events relayed from
+        // the outbox; it requires acks=all and at most 5 in-flight requests, Kafka rejects anything else
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, idempotence);
+        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, maxInFlightRequests);
 
         return new DefaultKafkaProducerFactory<>(configProps);
     }
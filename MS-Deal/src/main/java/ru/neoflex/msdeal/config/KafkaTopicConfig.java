@@ -16,6 +16,13 @@ public class KafkaTopicConfig {
     @Value(value = "${spring.kafka.bootstrap-servers}")
     private String bootstrapAddress;
 
+    // Events are keyed by statementId, so a statement's events stay ordered within one partition
+    @Value(value = "${kafka.topic.partitions:6}")
+    private int partitions;
+
+    @Value(value = "${kafka.topic.replication-factor:1}")
+    private short replicationFactor;
+
     @Bean
     public KafkaAdmin kafkaAdmin() {
         Map<String, Object> configs = new HashMap<>();
@@ -25,31 +32,31 @@ public class KafkaTopicConfig {
 
     @Bean
     public NewTopic finishRegistrationTopic() {
-        return new NewTopic("finish-registration",1, (short) 1);
+        return new NewTopic("finish-registration", partitions, replicationFactor);
     }
 
     @Bean
     public NewTopic createDocumentsTopic() {
-        return new NewTopic("create-documents", 1, (short) 1);
+        return new NewTopic("create-documents", partitions, replicationFactor);
     }
 
     @Bean
     public NewTopic sendDocumentsTopic() {
-        return new NewTopic("send-documents", 1, (short) 1);
+        return new NewTopic("send-documents", partitions, replicationFactor);
     }
 
     @Bean
     public NewTopic sendSesTopic() {
-        return new NewTopic("send-ses", 1, (short) 1);
+        return new NewTopic("send-ses", partitions, replicationFactor);
     }
 
     @Bean
     public NewTopic creditIssuedTopic() {
-        return new NewTopic("credit-issued", 1, (short) 1);
+        return new NewTopic("credit-issued", partitions, replicationFactor);
     }
 
     @Bean
     public NewTopic statementDeniedTopic() {
-        return new NewTopic("statement-denied", 1, (short) 1);
+        return new NewTopic("statement-denied", partitions, replicationFactor);
     }
 }
@@ -0,0 +1,25 @@
+package ru.neoflex.msdeal.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.neoflex.msdeal.service.OutboxRelay;
+
+@Configuration
+public class OutboxMetricsConfig {
+
+    @Bean
+    public MeterBinder outboxMetrics(OutboxRelay outboxRelay) {
+        return registry -> {
+            Gauge.builder("deal.outbox.lag", outboxRelay, OutboxRelay::getLagSeconds)
+                    .baseUnit("seconds")
+                    .register(registry);
+            Gauge.builder("deal.outbox.pending", outboxRelay, OutboxRelay::getPendingEvents)
+                    .register(registry);
+            FunctionCounter.builder("deal.outbox.sent", outboxRelay, OutboxRelay::getSentEvents)
+                    .register(registry);
+        };
+    }
+}
@@ -9,16 +9,26 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.neoflex.loanissuerlibrary.dto.*;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.ApplicationStatus;
 import ru.neoflex.loanissuerlibrary.exception.CreditDeniedException;
 import ru.neoflex.loanissuerlibrary.exception.SesCodeVerificationFailed;
 import ru.neoflex.loanissuerlibrary.exception.StatementChangeBlocked;
 import ru.neoflex.loanissuerlibrary.exception.StatementNotFoundException;
+import ru.neoflex.msdeal.exception.InvalidCursorException;
+import ru.neoflex.msdeal.exception.InvalidPeriodException;
 
 import java.awt.*;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @RestController
@@ -72,7 +82,7 @@ public interface DealApi {
     void select(@io.swagger.v3.oas.annotations.parameters.RequestBody(
             description = "Принятые клиентом условия кредита в виде LoanOfferDto.",
             required = true)
-                @RequestBody @Valid LoanOfferDto offer) throws StatementNotFoundException;
+                @RequestBody @Valid LoanOfferDto offer) throws StatementChangeBlocked, StatementNotFoundException;
 
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "OK"),
@@ -260,14 +270,102 @@ public interface DealApi {
     StatementDto getStatementById(@PathVariable("statementId") UUID statementId) throws StatementNotFoundException;
 
     @Operation(
-            summary = "Получение всех заявок, что есть в базе данных"
+            summary = "Получение страницы заявок с фильтрами",
+            description = """
+                    Заявки отсортированы по дате создания и UUID. Их можно отфильтровать по статусу, \
+                    периоду создания [createdFrom, createdTo) и почте клиента.\r\n
+                    Для получения следующей страницы нужно передать в afterCreationDate и afterStatementId \
+                    дату создания и UUID последней заявки текущей страницы.
+                    """
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "OK", content = {
                     @Content(mediaType = "application/json", array =
                     @ArraySchema(schema = @Schema(implementation = StatementDto.class)))
+            }),
+            @ApiResponse(responseCode = "400", description = "Invalid filter or page", content = {
+                    @Content(mediaType = "application/json")
             })
     })
     @GetMapping("/admin/statement")
-    List<StatementDto> getAllStatements();
+    List<StatementDto> getAllStatements(
+            @RequestParam(required = false) ApplicationStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime afterCreationDate,
+            @RequestParam(required = false) UUID afterStatementId,
+            @RequestParam(defaultValue = "50") @Min(1) @Max(1000) int size) throws InvalidCursorException;
+
+    @Operation(
+            summary = "Выгрузка заявок с фильтрами в формате NDJSON",
+            description = """
+                    Фильтры те же, что и у GET /deal/admin/statement. \
+                    Возвращаются все подходящие заявки, по одному StatementDto на строку.\r\n
+                    Заявки читаются из базы данных курсором порциями по statement.export.fetch-size строк, \
+                    поэтому выгрузка не держит все заявки в памяти.
+                    """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK", content = {
+                    @Content(mediaType = "application/x-ndjson")
+            })
+    })
+    @GetMapping(path = "/admin/statement/export", produces = "application/x-ndjson")
+    ResponseEntity<StreamingResponseBody> exportStatements(
+            @RequestParam(required = false) ApplicationStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+            @RequestParam(required = false) String email);
+
+    @Operation(
+            summary = "Количество заявок, получивших каждый статус за период",
+            description = """
+                    На вход получаем начало (включительно) и конец (не включительно) периода. \
+                    Для каждого статуса возвращается число заявок, получивших этот статус за период.\r\n
+                    Считается одним запросом с группировкой по статусу по таблице истории статусов \
+                    statement_status_history с помощью индекса по времени смены статуса и статусу.
+                    """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK", content = {
+                    @Content(mediaType = "application/json")
+            }),
+            @ApiResponse(responseCode = "400", description = "Invalid period", content = {
+                    @Content(mediaType = "application/json")
+            })
+    })
+    @GetMapping("/admin/statement/status-count")
+    Map<ApplicationStatus, Long> getStatusCounts(
+            @Parameter(description = "Начало периода", example = "2025-01-01T00:00:00", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Конец периода", example = "2025-01-02T00:00:00", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to)
+                                                                                throws InvalidPeriodException;
+
+    @Operation(
+            summary = "Получение страницы графика платежей по кредиту заявки",
+            description = """
+                    На вход получаем UUID заявки, номер страницы (с 0) и размер страницы. \
+                    Возвращаются элементы графика платежей с номерами от page * size + 1 \
+                    до (page + 1) * size включительно.\r\n
+                    Если график хранится в компактном виде, рассчитываются только нужные элементы.\r\n
+                    Если заявки с таким UUID нет или по ней ещё не рассчитан кредит, то вернётся код 404.
+                    """
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "OK", content = {
+                    @Content(mediaType = "application/json", array =
+                    @ArraySchema(schema = @Schema(implementation = PaymentScheduleElementDto.class)))
+            }),
+            @ApiResponse(responseCode = "404", description = "Statement or credit not found", content = {
+                    @Content(mediaType = "application/json")
+            })
+    })
+    @GetMapping("/admin/statement/{statementId}/payment-schedule")
+    List<PaymentScheduleElementDto> getPaymentSchedule(@PathVariable("statementId") UUID statementId,
+                                                       @RequestParam(defaultValue = "0") @Min(0) int page,
+                                                       @RequestParam(defaultValue = "50") @Min(1) @Max(1000) int size)
+                                                       throws StatementNotFoundException;
 }
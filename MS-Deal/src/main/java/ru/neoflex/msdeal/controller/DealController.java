@@ -4,16 +4,26 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Pattern;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.neoflex.loanissuerlibrary.dto.*;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.ApplicationStatus;
 import ru.neoflex.loanissuerlibrary.exception.CreditDeniedException;
 import ru.neoflex.loanissuerlibrary.exception.SesCodeVerificationFailed;
 import ru.neoflex.loanissuerlibrary.exception.StatementChangeBlocked;
 import ru.neoflex.loanissuerlibrary.exception.StatementNotFoundException;
+import ru.neoflex.msdeal.exception.InvalidCursorException;
+import ru.neoflex.msdeal.exception.InvalidPeriodException;
+import ru.neoflex.msdeal.repository.StatementFilter;
 import ru.neoflex.msdeal.service.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Tag(name = "ms_deal")
@@ -39,7 +49,8 @@ public class DealController implements DealApi {
     }
 
     @PostMapping("/offer/select")
-    public void select(@RequestBody @Valid LoanOfferDto offer) throws StatementNotFoundException {
+    public void select(@RequestBody @Valid LoanOfferDto offer) throws StatementChangeBlocked,
+                                                                     StatementNotFoundException {
         log.info("Received a POST request to /deal/offer/select");
 
         dealService.applyOffer(offer);
@@ -105,10 +116,55 @@ public class DealController implements DealApi {
         return dealService.getStatement(statementId);
     }
 
-    @GetMapping("/admin/statement")
-    public List<StatementDto> getAllStatements() {
+    // Mapping, parameters and the page size bounds are declared once, on DealApi
+    @Override
+    public List<StatementDto> getAllStatements(ApplicationStatus status,
+                                               LocalDateTime createdFrom,
+                                               LocalDateTime createdTo,
+                                               String email,
+                                               LocalDateTime afterCreationDate,
+                                               UUID afterStatementId,
+                                               int size) throws InvalidCursorException {
         log.info("Received a GET request to /deal/admin/statement");
 
-        return dealService.getAllStatements();
+        return dealService.getStatements(new StatementFilter(status, createdFrom, createdTo, email),
+                                         afterCreationDate,
+                                         afterStatementId,
+                                         size);
+    }
+
+    @GetMapping(path = "/admin/statement/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportStatements(
+            @RequestParam(required = false) ApplicationStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+            @RequestParam(required = false) String email) {
+        log.info("Received a GET request to /deal/admin/statement/export");
+
+        StatementFilter filter = new StatementFilter(status, createdFrom, createdTo, email);
+        StreamingResponseBody body = outputStream -> dealService.exportStatements(filter, outputStream);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    @GetMapping("/admin/statement/status-count")
+    public Map<ApplicationStatus, Long> getStatusCounts(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to)
+                                                                                throws InvalidPeriodException {
+        log.info("Received a GET request to /deal/admin/statement/status-count");
+
+        return dealService.getStatusCounts(from, to);
+    }
+
+    // Declared on DealApi together with its page bounds
+    @Override
+    public List<PaymentScheduleElementDto> getPaymentSchedule(UUID statementId, int page, int size)
+                                                              throws StatementNotFoundException {
+        log.info("Received a GET request to /deal/admin/statement/{statementId}/payment-schedule");
+
+        return dealService.getPaymentSchedule(statementId, page, size);
     }
 }
@@ -0,0 +1,8 @@
+package ru.neoflex.msdeal.exception;
+
+public class InvalidCursorException extends Exception {
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
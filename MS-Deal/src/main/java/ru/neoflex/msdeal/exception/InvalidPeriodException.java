@@ -0,0 +1,8 @@
+package ru.neoflex.msdeal.exception;
+
+public class InvalidPeriodException extends Exception {
+
+    public InvalidPeriodException(String message) {
+        super(message);
+    }
+}
@@ -8,6 +8,7 @@ import ru.neoflex.loanissuerlibrary.dto.PaymentScheduleElementDto;
 import ru.neoflex.loanissuerlibrary.dto.enumeration.CreditStatus;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
 
@@ -38,13 +39,26 @@ public class CreditEntity {
     @Column(name = "psk", nullable = false)
     BigDecimal psk;
 
-    @Column(name = "payment_schedule", nullable = false)
+    @Column(name = "payment_schedule")
     @JdbcTypeCode(SqlTypes.JSON)
     List<PaymentScheduleElementDto> paymentSchedule;
 
+    @Column(name = "schedule_version", nullable = false)
+    @Enumerated(EnumType.STRING)
+    PaymentScheduleVersion scheduleVersion = PaymentScheduleVersion.STORED;
+
+    @Column(name = "schedule_principal")
+    BigDecimal schedulePrincipal;
+
+    @Column(name = "first_payment_date")
+    LocalDate firstPaymentDate;
+
     @Column(name = "is_insurance_enabled", nullable = false)
     Boolean isInsuranceEnabled;
 
+    @Column(name = "insurance_rate")
+    BigDecimal insuranceRate;
+
     @Column(name = "is_salary_client", nullable = false)
     Boolean isSalaryClient;
 
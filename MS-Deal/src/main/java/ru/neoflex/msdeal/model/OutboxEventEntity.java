@@ -0,0 +1,36 @@
+package ru.neoflex.msdeal.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import ru.neoflex.loanissuerlibrary.dto.EmailMessageDto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "outbox_event")
+public class OutboxEventEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID outboxEventId;
+
+    @Column(name = "topic", nullable = false)
+    private String topic;
+
+    @Column(name = "message_key")
+    private String messageKey;
+
+    @Column(name = "payload", nullable = false)
+    @JdbcTypeCode(SqlTypes.JSON)
+    private EmailMessageDto payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
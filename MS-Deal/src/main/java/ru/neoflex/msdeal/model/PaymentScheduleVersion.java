@@ -0,0 +1,11 @@
+package ru.neoflex.msdeal.model;
+
+/**
+ * How the payment schedule of a credit is stored.
+ */
+public enum PaymentScheduleVersion {
+    /** The whole schedule is stored in the payment_schedule column. */
+    STORED,
+    /** Only the principal, rate, term and first payment date are stored; the schedule is recalculated. */
+    ANNUITY_V1
+}
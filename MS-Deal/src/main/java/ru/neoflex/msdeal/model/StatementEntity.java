@@ -5,7 +5,6 @@ import lombok.*;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 import ru.neoflex.loanissuerlibrary.dto.LoanOfferDto;
-import ru.neoflex.loanissuerlibrary.dto.StatusHistoryDto;
 import ru.neoflex.loanissuerlibrary.dto.enumeration.ApplicationStatus;
 
 import java.time.LocalDateTime;
@@ -24,11 +23,11 @@ public class StatementEntity {
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID statementId;
 
-    @OneToOne(targetEntity = ClientEntity.class)
+    @OneToOne(targetEntity = ClientEntity.class, cascade = CascadeType.MERGE)
     @JoinColumn(name = "client_id", nullable = false)
     private ClientEntity client;
 
-    @OneToOne(targetEntity = CreditEntity.class)
+    @OneToOne(targetEntity = CreditEntity.class, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinColumn(name = "credit_id", nullable = true)
     private CreditEntity credit;
 
@@ -49,7 +48,14 @@ public class StatementEntity {
     @Column(name = "ses_code", nullable = true)
     private String sesCode;
 
-    @Column(name = "status_history", nullable = false)
-    @JdbcTypeCode(SqlTypes.JSON)
-    private List<StatusHistoryDto> statusHistory;
+    @OneToMany(targetEntity = StatusHistoryEntity.class,
+               mappedBy = "statement",
+               cascade = CascadeType.PERSIST,
+               fetch = FetchType.LAZY)
+    @OrderBy("timestamp")
+    private List<StatusHistoryEntity> statusHistory;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
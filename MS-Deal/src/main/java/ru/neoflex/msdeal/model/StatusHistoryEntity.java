@@ -0,0 +1,37 @@
+package ru.neoflex.msdeal.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.ApplicationStatus;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.ChangeType;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "statement_status_history")
+public class StatusHistoryEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID statusHistoryId;
+
+    @ManyToOne(targetEntity = StatementEntity.class, fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "statement_id", nullable = false)
+    private StatementEntity statement;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ApplicationStatus status;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime timestamp;
+
+    @Column(name = "change_type", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ChangeType changeType;
+}
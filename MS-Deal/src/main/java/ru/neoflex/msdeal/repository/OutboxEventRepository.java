@@ -0,0 +1,29 @@
+package ru.neoflex.msdeal.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.neoflex.msdeal.model.OutboxEventEntity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEventEntity, UUID> {
+
+    /**
+     * Oldest events, locked until the end of the transaction. Rows locked by another relay
+     * instance are skipped, so several instances drain the outbox without sending an event twice.
+     */
+    @Query(value = """
+            select * from outbox_event
+            order by created_at
+            limit :limit
+            for update skip locked""", nativeQuery = true)
+    List<OutboxEventEntity> lockOldest(@Param("limit") int limit);
+
+    @Query("select min(e.createdAt) from OutboxEventEntity e")
+    LocalDateTime findOldestCreatedAt();
+}
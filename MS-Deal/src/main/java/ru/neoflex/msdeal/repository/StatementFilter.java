@@ -0,0 +1,15 @@
+package ru.neoflex.msdeal.repository;
+
+import ru.neoflex.loanissuerlibrary.dto.enumeration.ApplicationStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filters of the admin statement listing; a null field is not applied.
+ * The creation date range is [createdFrom, createdTo).
+ */
+public record StatementFilter(ApplicationStatus status,
+                              LocalDateTime createdFrom,
+                              LocalDateTime createdTo,
+                              String email) {
+}
@@ -0,0 +1,26 @@
+package ru.neoflex.msdeal.repository;
+
+import ru.neoflex.msdeal.model.StatementEntity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public interface StatementListingRepository {
+
+    /**
+     * Statements matching the filter, ordered by creation date and id, that come after the given
+     * statement (keyset pagination; a null creation date means the first page).
+     */
+    List<StatementEntity> findPage(StatementFilter filter,
+                                   LocalDateTime afterCreationDate,
+                                   UUID afterStatementId,
+                                   int size);
+
+    /**
+     * All statements matching the filter, read from a database cursor {@code fetchSize} rows at a time.
+     * Must be consumed inside a transaction and closed.
+     */
+    Stream<StatementEntity> streamAll(StatementFilter filter, int fetchSize);
+}
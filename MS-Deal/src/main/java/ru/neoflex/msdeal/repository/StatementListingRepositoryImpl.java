@@ -0,0 +1,87 @@
+package ru.neoflex.msdeal.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import ru.neoflex.msdeal.model.StatementEntity;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public class StatementListingRepositoryImpl implements StatementListingRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<StatementEntity> findPage(StatementFilter filter,
+                                          LocalDateTime afterCreationDate,
+                                          UUID afterStatementId,
+                                          int size) {
+        StringBuilder jpql = new StringBuilder();
+        Map<String, Object> parameters = new HashMap<>();
+        appendSelect(jpql, parameters, filter);
+
+        if (afterCreationDate != null) {
+            jpql.append("""
+                     and (s.creationDate > :afterCreationDate
+                          or (s.creationDate = :afterCreationDate and s.statementId > :afterStatementId))""");
+            parameters.put("afterCreationDate", afterCreationDate);
+            parameters.put("afterStatementId", afterStatementId);
+        }
+        jpql.append(" order by s.creationDate, s.statementId");
+
+        return createQuery(jpql, parameters)
+                .setMaxResults(size)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<StatementEntity> streamAll(StatementFilter filter, int fetchSize) {
+        StringBuilder jpql = new StringBuilder();
+        Map<String, Object> parameters = new HashMap<>();
+        appendSelect(jpql, parameters, filter);
+        jpql.append(" order by s.creationDate, s.statementId");
+
+        return createQuery(jpql, parameters)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    private void appendSelect(StringBuilder jpql, Map<String, Object> parameters, StatementFilter filter) {
+        jpql.append("""
+                select s from StatementEntity s
+                join fetch s.client c
+                left join fetch s.credit
+                where 1 = 1""");
+
+        if (filter.status() != null) {
+            jpql.append(" and s.status = :status");
+            parameters.put("status", filter.status());
+        }
+        if (filter.createdFrom() != null) {
+            jpql.append(" and s.creationDate >= :createdFrom");
+            parameters.put("createdFrom", filter.createdFrom());
+        }
+        if (filter.createdTo() != null) {
+            jpql.append(" and s.creationDate < :createdTo");
+            parameters.put("createdTo", filter.createdTo());
+        }
+        if (filter.email() != null) {
+            jpql.append(" and c.email = :email");
+            parameters.put("email", filter.email());
+        }
+    }
+
+    private TypedQuery<StatementEntity> createQuery(StringBuilder jpql, Map<String, Object> parameters) {
+        TypedQuery<StatementEntity> query = entityManager.createQuery(jpql.toString(), StatementEntity.class);
+        parameters.forEach(query::setParameter);
+        return query;
+    }
+}
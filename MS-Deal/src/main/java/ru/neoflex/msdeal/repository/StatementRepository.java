@@ -1,12 +1,21 @@
 package ru.neoflex.msdeal.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.neoflex.msdeal.model.StatementEntity;
 
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface StatementRepository extends JpaRepository<StatementEntity, UUID> {
+public interface StatementRepository extends JpaRepository<StatementEntity, UUID>, StatementListingRepository {
+
+    @Query("""
+            select s from StatementEntity s
+            join fetch s.client
+            left join fetch s.credit
+            where s.statementId = :statementId""")
+    Optional<StatementEntity> findAggregateById(@Param("statementId") UUID statementId);
 }
@@ -0,0 +1,9 @@
+package ru.neoflex.msdeal.repository;
+
+import ru.neoflex.loanissuerlibrary.dto.enumeration.ApplicationStatus;
+
+/**
+ * Number of statements that got the status within a period.
+ */
+public record StatusCount(ApplicationStatus status, long statements) {
+}
@@ -0,0 +1,14 @@
+package ru.neoflex.msdeal.repository;
+
+import ru.neoflex.loanissuerlibrary.dto.enumeration.ApplicationStatus;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.ChangeType;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Status history element of a statement, read without loading the statement's history collection.
+ */
+public record StatusHistoryRow(UUID statementId, ApplicationStatus status, LocalDateTime timestamp,
+                               ChangeType changeType) {
+}
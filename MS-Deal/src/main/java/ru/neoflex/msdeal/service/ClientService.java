@@ -1,17 +1,13 @@
 package ru.neoflex.msdeal.service;
 
-import jakarta.persistence.EntityNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import ru.neoflex.loanissuerlibrary.dto.FinishRegistrationRequestDto;
 import ru.neoflex.loanissuerlibrary.dto.LoanStatementRequestDto;
 import ru.neoflex.loanissuerlibrary.dto.PassportDto;
 import ru.neoflex.msdeal.model.ClientEntity;
 import ru.neoflex.msdeal.repository.ClientRepository;
 
-import java.util.UUID;
-
 @Slf4j
 @Service
 public class ClientService {
@@ -43,12 +39,11 @@ public class ClientService {
         return clientRepository.save(clientEntity);
     }
 
-    @Transactional
-    public ClientEntity enrichClient(FinishRegistrationRequestDto finishRegistrationRequestDto, UUID clientId)
-                                                                       throws EntityNotFoundException {
-        ClientEntity clientEntity = clientRepository.findById(clientId)
-                                                    .orElseThrow(EntityNotFoundException::new);
-
+    /**
+     * Enriches the client with the information from finishing registration request form without saving it.
+     */
+    public void applyFinishRegistration(FinishRegistrationRequestDto finishRegistrationRequestDto,
+                                        ClientEntity clientEntity) {
         clientEntity.setGender(finishRegistrationRequestDto.getGender());
         clientEntity.setMaritalStatus(finishRegistrationRequestDto.getMaritalStatus());
         clientEntity.setDependentAmount(finishRegistrationRequestDto.getDependentAmount());
@@ -60,9 +55,6 @@ public class ClientService {
         clientEntity.setEmployment(finishRegistrationRequestDto.getEmployment());
 
 
-        log.info("""
-                Enriched client with the information from finishing registration request form. \
-                Updating the client in the database...""");
-        return clientRepository.save(clientEntity);
+        log.info("Enriched client with the information from finishing registration request form.");
     }
 }
@@ -6,16 +6,22 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClientResponseException;
 import ru.neoflex.loanissuerlibrary.dto.*;
 import ru.neoflex.loanissuerlibrary.dto.enumeration.ApplicationStatus;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.CreditStatus;
 import ru.neoflex.loanissuerlibrary.exception.CreditDeniedException;
 import ru.neoflex.loanissuerlibrary.exception.SesCodeVerificationFailed;
 import ru.neoflex.loanissuerlibrary.exception.StatementChangeBlocked;
 import ru.neoflex.loanissuerlibrary.exception.StatementNotFoundException;
+import ru.neoflex.msdeal.exception.InvalidCursorException;
+import ru.neoflex.msdeal.exception.InvalidPeriodException;
 import ru.neoflex.msdeal.model.ClientEntity;
-import ru.neoflex.msdeal.model.CreditEntity;
 import ru.neoflex.msdeal.model.StatementEntity;
+import ru.neoflex.msdeal.repository.StatementFilter;
 
-import javax.swing.plaf.nimbus.State;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Slf4j
@@ -25,22 +31,34 @@ public class DealService {
     private ClientService clientService;
     private StatementService statementService;
     private CreditService creditService;
+    private PaymentScheduleService paymentScheduleService;
     private RestClientService restClientService;
     private KafkaSenderService kafkaSenderService;
     private UtilitiesService utilitiesService;
+    private StatementTransitionService statementTransitionService;
+    private StatusHistoryService statusHistoryService;
+    private StatementExportService statementExportService;
 
     public DealService(ClientService clientService,
                        StatementService statementService,
                        CreditService creditService,
+                       PaymentScheduleService paymentScheduleService,
                        RestClientService restClientService,
                        KafkaSenderService kafkaSenderService,
-                       UtilitiesService utilitiesService) {
+                       UtilitiesService utilitiesService,
+                       StatementTransitionService statementTransitionService,
+                       StatusHistoryService statusHistoryService,
+                       StatementExportService statementExportService) {
         this.clientService = clientService;
         this.statementService = statementService;
         this.creditService = creditService;
+        this.paymentScheduleService = paymentScheduleService;
         this.restClientService = restClientService;
         this.kafkaSenderService = kafkaSenderService;
         this.utilitiesService = utilitiesService;
+        this.statementTransitionService = statementTransitionService;
+        this.statusHistoryService = statusHistoryService;
+        this.statementExportService = statementExportService;
     }
 
     public List<LoanOfferDto> createStatementGetOffers(LoanStatementRequestDto request)
@@ -57,14 +75,15 @@ public class DealService {
         return offers;
     }
 
-    public void applyOffer(LoanOfferDto offer) throws StatementNotFoundException {
-        String clientEmail = statementService.findClientByStatementId(offer.getStatementId()).getEmail();
+    public void applyOffer(LoanOfferDto offer) throws StatementChangeBlocked, StatementNotFoundException {
+        StatementEntity statementEntity = statementService.findAggregateById(offer.getStatementId());
 
-        statementService.setAppliedOffer(offer);
-        log.info("Set applied offer for the client.");
-
-        log.info("Sending a Kafka event in order to send an email to the client to finish registration.");
-        kafkaSenderService.sendFinishRegistrationMessage(offer.getStatementId(), clientEmail);
+        statementTransitionService.apply(statementEntity, statement -> {
+            statement.setAppliedOffer(offer);
+            statementService.recordStatus(statement, ApplicationStatus.APPROVED);
+            kafkaSenderService.sendFinishRegistrationMessage(offer.getStatementId(), statement.getClient().getEmail());
+        });
+        log.info("Set applied offer for the client and queued an email to finish registration.");
     }
 
     public void registrationCalculation(FinishRegistrationRequestDto request, UUID statementUUID)
@@ -72,105 +91,104 @@ public class DealService {
                                                                            StatementNotFoundException,
                                                                            CreditDeniedException,
                                                                            RestClientResponseException {
-        throwIfStatementIsDenied(statementUUID);
-
-        StatementEntity statementEntity = statementService.findById(statementUUID);
-
-        UUID clientUUID = statementEntity.getClient().getClientId();
+        StatementEntity statementEntity = findChangeableStatement(statementUUID);
 
-        clientService.enrichClient(request, clientUUID);
-        ScoringDataDto scoringDataDto = statementService.enrichScoringData(request, statementUUID);
+        ScoringDataDto scoringDataDto = statementService.enrichScoringData(request, statementEntity);
 
-        CreditDto creditDto;
+        // The schedule is compared with the recalculated one while it is read, before the statement transaction
+        PaymentScheduleWriter paymentScheduleWriter;
 
         try {
-            creditDto = restClientService.getCredit(scoringDataDto);
+            paymentScheduleWriter = restClientService.getCredit(scoringDataDto, paymentScheduleService::createWriter);
         } catch (RestClientResponseException e) {
             if (e.getStatusCode().equals(HttpStatusCode.valueOf(403))) {
                 log.warn("Client's application was denied. Setting CC_DENIED status to the statement.");
-                statementService.changeStatementStatus(statementEntity, ApplicationStatus.CC_DENIED);
-                log.info("Sending a request to send an email to the client about his loan application denial.");
-                kafkaSenderService.sendStatementDeniedMessage(statementUUID, statementEntity.getClient().getEmail());
+                statementTransitionService.apply(statementEntity, statement -> {
+                    clientService.applyFinishRegistration(request, statement.getClient());
+                    statementService.recordStatus(statement, ApplicationStatus.CC_DENIED);
+                    kafkaSenderService.sendStatementDeniedMessage(statementUUID, statement.getClient().getEmail());
+                });
+                log.info("Queued an email to the client about his loan application denial.");
             }
             throw e;
         }
 
-        CreditEntity creditEntity = creditService.saveCredit(creditDto);
-        statementEntity = statementService.setCredit(statementUUID, creditEntity);
-        statementService.changeStatementStatus(statementEntity, ApplicationStatus.CC_APPROVED);
+        statementTransitionService.apply(statementEntity, statement -> {
+            throwIfStatementIsDenied(statement);
+            clientService.applyFinishRegistration(request, statement.getClient());
+            statement.setCredit(creditService.createCredit(paymentScheduleWriter));
+            statementService.recordStatus(statement, ApplicationStatus.CC_APPROVED);
+            kafkaSenderService.sendCreateDocumentsMessage(statementUUID, statement.getClient().getEmail());
+        });
 
         log.info("Credit was calculated and saved to the statement, CC_APPROVED status was assigned.");
-        log.info("Sending a request to send an email to the client in order to create credit documents.");
-        kafkaSenderService.sendCreateDocumentsMessage(statementUUID, statementEntity.getClient().getEmail());
+        log.info("Queued an email to the client in order to create credit documents.");
     }
 
     public void sendDocumentEventAndStatus(UUID statementUUID) throws StatementChangeBlocked, StatementNotFoundException {
-        throwIfStatementIsDenied(statementUUID);
-
-        String clientEmail = statementService.findClientByStatementId(statementUUID).getEmail();
-        statementService.changeStatementStatus(statementService.findById(statementUUID),
-                                               ApplicationStatus.PREPARE_DOCUMENTS);
+        statementTransitionService.apply(statementService.findAggregateById(statementUUID), statement -> {
+            throwIfStatementIsDenied(statement);
+            statementService.recordStatus(statement, ApplicationStatus.PREPARE_DOCUMENTS);
+            kafkaSenderService.sendSendDocumentsMessage(statementUUID, statement.getClient().getEmail());
+        });
         log.info("Changed the status of the statement to PREPARE_DOCUMENTS");
-
-
-        log.info("Sending a request to send an email to the client with the details of a loan.");
-        kafkaSenderService.sendSendDocumentsMessage(statementUUID, clientEmail);
+        log.info("Queued an email to the client with the details of a loan.");
     }
 
     public void sesUpdateEvent(UUID statementUUID) throws StatementChangeBlocked, StatementNotFoundException {
-        throwIfStatementIsDenied(statementUUID);
-
-        String clientEmail = statementService.findClientByStatementId(statementUUID).getEmail();
-        statementService.updateSesCode(statementUUID, utilitiesService.generateSesCode());
+        String sesCode = utilitiesService.generateSesCode();
+        statementTransitionService.apply(statementService.findAggregateById(statementUUID), statement -> {
+            throwIfStatementIsDenied(statement);
+            statement.setSesCode(sesCode);
+            kafkaSenderService.sendSendSesMessage(statementUUID, sesCode, statement.getClient().getEmail());
+        });
         log.info("Updated ses code");
-
-        log.info("Sending a request to send an email to the client with the security code.");
-        kafkaSenderService.sendSendSesMessage(statementUUID,
-                                              statementService.getSesByStatementId(statementUUID),
-                                              clientEmail);
+        log.info("Queued an email to the client with the security code.");
     }
 
     public void sesCodeVerificationEvent(UUID statementUUID, String SesCode) throws StatementChangeBlocked,
                                                                                     SesCodeVerificationFailed,
                                                                                     StatementNotFoundException {
-        throwIfStatementIsDenied(statementUUID);
-
-        StatementEntity statementEntity = statementService.findById(statementUUID);
+        StatementEntity statementEntity = findChangeableStatement(statementUUID);
 
         if (!statementEntity.getSesCode().equals(SesCode)) {
             log.error("SES-code provided by a client is not valid");
-            statementService.changeStatementStatus(statementEntity, ApplicationStatus.CC_DENIED);
-            kafkaSenderService.sendStatementDeniedMessage(statementUUID, statementEntity.getClient().getEmail());
+            statementTransitionService.apply(statementEntity, statement -> {
+                statementService.recordStatus(statement, ApplicationStatus.CC_DENIED);
+                kafkaSenderService.sendStatementDeniedMessage(statementUUID, statement.getClient().getEmail());
+            });
             throw new SesCodeVerificationFailed("SES codes do not match!");
         }
 
         log.info("Credit issued. Updating statuses.");
-        creditService.updateCreditStatus(statementEntity.getCredit().getCreditId());
-        statementService.changeStatementStatus(statementEntity, ApplicationStatus.DOCUMENT_SIGNED);
-        statementService.issueCredit(statementUUID);
-
-        log.info("Making a request to send email to the client with confirmation that the loan was issued.");
-        kafkaSenderService.sendCreditIssuedMessage(statementUUID, statementEntity.getClient().getEmail());
+        statementTransitionService.apply(statementEntity, statement -> {
+            throwIfStatementIsDenied(statement);
+            statement.getCredit().setCreditStatus(CreditStatus.ISSUED);
+            statementService.recordStatus(statement, ApplicationStatus.DOCUMENT_SIGNED);
+            statementService.recordCreditIssued(statement);
+            kafkaSenderService.sendCreditIssuedMessage(statementUUID, statement.getClient().getEmail());
+        });
+
+        log.info("Queued an email to the client with confirmation that the loan was issued.");
     }
 
     public void documentCreatedStatusChange(UUID statementUUID) throws StatementChangeBlocked,
                                                                        StatementNotFoundException {
-        throwIfStatementIsDenied(statementUUID);
-
         log.info("Received information that documents were created and sent to the client. Changing status...");
 
-        StatementEntity statementEntity = statementService.findById(statementUUID);
-
-        statementService.changeStatementStatus(statementEntity, ApplicationStatus.DOCUMENT_CREATED);
+        statementTransitionService.apply(statementService.findAggregateById(statementUUID), statement -> {
+            throwIfStatementIsDenied(statement);
+            statementService.recordStatus(statement, ApplicationStatus.DOCUMENT_CREATED);
+        });
     }
 
     public DocumentDataDto formDocumentData(UUID statementUUID) throws StatementChangeBlocked,
                                                                        StatementNotFoundException {
-        throwIfStatementIsDenied(statementUUID);
+        StatementEntity statementEntity = findChangeableStatement(statementUUID);
 
         log.info("Forming the client data needed to create credit documents.");
 
-        return statementService.enrichDocumentData(statementUUID);
+        return statementService.enrichDocumentData(statementEntity);
     }
 
     public StatementDto getStatement(UUID statementUUID) throws StatementNotFoundException {
@@ -181,14 +199,49 @@ public class DealService {
         return statementService.createStatementDto(statementEntity);
     }
 
-    public List<StatementDto> getAllStatements() {
-        return statementService.pullAllStatements();
+    public List<StatementDto> getStatements(StatementFilter filter,
+                                            LocalDateTime afterCreationDate,
+                                            UUID afterStatementId,
+                                            int size) throws InvalidCursorException {
+        log.info("Retrieving a page of {} statements after {} {}", size, afterCreationDate, afterStatementId);
+
+        return statementService.findStatements(filter, afterCreationDate, afterStatementId, size);
     }
 
-    public void throwIfStatementIsDenied(UUID statementUUID) throws StatementChangeBlocked, StatementNotFoundException {
-        if (statementService.isDenied(statementUUID)) {
+    public void exportStatements(StatementFilter filter, OutputStream outputStream) throws IOException {
+        log.info("Exporting statements: {}", filter);
+
+        statementExportService.exportStatements(filter, outputStream);
+    }
+
+    public Map<ApplicationStatus, Long> getStatusCounts(LocalDateTime from, LocalDateTime to)
+                                                                                throws InvalidPeriodException {
+        log.info("Counting statements by status from {} to {}", from, to);
+
+        return statusHistoryService.countStatementsByStatus(from, to);
+    }
+
+    public List<PaymentScheduleElementDto> getPaymentSchedule(UUID statementUUID, int page, int size)
+                                                                    throws StatementNotFoundException {
+        log.info("Retrieving page {} of the payment schedule, page size {}", page, size);
+
+        return statementService.getPaymentSchedule(statementUUID, page, size);
+    }
+
+    public void throwIfStatementIsDenied(StatementEntity statementEntity) throws StatementChangeBlocked {
+        if (statementService.isDenied(statementEntity)) {
             log.warn("Statement had been denied earlier. All the changes are blocked.");
             throw new StatementChangeBlocked("Statement had been denied earlier!");
         }
     }
+
+    /**
+     * Loads the statement with its client and credit once per request and checks that it may still be changed.
+     */
+    private StatementEntity findChangeableStatement(UUID statementUUID) throws StatementChangeBlocked,
+                                                                              StatementNotFoundException {
+        StatementEntity statementEntity = statementService.findAggregateById(statementUUID);
+        throwIfStatementIsDenied(statementEntity);
+        return statementEntity;
+    }
 }
@@ -0,0 +1,63 @@
+package ru.neoflex.msdeal.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Observes Kafka sends: the time from calling send until the broker acknowledged (or rejected) the record
+ * per topic, and the number of failed sends per topic. The time includes the part of send that blocks
+ * the caller, e.g. waiting for metadata or for room in the producer buffer.
+ */
+@Slf4j
+@Service
+public class KafkaSendMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    public KafkaSendMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <K, V> CompletableFuture<SendResult<K, V>> observe(String topic,
+                                                              K key,
+                                                              Supplier<CompletableFuture<SendResult<K, V>>> send) {
+        long start = System.nanoTime();
+
+        CompletableFuture<SendResult<K, V>> result;
+        try {
+            result = send.get();
+        } catch (RuntimeException e) {
+            record(topic, key, start, e);
+            throw e;
+        }
+
+        return result.whenComplete((sendResult, failure) -> record(topic, key, start, failure));
+    }
+
+    private void record(String topic, Object key, long start, Throwable failure) {
+        long elapsed = System.nanoTime() - start;
+
+        Timer.builder("deal.kafka.send")
+                .tag("topic", topic)
+                .tag("outcome", failure == null ? "success" : "failure")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+
+        if (failure != null) {
+            Counter.builder("deal.kafka.send.failures")
+                    .tag("topic", topic)
+                    .register(meterRegistry)
+                    .increment();
+            log.warn("Failed to send an event with key {} to {} topic: {}", key, topic, failure.getMessage());
+        }
+    }
+}
@@ -1,21 +1,30 @@
 package ru.neoflex.msdeal.service;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import ru.neoflex.loanissuerlibrary.dto.EmailMessageDto;
 import ru.neoflex.loanissuerlibrary.dto.enumeration.EmailTheme;
+import ru.neoflex.msdeal.model.OutboxEventEntity;
+import ru.neoflex.msdeal.repository.OutboxEventRepository;
 
+import java.time.LocalDateTime;
 import java.util.UUID;
 
+/**
+ * Writes email events to the outbox table in the caller's transaction, so an event is stored
+ * if and only if the status change it reports is committed. {@link OutboxRelay} sends them to Kafka.
+ */
 @Slf4j
 @Service
+@Transactional(propagation = Propagation.MANDATORY)
 public class KafkaSenderService {
 
-    private final KafkaTemplate<String, EmailMessageDto> emailKafkaTemplate;
+    private final OutboxEventRepository outboxEventRepository;
 
-    public KafkaSenderService(KafkaTemplate<String, EmailMessageDto> kafkaTemplate) {
-        this.emailKafkaTemplate = kafkaTemplate;
+    public KafkaSenderService(OutboxEventRepository outboxEventRepository) {
+        this.outboxEventRepository = outboxEventRepository;
     }
 
     public void sendFinishRegistrationMessage(UUID statementId, String emailAddress) {
@@ -26,8 +35,8 @@ public class KafkaSenderService {
                 .text("Please finish registration.")
                 .build();
 
-        log.info("Sending an event to finish-registration topic...");
-        emailKafkaTemplate.send("finish-registration", message);
+        log.info("Queueing an event to finish-registration topic...");
+        enqueue("finish-registration", message);
     }
 
     public void sendCreateDocumentsMessage(UUID statementId, String emailAddress) {
@@ -38,8 +47,8 @@ public class KafkaSenderService {
                 .text("Do you wish to proceed to create documents?")
                 .build();
 
-        log.info("Sending an event to create-documents topic...");
-        emailKafkaTemplate.send("create-documents", message);
+        log.info("Queueing an event to create-documents topic...");
+        enqueue("create-documents", message);
     }
 
     public void sendStatementDeniedMessage(UUID statementId, String emailAddress) {
@@ -50,8 +59,8 @@ public class KafkaSenderService {
                 .text("Sorry, we can not loan you that amount of money.")
                 .build();
 
-        log.info("Sending an event to statement-denied topic...");
-        emailKafkaTemplate.send("statement-denied", message);
+        log.info("Queueing an event to statement-denied topic...");
+        enqueue("statement-denied", message);
     }
 
     public void sendSendDocumentsMessage(UUID statementId, String emailAddress) {
@@ -62,8 +71,8 @@ public class KafkaSenderService {
                 .text("Your loan documents are here:")
                 .build();
 
-        log.info("Sending an event to send-documents topic...");
-        emailKafkaTemplate.send("send-documents", message);
+        log.info("Queueing an event to send-documents topic...");
+        enqueue("send-documents", message);
     }
 
     public void sendSendSesMessage(UUID statementId, String SesCode, String emailAddress) {
@@ -74,8 +83,8 @@ public class KafkaSenderService {
                 .text("Sign documents with SES code. Your SES code is " + SesCode)
                 .build();
 
-        log.info("Sending an event to send-ses topic...");
-        emailKafkaTemplate.send("send-ses", message);
+        log.info("Queueing an event to send-ses topic...");
+        enqueue("send-ses", message);
     }
 
     public void sendCreditIssuedMessage(UUID statementId, String emailAddress) {
@@ -86,7 +95,15 @@ public class KafkaSenderService {
                 .text("Credit issued, congratulations")
                 .build();
 
-        log.info("Sending an event to credit-issued topic...");
-        emailKafkaTemplate.send("credit-issued", message);
+        log.info("Queueing an event to credit-issued topic...");
+        enqueue("credit-issued", message);
+    }
+
+    private void enqueue(String topic, EmailMessageDto message) {
+        outboxEventRepository.save(new OutboxEventEntity(null,
+                                                         topic,
+                                                         message.getStatementId().toString(),
+                                                         message,
+                                                         LocalDateTime.now()));
     }
 }
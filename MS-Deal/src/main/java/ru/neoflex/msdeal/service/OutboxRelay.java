@@ -0,0 +1,122 @@
+package ru.neoflex.msdeal.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.neoflex.loanissuerlibrary.dto.EmailMessageDto;
+import ru.neoflex.msdeal.model.OutboxEventEntity;
+import ru.neoflex.msdeal.repository.OutboxEventRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the outbox table to Kafka in batches. A batch is deleted in the transaction that locked it,
+ * after the broker has acknowledged every event of the batch; if sending fails the transaction is
+ * rolled back and the batch is retried on the next poll. Delivery is therefore at least once.
+ */
+@Slf4j
+@Service
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, EmailMessageDto> emailKafkaTemplate;
+    private final KafkaSendMetrics kafkaSendMetrics;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration sendTimeout;
+
+    private final AtomicLong sentEvents = new AtomicLong();
+    private volatile long pendingEvents;
+    private volatile double lagSeconds;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       KafkaTemplate<String, EmailMessageDto> emailKafkaTemplate,
+                       KafkaSendMetrics kafkaSendMetrics,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${outbox.relay.batch-size:100}") int batchSize,
+                       @Value("${outbox.relay.send-timeout:PT10S}") Duration sendTimeout) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.emailKafkaTemplate = emailKafkaTemplate;
+        this.kafkaSendMetrics = kafkaSendMetrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.sendTimeout = sendTimeout;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-interval:PT0.5S}")
+    public void relay() {
+        try {
+            int relayed;
+            do {
+                relayed = transactionTemplate.execute(status -> relayBatch());
+            } while (relayed == batchSize);
+        } catch (KafkaException e) {
+            log.warn("Could not relay outbox events, will retry on the next poll: {}", e.getMessage());
+        } finally {
+            updateLag();
+        }
+    }
+
+    public long getSentEvents() {
+        return sentEvents.get();
+    }
+
+    public long getPendingEvents() {
+        return pendingEvents;
+    }
+
+    /**
+     * Seconds since the oldest event still in the outbox was written, as of the last poll.
+     */
+    public double getLagSeconds() {
+        return lagSeconds;
+    }
+
+    private int relayBatch() {
+        List<OutboxEventEntity> events = outboxEventRepository.lockOldest(batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        CompletableFuture<?>[] results = events.stream()
+                .map(event -> kafkaSendMetrics.observe(event.getTopic(),
+                                                       event.getMessageKey(),
+                                                       () -> emailKafkaTemplate.send(event.getTopic(),
+                                                                                     event.getMessageKey(),
+                                                                                     event.getPayload())))
+                .toArray(CompletableFuture[]::new);
+        try {
+            CompletableFuture.allOf(results).get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KafkaException("Interrupted while sending outbox events", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new KafkaException("Failed to send " + events.size() + " outbox events", e);
+        }
+
+        outboxEventRepository.deleteAllInBatch(events);
+        sentEvents.addAndGet(events.size());
+        log.debug("Relayed {} outbox events", events.size());
+        return events.size();
+    }
+
+    private void updateLag() {
+        LocalDateTime oldestCreatedAt = outboxEventRepository.findOldestCreatedAt();
+        pendingEvents = outboxEventRepository.count();
+        lagSeconds = oldestCreatedAt == null
+                ? 0
+                : Duration.between(oldestCreatedAt, LocalDateTime.now()).toMillis() / 1000.0;
+    }
+}
@@ -0,0 +1,101 @@
+package ru.neoflex.msdeal.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.neoflex.annuityengine.AnnuityEngine;
+import ru.neoflex.annuityengine.BigDecimalAnnuityEngine;
+import ru.neoflex.annuityengine.FixedPointAnnuityEngine;
+import ru.neoflex.loanissuerlibrary.dto.CreditDto;
+import ru.neoflex.loanissuerlibrary.dto.PaymentScheduleElementDto;
+import ru.neoflex.msdeal.model.CreditEntity;
+import ru.neoflex.msdeal.model.PaymentScheduleVersion;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+@Service
+public class PaymentScheduleService {
+
+    private static final int CALCULATING_SCALE = 200;
+    private static final BigDecimal MONTHS_IN_YEAR = new BigDecimal(12);
+
+    // The same engine MS-Calculator uses with calculator.annuity.engine=fixed-point, so the elements are equal
+    private final AnnuityEngine annuityEngine = new FixedPointAnnuityEngine(new BigDecimalAnnuityEngine());
+
+    private final boolean compactSchedules;
+
+    public PaymentScheduleService(@Value("${payment-schedule.compact:false}") boolean compactSchedules) {
+        this.compactSchedules = compactSchedules;
+    }
+
+    /**
+     * Creates the writer the payment schedule of {@code creditDto} is passed to as it is received from MS-Calculator.
+     * The schedule can only be recalculated exactly for a rate of whole percents and a known insurance rate;
+     * otherwise it is stored as is.
+     *
+     * @param creditDto     the calculated credit without its payment schedule
+     * @param insuranceRate the insurance rate MS-Calculator applied, or {@code null} if it did not send one
+     */
+    public PaymentScheduleWriter createWriter(CreditDto creditDto, BigDecimal insuranceRate) {
+        if (!compactSchedules || insuranceRate == null ||
+            creditDto.getRate().compareTo(creditDto.getRate().setScale(2, RoundingMode.HALF_EVEN)) != 0) {
+            return new PaymentScheduleWriter(this, creditDto, insuranceRate, null);
+        }
+
+        return new PaymentScheduleWriter(this,
+                                         creditDto,
+                                         insuranceRate,
+                                         creditDto.getAmount().add(creditDto.getAmount().multiply(insuranceRate)));
+    }
+
+    public List<PaymentScheduleElementDto> getPaymentSchedule(CreditEntity creditEntity) {
+        return getPaymentSchedule(creditEntity, 0, creditEntity.getTerm());
+    }
+
+    /**
+     * Returns {@code size} schedule elements starting from the element {@code page * size + 1}.
+     */
+    public List<PaymentScheduleElementDto> getPaymentSchedule(CreditEntity creditEntity, int page, int size) {
+        int from = Math.min(Math.multiplyExact(page, size), creditEntity.getTerm());
+        int to = Math.min(from + size, creditEntity.getTerm());
+
+        if (creditEntity.getScheduleVersion() != PaymentScheduleVersion.ANNUITY_V1) {
+            List<PaymentScheduleElementDto> paymentSchedule = creditEntity.getPaymentSchedule();
+            return paymentSchedule.subList(Math.min(from, paymentSchedule.size()),
+                                           Math.min(to, paymentSchedule.size()));
+        }
+
+        log.info("Recalculating payment schedule elements {}..{}", from + 1, to);
+        return recalculate(creditEntity.getSchedulePrincipal(),
+                           creditEntity.getRate(),
+                           creditEntity.getTerm(),
+                           creditEntity.getFirstPaymentDate(),
+                           from,
+                           to);
+    }
+
+    // Elements before from are still calculated, but in fixed point they cost next to nothing and are not kept
+    List<PaymentScheduleElementDto> recalculate(BigDecimal principal,
+                                                BigDecimal rate,
+                                                int term,
+                                                LocalDate firstPaymentDate,
+                                                int from,
+                                                int to) {
+        BigDecimal monthlyRate = rate.divide(MONTHS_IN_YEAR, CALCULATING_SCALE, RoundingMode.HALF_EVEN);
+        BigDecimal monthlyPayment = annuityEngine.calculateMonthlyPayment(monthlyRate, principal, term);
+
+        List<PaymentScheduleElementDto> paymentSchedule = new ArrayList<>(to - from);
+        annuityEngine.createPaymentSchedule(principal, monthlyRate, monthlyPayment, term, firstPaymentDate,
+                                            element -> {
+                                                if (element.getNumber() > from && element.getNumber() <= to) {
+                                                    paymentSchedule.add(element);
+                                                }
+                                            });
+        return paymentSchedule;
+    }
+}
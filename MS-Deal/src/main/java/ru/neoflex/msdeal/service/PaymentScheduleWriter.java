@@ -0,0 +1,133 @@
+package ru.neoflex.msdeal.service;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.neoflex.loanissuerlibrary.dto.CreditDto;
+import ru.neoflex.loanissuerlibrary.dto.PaymentScheduleElementDto;
+import ru.neoflex.msdeal.model.CreditEntity;
+import ru.neoflex.msdeal.model.PaymentScheduleVersion;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Receives the payment schedule of a calculated credit element by element, as MS-Calculator sends it,
+ * and decides how the schedule is stored.
+ * <p>
+ * When the schedule may be compacted, every received element is compared with the recalculated one and
+ * dropped; the recalculated elements are produced {@link #RECALCULATION_CHUNK_SIZE} at a time. If the whole
+ * schedule matches, only the parameters it is recalculated from are stored. On the first element that differs
+ * (e.g. MS-Calculator uses another annuity engine), the elements before it are taken from the recalculation,
+ * since they are the same, and from then on the received elements are kept to be stored as is.
+ */
+@Slf4j
+public class PaymentScheduleWriter implements Consumer<PaymentScheduleElementDto> {
+
+    private static final int RECALCULATION_CHUNK_SIZE = 60;
+
+    private final PaymentScheduleService paymentScheduleService;
+    private final CreditDto creditDto;
+    private final BigDecimal insuranceRate;
+    private final BigDecimal principal;
+
+    private LocalDate firstPaymentDate;
+    private int matched;
+    private List<PaymentScheduleElementDto> recalculated = List.of();
+    private int recalculatedFrom;
+
+    // Elements to store as is; null while the schedule still matches the recalculated one
+    private List<PaymentScheduleElementDto> paymentSchedule;
+
+    /**
+     * @param insuranceRate the insurance rate MS-Calculator applied, or {@code null} if it is unknown
+     * @param principal     the principal to recalculate the schedule from, or {@code null} to store it as is
+     */
+    PaymentScheduleWriter(PaymentScheduleService paymentScheduleService,
+                          CreditDto creditDto,
+                          BigDecimal insuranceRate,
+                          BigDecimal principal) {
+        this.paymentScheduleService = paymentScheduleService;
+        this.creditDto = creditDto;
+        this.insuranceRate = insuranceRate;
+        this.principal = principal;
+        if (principal == null) {
+            this.paymentSchedule = new ArrayList<>(creditDto.getTerm());
+        }
+    }
+
+    /**
+     * The calculated credit without its payment schedule.
+     */
+    public CreditDto getCreditDto() {
+        return creditDto;
+    }
+
+    /**
+     * The insurance rate MS-Calculator applied to the credit, or {@code null} if it is unknown.
+     */
+    public BigDecimal getInsuranceRate() {
+        return insuranceRate;
+    }
+
+    @Override
+    public void accept(PaymentScheduleElementDto element) {
+        if (paymentSchedule != null) {
+            paymentSchedule.add(element);
+            return;
+        }
+
+        if (firstPaymentDate == null) {
+            firstPaymentDate = element.getDate();
+        }
+        if (matched < creditDto.getTerm() && element.equals(getRecalculatedElement(matched))) {
+            ++matched;
+            return;
+        }
+
+        log.warn("Payment schedule differs from the recalculated one at element {}, storing it as is",
+                 element.getNumber());
+        paymentSchedule = new ArrayList<>(creditDto.getTerm());
+        paymentSchedule.addAll(recalculate(0, matched));
+        paymentSchedule.add(element);
+        recalculated = null;
+    }
+
+    /**
+     * Sets the received schedule, or the parameters it is recalculated from, on the credit.
+     */
+    public void applyTo(CreditEntity creditEntity) {
+        if (paymentSchedule == null && matched > 0 && matched == creditDto.getTerm()) {
+            creditEntity.setPaymentSchedule(null);
+            creditEntity.setSchedulePrincipal(principal);
+            creditEntity.setFirstPaymentDate(firstPaymentDate);
+            creditEntity.setScheduleVersion(PaymentScheduleVersion.ANNUITY_V1);
+            log.info("Payment schedule of {} elements will be recalculated on demand", matched);
+            return;
+        }
+
+        // A schedule cut short still matches the recalculated elements it has
+        creditEntity.setPaymentSchedule(paymentSchedule != null ? paymentSchedule : recalculate(0, matched));
+    }
+
+    private PaymentScheduleElementDto getRecalculatedElement(int index) {
+        if (index >= recalculatedFrom + recalculated.size()) {
+            recalculatedFrom = index;
+            recalculated = recalculate(index, Math.min(index + RECALCULATION_CHUNK_SIZE, creditDto.getTerm()));
+        }
+        return recalculated.get(index - recalculatedFrom);
+    }
+
+    private List<PaymentScheduleElementDto> recalculate(int from, int to) {
+        if (from == to) {
+            return List.of();
+        }
+        return paymentScheduleService.recalculate(principal,
+                                                  creditDto.getRate(),
+                                                  creditDto.getTerm(),
+                                                  firstPaymentDate,
+                                                  from,
+                                                  to);
+    }
+}
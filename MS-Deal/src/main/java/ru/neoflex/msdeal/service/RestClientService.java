@@ -1,36 +1,53 @@
 package ru.neoflex.msdeal.service;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientResponseException;
 import ru.neoflex.loanissuerlibrary.dto.CreditDto;
 import ru.neoflex.loanissuerlibrary.dto.LoanOfferDto;
 import ru.neoflex.loanissuerlibrary.dto.LoanStatementRequestDto;
+import ru.neoflex.loanissuerlibrary.dto.PaymentScheduleElementDto;
 import ru.neoflex.loanissuerlibrary.dto.ScoringDataDto;
 import ru.neoflex.loanissuerlibrary.exception.CreditDeniedException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.util.List;
-import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
 public class RestClientService {
 
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    static final String INSURANCE_RATE_HEADER = "X-Insurance-Rate";
+
     private final RestClient restClient;
+    private final ObjectMapper objectMapper;
     private final String baseUri;
+    private final boolean streamCredit;
     private final String offersUri = "/calculator/offers";
     private final String creditUri = "/calculator/calc";
 
     public RestClientService(RestClient restClient,
+                             ObjectMapper objectMapper,
                              @Value("${mscalculator.host}") String calcHost,
-                             @Value("${mscalculator.port}") String calcPort) {
+                             @Value("${mscalculator.port}") String calcPort,
+                             @Value("${mscalculator.credit.streaming:false}") Boolean streamCredit) {
         this.restClient = restClient;
+        this.objectMapper = objectMapper;
         this.baseUri = "http://" + calcHost + ":" + calcPort;
+        this.streamCredit = Boolean.TRUE.equals(streamCredit);
     }
 
     public List<LoanOfferDto> getLoanOffers(LoanStatementRequestDto request)
@@ -44,15 +61,98 @@ public class RestClientService {
                 .body(new ParameterizedTypeReference<List<LoanOfferDto>>() {});
     }
 
-    public CreditDto getCredit(ScoringDataDto scoringData) throws RestClientResponseException {
+    /**
+     * Calculates the credit. {@code scheduleConsumerFactory} gets the credit without its payment schedule and
+     * the insurance rate MS-Calculator applied ({@code null} if it did not send one), the schedule elements then
+     * go to the consumer it returns; in streaming mode each element is passed on as soon as it is read, so the
+     * schedule is never collected here.
+     *
+     * @return the consumer that received the payment schedule
+     */
+    public <T extends Consumer<PaymentScheduleElementDto>> T getCredit(
+            ScoringDataDto scoringData,
+            BiFunction<CreditDto, BigDecimal, T> scheduleConsumerFactory) throws RestClientResponseException {
+        if (streamCredit) {
+            return getCreditStreamed(scoringData, scheduleConsumerFactory);
+        }
+
         log.info("Making a request to {}...", baseUri + creditUri);
-        CreditDto creditDto;
 
-        return restClient.post()
+        ResponseEntity<CreditDto> response = restClient.post()
                     .uri(baseUri + creditUri)
                     .contentType(MediaType.APPLICATION_JSON)
                     .body(scoringData)
                     .retrieve()
-                    .body(CreditDto.class);
+                    .toEntity(CreditDto.class);
+
+        CreditDto creditDto = response.getBody();
+        List<PaymentScheduleElementDto> paymentSchedule = creditDto.getPaymentSchedule();
+        creditDto.setPaymentSchedule(null);
+        T scheduleConsumer = scheduleConsumerFactory.apply(creditDto, getInsuranceRate(response.getHeaders()));
+        if (paymentSchedule != null) {
+            paymentSchedule.forEach(scheduleConsumer);
+        }
+        return scheduleConsumer;
+    }
+
+    private <T extends Consumer<PaymentScheduleElementDto>> T getCreditStreamed(
+            ScoringDataDto scoringData,
+            BiFunction<CreditDto, BigDecimal, T> scheduleConsumerFactory) throws RestClientResponseException {
+        log.info("Making a streaming request to {}...", baseUri + creditUri);
+
+        return restClient.post()
+                    .uri(baseUri + creditUri)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(APPLICATION_NDJSON)
+                    .body(scoringData)
+                    .exchange((request, response) -> {
+                        if (response.getStatusCode().isError()) {
+                            throw new RestClientResponseException(
+                                    response.getStatusCode().value() + " on POST request for \"" +
+                                    baseUri + creditUri + "\"",
+                                    response.getStatusCode(),
+                                    response.getStatusText(),
+                                    response.getHeaders(),
+                                    response.getBody().readAllBytes(),
+                                    null);
+                        }
+                        return readCredit(response.getBody(),
+                                          getInsuranceRate(response.getHeaders()),
+                                          scheduleConsumerFactory);
+                    });
+    }
+
+    /**
+     * The first NDJSON line is the credit without the schedule, every next one is a schedule element.
+     *
+     * @throws IOException if the schedule does not have exactly term elements, e.g. when the stream
+     *                     was cut off between two lines
+     */
+    private <T extends Consumer<PaymentScheduleElementDto>> T readCredit(
+            InputStream body,
+            BigDecimal insuranceRate,
+            BiFunction<CreditDto, BigDecimal, T> scheduleConsumerFactory) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            CreditDto creditDto = objectMapper.readValue(parser, CreditDto.class);
+            T scheduleConsumer = scheduleConsumerFactory.apply(creditDto, insuranceRate);
+
+            int elements = 0;
+            while (parser.nextToken() != null) {
+                scheduleConsumer.accept(objectMapper.readValue(parser, PaymentScheduleElementDto.class));
+                ++elements;
+            }
+            if (elements != creditDto.getTerm()) {
+                throw new IOException("Received a payment schedule of " + elements +
+                                      " elements for a credit of term " + creditDto.getTerm());
+            }
+
+            log.info("Received a credit with a payment schedule of {} elements", elements);
+            return scheduleConsumer;
+        }
+    }
+
+    private BigDecimal getInsuranceRate(HttpHeaders headers) {
+        String insuranceRate = headers.getFirst(INSURANCE_RATE_HEADER);
+        return insuranceRate != null ? new BigDecimal(insuranceRate) : null;
     }
 }
@@ -0,0 +1,79 @@
+package ru.neoflex.msdeal.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.neoflex.loanissuerlibrary.dto.StatementDto;
+import ru.neoflex.msdeal.model.StatementEntity;
+import ru.neoflex.msdeal.repository.StatementFilter;
+import ru.neoflex.msdeal.repository.StatementRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+public class StatementExportService {
+
+    private final StatementRepository statementRepository;
+    private final StatementService statementService;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public StatementExportService(StatementRepository statementRepository,
+                                  StatementService statementService,
+                                  EntityManager entityManager,
+                                  ObjectMapper objectMapper,
+                                  @Value("${statement.export.fetch-size:500}") int fetchSize) {
+        this.statementRepository = statementRepository;
+        this.statementService = statementService;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Writes every statement matching the filter to the stream as NDJSON, one StatementDto per line.
+     * Statements are read from a cursor {@code fetchSize} rows at a time; the status histories of each
+     * chunk are read in one query, and the chunk is detached once written, so memory use does not depend
+     * on the number of statements.
+     *
+     * @return the number of exported statements
+     */
+    @Transactional(readOnly = true)
+    public long exportStatements(StatementFilter filter, OutputStream outputStream) throws IOException {
+        long count = 0;
+        List<StatementEntity> chunk = new ArrayList<>(fetchSize);
+
+        try (Stream<StatementEntity> statements = statementRepository.streamAll(filter, fetchSize)) {
+            Iterator<StatementEntity> iterator = statements.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() < fetchSize && iterator.hasNext()) {
+                    continue;
+                }
+
+                for (StatementDto statementDto : statementService.createStatementDtos(chunk)) {
+                    outputStream.write(objectMapper.writeValueAsBytes(statementDto));
+                    outputStream.write('\n');
+                }
+                count += chunk.size();
+                chunk.clear();
+
+                outputStream.flush();
+                entityManager.clear();
+            }
+        }
+
+        log.info("Exported {} statements", count);
+        return count;
+    }
+}
@@ -8,24 +8,36 @@ import ru.neoflex.loanissuerlibrary.dto.*;
 import ru.neoflex.loanissuerlibrary.dto.enumeration.ApplicationStatus;
 import ru.neoflex.loanissuerlibrary.dto.enumeration.ChangeType;
 import ru.neoflex.loanissuerlibrary.exception.StatementNotFoundException;
+import ru.neoflex.msdeal.exception.InvalidCursorException;
 import ru.neoflex.msdeal.model.ClientEntity;
 import ru.neoflex.msdeal.model.CreditEntity;
 import ru.neoflex.msdeal.model.StatementEntity;
+import ru.neoflex.msdeal.model.StatusHistoryEntity;
+import ru.neoflex.msdeal.repository.StatementFilter;
 import ru.neoflex.msdeal.repository.StatementRepository;
+import ru.neoflex.msdeal.repository.StatusHistoryRepository;
+import ru.neoflex.msdeal.repository.StatusHistoryRow;
 
-import javax.swing.plaf.nimbus.State;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Slf4j
 @Service
 public class StatementService {
     private final StatementRepository statementRepository;
+    private final StatusHistoryRepository statusHistoryRepository;
+    private final PaymentScheduleService paymentScheduleService;
 
-    public StatementService(StatementRepository statementRepository) {
+    public StatementService(StatementRepository statementRepository,
+                            StatusHistoryRepository statusHistoryRepository,
+                            PaymentScheduleService paymentScheduleService) {
         this.statementRepository = statementRepository;
+        this.statusHistoryRepository = statusHistoryRepository;
+        this.paymentScheduleService = paymentScheduleService;
     }
 
     public StatementEntity findById(UUID id) throws StatementNotFoundException {
@@ -37,38 +49,30 @@ public class StatementService {
         return statementEntity;
     }
 
-    public ClientEntity findClientByStatementId(UUID id) throws StatementNotFoundException {
-        return findById(id).getClient();
-    }
-
-    public String getSesByStatementId(UUID id) throws StatementNotFoundException {
-        StatementEntity statementEntity = findById(id);
-        return statementEntity.getSesCode();
+    /**
+     * Loads the statement together with its client and credit in one query. The statement is the
+     * aggregate a request works on: it is changed in memory and written once by {@link StatementTransitionService}.
+     */
+    public StatementEntity findAggregateById(UUID id) throws StatementNotFoundException {
+        StatementEntity statementEntity = statementRepository.findAggregateById(id).orElse(null);
+        if (statementEntity == null) {
+            log.error("Statement was not found!");
+            throw new StatementNotFoundException("Could not find statement with UUID: " + id.toString());
+        }
+        return statementEntity;
     }
 
-    public Boolean isDenied(UUID id) throws StatementNotFoundException {
-        StatementEntity statementEntity = findById(id);
+    public Boolean isDenied(StatementEntity statementEntity) {
         return statementEntity.getStatus().equals(ApplicationStatus.CC_DENIED);
     }
 
-    @Transactional
-    public StatementEntity issueCredit(UUID id) throws StatementNotFoundException {
-        StatementEntity statementEntity = findById(id);
-
-        log.info("Updating Sign Date of the statement and its status.");
-        changeStatementStatus(statementEntity, ApplicationStatus.CREDIT_ISSUED);
+    /**
+     * Marks the statement as issued without saving it.
+     */
+    public void recordCreditIssued(StatementEntity statementEntity) {
+        recordStatus(statementEntity, ApplicationStatus.CREDIT_ISSUED);
         statementEntity.setSignDate(LocalDateTime.now());
-        return statementRepository.save(statementEntity);
-    }
-
-    @Transactional
-    public StatementEntity updateSesCode(UUID id, String SesCode) throws StatementNotFoundException {
-        StatementEntity statementEntity = findById(id);
-
-        statementEntity.setSesCode(SesCode);
-
-        log.info("Updating SES-code.");
-        return statementRepository.save(statementEntity);
+        log.info("Updated Sign Date of the statement and its status.");
     }
 
     @Transactional
@@ -78,47 +82,36 @@ public class StatementService {
         statementEntity.setClient(clientEntity);
         statementEntity.setCreationDate(LocalDateTime.now());
 
-        changeStatementStatus(statementEntity, ApplicationStatus.PREAPPROVAL);
+        recordStatus(statementEntity, ApplicationStatus.PREAPPROVAL);
 
         log.info("Created new statement with data from request.");
 
         return statementRepository.save(statementEntity);
     }
 
-    @Transactional
-    public void changeStatementStatus(StatementEntity statementEntity, ApplicationStatus status) {
+    /**
+     * Changes the status and appends it to the status history without saving the statement.
+     * The history is not loaded for that: the new record is inserted when the statement is saved.
+     */
+    public void recordStatus(StatementEntity statementEntity, ApplicationStatus status) {
 
         ApplicationStatus oldStatus = statementEntity.getStatus();
         if (statementEntity.getStatusHistory() == null) {
-            statementEntity.setStatusHistory(new ArrayList<StatusHistoryDto>());
+            statementEntity.setStatusHistory(new ArrayList<StatusHistoryEntity>());
         }
 
         statementEntity.setStatus(status);
-        statementEntity.getStatusHistory().add(StatusHistoryDto.builder()
-                        .status(status)
-                        .timestamp(LocalDateTime.now())
-                        .changeType(ChangeType.AUTOMATIC)
-                        .build());
-
-        statementRepository.save(statementEntity);
-        log.info("Changed statement status from {} to {}. Saved the statement.", oldStatus, status);
-    }
-
-    @Transactional
-    public StatementEntity setAppliedOffer(LoanOfferDto offer) throws StatementNotFoundException {
-        StatementEntity statementEntity = findById(offer.getStatementId());
-
-        statementEntity.setAppliedOffer(offer);
-        changeStatementStatus(statementEntity, ApplicationStatus.APPROVED);
+        statementEntity.getStatusHistory().add(new StatusHistoryEntity(null,
+                                                                       statementEntity,
+                                                                       status,
+                                                                       LocalDateTime.now(),
+                                                                       ChangeType.AUTOMATIC));
 
-        log.info("Set the applied offer, saving updated statement...");
-        return statementRepository.save(statementEntity);
+        log.info("Changed statement status from {} to {}.", oldStatus, status);
     }
 
-    public ScoringDataDto enrichScoringData(FinishRegistrationRequestDto finishingRequest, UUID statementId)
-                                                                                throws StatementNotFoundException {
-        StatementEntity statementEntity = findById(statementId);
-
+    public ScoringDataDto enrichScoringData(FinishRegistrationRequestDto finishingRequest,
+                                            StatementEntity statementEntity) {
         log.info("Creating ScoringDataDto...");
         return ScoringDataDto.builder()
                 .amount(statementEntity.getAppliedOffer().getRequestedAmount())
@@ -141,8 +134,7 @@ public class StatementService {
                 .build();
     }
 
-    public DocumentDataDto enrichDocumentData(UUID statementId) throws StatementNotFoundException {
-        StatementEntity statementEntity = findById(statementId);
+    public DocumentDataDto enrichDocumentData(StatementEntity statementEntity) {
         CreditEntity creditEntity = statementEntity.getCredit();
         ClientEntity clientEntity = statementEntity.getClient();
 
@@ -152,7 +144,7 @@ public class StatementService {
                 .monthlyPayment(creditEntity.getMonthlyPayment())
                 .rate(creditEntity.getRate())
                 .psk(creditEntity.getPsk())
-                .paymentSchedule(creditEntity.getPaymentSchedule())
+                .paymentSchedule(paymentScheduleService.getPaymentSchedule(creditEntity))
                 .isInsuranceEnabled(creditEntity.getIsInsuranceEnabled())
                 .isSalaryClient(creditEntity.getIsSalaryClient())
                 .build();
@@ -167,17 +159,49 @@ public class StatementService {
                 .build();
     }
 
-    @Transactional
-    public StatementEntity setCredit(UUID statementId, CreditEntity creditEntity) throws StatementNotFoundException {
-        StatementEntity statementEntity = findById(statementId);
-        statementEntity.setCredit(creditEntity);
-
-        log.info("Set the credit to the statement. Saving the statement...");
+    public List<PaymentScheduleElementDto> getPaymentSchedule(UUID statementId, int page, int size)
+                                                                throws StatementNotFoundException {
+        CreditEntity creditEntity = findById(statementId).getCredit();
+        if (creditEntity == null) {
+            throw new EntityNotFoundException("Statement " + statementId + " has no credit yet");
+        }
 
-        return statementRepository.save(statementEntity);
+        return paymentScheduleService.getPaymentSchedule(creditEntity, page, size);
     }
 
     public StatementDto createStatementDto(StatementEntity statementEntity) {
+        return createStatementDto(statementEntity, createStatusHistory(statementEntity));
+    }
+
+    /**
+     * DTOs of the statements, in the same order. Their status histories are read in one query instead of
+     * being loaded statement by statement, and the statements' history collections are left uninitialized.
+     */
+    public List<StatementDto> createStatementDtos(List<StatementEntity> statementEntities) {
+        if (statementEntities.isEmpty()) {
+            return List.of();
+        }
+
+        List<UUID> statementIds = statementEntities.stream()
+                .map(StatementEntity::getStatementId)
+                .toList();
+        Map<UUID, List<StatusHistoryDto>> statusHistories = new HashMap<>();
+        for (StatusHistoryRow row : statusHistoryRepository.findByStatementIds(statementIds)) {
+            statusHistories.computeIfAbsent(row.statementId(), statementId -> new ArrayList<>())
+                    .add(StatusHistoryDto.builder()
+                            .status(row.status())
+                            .timestamp(row.timestamp())
+                            .changeType(row.changeType())
+                            .build());
+        }
+
+        return statementEntities.stream()
+                .map(statementEntity -> createStatementDto(statementEntity,
+                        statusHistories.getOrDefault(statementEntity.getStatementId(), new ArrayList<>())))
+                .toList();
+    }
+
+    private StatementDto createStatementDto(StatementEntity statementEntity, List<StatusHistoryDto> statusHistory) {
         UUID clientId = statementEntity.getClient().getClientId();
         UUID creditId = null;
         if (statementEntity.getCredit() != null) {
@@ -193,11 +217,38 @@ public class StatementService {
                 .appliedOffer(statementEntity.getAppliedOffer())
                 .signDate(statementEntity.getSignDate())
                 .sesCode(statementEntity.getSesCode())
-                .statusHistory(statementEntity.getStatusHistory())
+                .statusHistory(statusHistory)
                 .build();
     }
 
-    public List<StatementDto> pullAllStatements() {
-        return statementRepository.findAll().stream().map(this::createStatementDto).toList();
+    private List<StatusHistoryDto> createStatusHistory(StatementEntity statementEntity) {
+        if (statementEntity.getStatusHistory() == null) {
+            return new ArrayList<>();
+        }
+
+        return statementEntity.getStatusHistory().stream()
+                .map(statusHistoryEntity -> StatusHistoryDto.builder()
+                        .status(statusHistoryEntity.getStatus())
+                        .timestamp(statusHistoryEntity.getTimestamp())
+                        .changeType(statusHistoryEntity.getChangeType())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * A page of statements matching the filter, ordered by creation date and id. The next page starts
+     * after the creation date and id of the last statement of this one.
+     *
+     * @throws InvalidCursorException if only one of {@code afterCreationDate} and {@code afterStatementId} is set
+     */
+    public List<StatementDto> findStatements(StatementFilter filter,
+                                             LocalDateTime afterCreationDate,
+                                             UUID afterStatementId,
+                                             int size) throws InvalidCursorException {
+        if ((afterCreationDate == null) != (afterStatementId == null)) {
+            throw new InvalidCursorException("afterCreationDate and afterStatementId must be set together");
+        }
+
+        return createStatementDtos(statementRepository.findPage(filter, afterCreationDate, afterStatementId, size));
     }
 }
@@ -0,0 +1,88 @@
+package ru.neoflex.msdeal.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import ru.neoflex.loanissuerlibrary.exception.StatementChangeBlocked;
+import ru.neoflex.loanissuerlibrary.exception.StatementNotFoundException;
+import ru.neoflex.msdeal.model.StatementEntity;
+import ru.neoflex.msdeal.repository.StatementRepository;
+
+import java.util.UUID;
+
+@Slf4j
+@Service
+public class StatementTransitionService {
+
+    private final StatementRepository statementRepository;
+    private final StatementService statementService;
+    private final PlatformTransactionManager transactionManager;
+    private final int maxAttempts;
+
+    public StatementTransitionService(StatementRepository statementRepository,
+                                      StatementService statementService,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${statement.transition.max-attempts:3}") int maxAttempts) {
+        this.statementRepository = statementRepository;
+        this.statementService = statementService;
+        this.transactionManager = transactionManager;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Applies the transition to the statement and saves the statement with its client and credit in one
+     * transaction. If another request has changed the statement in the meantime, the statement is loaded
+     * again and the transition is applied to the fresh state, up to {@code statement.transition.max-attempts} times.
+     *
+     * @throws OptimisticLockingFailureException if the statement is still changed concurrently after the last attempt
+     */
+    public StatementEntity apply(StatementEntity statementEntity, Transition transition)
+                                                            throws StatementChangeBlocked, StatementNotFoundException {
+        UUID statementId = statementEntity.getStatementId();
+        StatementEntity current = statementEntity;
+
+        for (int attempt = 1; ; ++attempt) {
+            try {
+                return applyOnce(current, transition);
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    log.error("Statement {} was changed concurrently {} times in a row, giving up.", statementId, attempt);
+                    throw e;
+                }
+
+                log.warn("Statement {} was changed concurrently, applying the transition again.", statementId);
+                // The rollback has cleared the persistence context, so this reads the committed state
+                current = statementService.findAggregateById(statementId);
+            }
+        }
+    }
+
+    private StatementEntity applyOnce(StatementEntity statementEntity, Transition transition)
+                                                                                    throws StatementChangeBlocked {
+        TransactionStatus transaction = transactionManager.getTransaction(TransactionDefinition.withDefaults());
+        try {
+            transition.apply(statementEntity);
+            StatementEntity savedStatement = statementRepository.saveAndFlush(statementEntity);
+            transactionManager.commit(transaction);
+            return savedStatement;
+        } catch (RuntimeException | StatementChangeBlocked e) {
+            if (!transaction.isCompleted()) {
+                transactionManager.rollback(transaction);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Changes of a statement, its client and credit that are saved together. Applied again to a freshly
+     * loaded statement after a conflict, so it must not depend on the state of a previous attempt.
+     */
+    @FunctionalInterface
+    public interface Transition {
+        void apply(StatementEntity statementEntity) throws StatementChangeBlocked;
+    }
+}
@@ -0,0 +1,46 @@
+package ru.neoflex.msdeal.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.ApplicationStatus;
+import ru.neoflex.msdeal.exception.InvalidPeriodException;
+import ru.neoflex.msdeal.repository.StatusCount;
+import ru.neoflex.msdeal.repository.StatusHistoryRepository;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Slf4j
+@Service
+public class StatusHistoryService {
+
+    private final StatusHistoryRepository statusHistoryRepository;
+
+    public StatusHistoryService(StatusHistoryRepository statusHistoryRepository) {
+        this.statusHistoryRepository = statusHistoryRepository;
+    }
+
+    /**
+     * Number of statements that got each status within [from, to), counted in one query.
+     *
+     * @throws InvalidPeriodException if {@code from} is after {@code to}
+     */
+    public Map<ApplicationStatus, Long> countStatementsByStatus(LocalDateTime from, LocalDateTime to)
+                                                                                throws InvalidPeriodException {
+        if (from.isAfter(to)) {
+            throw new InvalidPeriodException("from must not be after to");
+        }
+
+        Map<ApplicationStatus, Long> counts = new EnumMap<>(ApplicationStatus.class);
+        for (ApplicationStatus status : ApplicationStatus.values()) {
+            counts.put(status, 0L);
+        }
+        for (StatusCount statusCount : statusHistoryRepository.countStatementsByStatus(from, to)) {
+            counts.put(statusCount.status(), statusCount.statements());
+        }
+
+        log.info("Counted statements by status from {} to {}", from, to);
+        return counts;
+    }
+}
@@ -260,4 +260,26 @@ class DealControllerTest {
 
         verify(dealService, times(1)).formDocumentData(statementId);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAllStatementsRejectsPageSizeOutOfBounds() throws Exception {
+        mockMvc.perform(get("/deal/admin/statement").param("size", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/deal/admin/statement").param("size", "1001"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(dealService);
+    }
+
+    @Test
+    void getPaymentScheduleRejectsPageOutOfBounds() throws Exception {
+        String path = "/deal/admin/statement/" + UUID.randomUUID() + "/payment-schedule";
+
+        mockMvc.perform(get(path).param("page", "-1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get(path).param("size", "1001"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(dealService);
+    }
+}
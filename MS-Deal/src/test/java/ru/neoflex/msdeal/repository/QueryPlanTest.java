@@ -0,0 +1,263 @@
+package ru.neoflex.msdeal.repository;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import ru.neoflex.loanissuerlibrary.dto.PassportDto;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.ApplicationStatus;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.ChangeType;
+import ru.neoflex.msdeal.model.ClientEntity;
+import ru.neoflex.msdeal.model.StatementEntity;
+import ru.neoflex.msdeal.model.StatusHistoryEntity;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Calls every repository access path against an embedded PostgreSQL migrated with the application's
+ * changelogs, records the SQL Hibernate sends for it and runs EXPLAIN for each statement. Sequential
+ * scans are disabled for the session, so the planner only falls back to one when no index can serve
+ * the query.
+ * <p>
+ * The statements are prepared and explained with a generic plan, so the plan does not depend on the
+ * bound values. A new repository method needs a case here as well.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(QueryPlanTest.EmbeddedPostgresConfiguration.class)
+public class QueryPlanTest {
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private CreditRepository creditRepository;
+
+    @Autowired
+    private StatementRepository statementRepository;
+
+    @Autowired
+    private StatusHistoryRepository statusHistoryRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private RecordingStatementInspector statementInspector;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        // A couple of statements with history, so that lazy collections are actually loaded
+        for (int index = 0; index < 2; ++index) {
+            ClientEntity clientEntity = new ClientEntity();
+            clientEntity.setFirstName("John");
+            clientEntity.setLastName("Doe");
+            clientEntity.setBirthDate(LocalDate.of(1990, 1, 1));
+            clientEntity.setEmail("john" + index + "@doe.com");
+            clientEntity.setPassport(PassportDto.builder().series("1234").number("12345" + index).build());
+            entityManager.persist(clientEntity);
+
+            StatementEntity statementEntity = new StatementEntity();
+            statementEntity.setClient(clientEntity);
+            statementEntity.setStatus(ApplicationStatus.PREAPPROVAL);
+            statementEntity.setCreationDate(LocalDateTime.now());
+            StatusHistoryEntity statusHistoryEntity = new StatusHistoryEntity(null,
+                                                                              statementEntity,
+                                                                              ApplicationStatus.PREAPPROVAL,
+                                                                              statementEntity.getCreationDate(),
+                                                                              ChangeType.AUTOMATIC);
+            statementEntity.setStatusHistory(new ArrayList<>(List.of(statusHistoryEntity)));
+            entityManager.persist(statementEntity);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statementInspector.clear();
+    }
+
+    static Stream<Arguments> repositoryCalls() {
+        UUID id = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        StatementFilter noFilter = new StatementFilter(null, null, null, null);
+
+        return Stream.of(
+                Arguments.of("ClientRepository.findById",
+                        (RepositoryCall) test -> test.clientRepository.findById(id)),
+                Arguments.of("CreditRepository.findById",
+                        (RepositoryCall) test -> test.creditRepository.findById(id)),
+                Arguments.of("StatementRepository.findById",
+                        (RepositoryCall) test -> test.statementRepository.findById(id)),
+                Arguments.of("StatementRepository.findAggregateById",
+                        (RepositoryCall) test -> test.statementRepository.findAggregateById(id)),
+                Arguments.of("StatementListingRepository.findPage, first page",
+                        (RepositoryCall) test -> test.statementRepository.findPage(noFilter, null, null, 50)),
+                Arguments.of("StatementListingRepository.findPage, after cursor",
+                        (RepositoryCall) test -> test.statementRepository.findPage(noFilter, now, id, 50)),
+                Arguments.of("StatementListingRepository.findPage, by status",
+                        (RepositoryCall) test -> test.statementRepository.findPage(
+                                new StatementFilter(ApplicationStatus.APPROVED, null, null, null), null, null, 50)),
+                Arguments.of("StatementListingRepository.findPage, by creation period",
+                        (RepositoryCall) test -> test.statementRepository.findPage(
+                                new StatementFilter(null, now.minusDays(1), now, null), null, null, 50)),
+                Arguments.of("StatementListingRepository.findPage, by email",
+                        (RepositoryCall) test -> test.statementRepository.findPage(
+                                new StatementFilter(null, null, null, "john@doe.com"), null, null, 50)),
+                Arguments.of("StatementListingRepository.streamAll",
+                        (RepositoryCall) test -> {
+                            try (Stream<StatementEntity> statements = test.statementRepository.streamAll(noFilter, 500)) {
+                                statements.forEach(statement -> { });
+                            }
+                        }),
+                Arguments.of("StatusHistoryRepository.countStatementsByStatus",
+                        (RepositoryCall) test -> test.statusHistoryRepository.countStatementsByStatus(now.minusDays(1), now)),
+                Arguments.of("StatusHistoryRepository.findByStatementIds",
+                        (RepositoryCall) test -> test.statusHistoryRepository.findByStatementIds(List.of(id, id))),
+                Arguments.of("OutboxEventRepository.lockOldest",
+                        (RepositoryCall) test -> test.outboxEventRepository.lockOldest(100)),
+                Arguments.of("OutboxEventRepository.findOldestCreatedAt",
+                        (RepositoryCall) test -> test.outboxEventRepository.findOldestCreatedAt())
+        );
+    }
+
+    // Run by PostgreSQL itself when a client or credit row is deleted or its key is updated
+    static Stream<Arguments> foreignKeyLookups() {
+        return Stream.of(
+                Arguments.of("credit_statement by client (fk_statement_client)",
+                        "select s.statement_id from credit_statement s where s.client_id = ?"),
+                Arguments.of("credit_statement by credit (fk_statement_credit)",
+                        "select s.statement_id from credit_statement s where s.credit_id = ?")
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("repositoryCalls")
+    void repositoryQueryDoesNotScanWholeTable(String name, RepositoryCall call) throws SQLException {
+        call.run(this);
+        List<String> statements = statementInspector.statements();
+
+        assertFalse(statements.isEmpty(), name + " did not query the database");
+        for (String sql : statements) {
+            assertNoSequentialScan(name, sql);
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("foreignKeyLookups")
+    void foreignKeyLookupDoesNotScanWholeTable(String name, String sql) throws SQLException {
+        assertNoSequentialScan(name, sql);
+    }
+
+    private void assertNoSequentialScan(String name, String sql) throws SQLException {
+        List<String> plan = explain(sql);
+
+        assertTrue(plan.stream().noneMatch(line -> line.contains("Seq Scan")),
+                   name + " has a sequential scan:\n" + sql + "\n" + String.join("\n", plan));
+    }
+
+    private List<String> explain(String sql) throws SQLException {
+        StringBuilder numberedSql = new StringBuilder();
+        int parameters = 0;
+        for (char character : sql.toCharArray()) {
+            if (character == '?') {
+                numberedSql.append('$').append(++parameters);
+            } else {
+                numberedSql.append(character);
+            }
+        }
+        String arguments = parameters == 0 ? "" : "(" + String.join(", ", Collections.nCopies(parameters, "null")) + ")";
+
+        List<String> plan = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("set enable_seqscan = off");
+            statement.execute("set plan_cache_mode = force_generic_plan");
+            statement.execute("prepare query_plan_test as " + numberedSql);
+
+            try (ResultSet resultSet = statement.executeQuery("explain execute query_plan_test" + arguments)) {
+                while (resultSet.next()) {
+                    plan.add(resultSet.getString(1));
+                }
+            }
+        }
+        return plan;
+    }
+
+    @FunctionalInterface
+    interface RepositoryCall {
+        void run(QueryPlanTest test);
+    }
+
+    /**
+     * Records every SQL statement Hibernate prepares, in order.
+     */
+    static class RecordingStatementInspector implements StatementInspector {
+
+        private final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+
+        List<String> statements() {
+            return List.copyOf(statements);
+        }
+
+        void clear() {
+            statements.clear();
+        }
+    }
+
+    @TestConfiguration
+    static class EmbeddedPostgresConfiguration {
+
+        @Bean(destroyMethod = "close")
+        EmbeddedPostgres embeddedPostgres() throws IOException {
+            return EmbeddedPostgres.start();
+        }
+
+        @Bean
+        DataSource dataSource(EmbeddedPostgres embeddedPostgres) {
+            return embeddedPostgres.getPostgresDatabase();
+        }
+
+        @Bean
+        RecordingStatementInspector recordingStatementInspector() {
+            return new RecordingStatementInspector();
+        }
+
+        @Bean
+        HibernatePropertiesCustomizer statementInspectorCustomizer(RecordingStatementInspector statementInspector) {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementInspector);
+        }
+    }
+}
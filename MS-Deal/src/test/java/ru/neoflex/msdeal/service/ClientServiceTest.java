@@ -21,11 +21,10 @@ import ru.neoflex.msdeal.repository.ClientRepository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class ClientServiceTest {
@@ -101,31 +100,23 @@ class ClientServiceTest {
     }
 
     @Test
-    void enrichClientWithValidFinishRegistrationEnrichesClientCorrectly() {
+    void applyFinishRegistrationEnrichesClientWithoutSaving() {
         ClientEntity clientEntity = new ClientEntity();
-
-        when(clientRepository.findById(clientEntity.getClientId())).thenReturn(Optional.of(clientEntity));
-        when(clientRepository.save(any(ClientEntity.class))).thenReturn(clientEntity);
-
-        clientEntity.setGender(validFinishRegistration.getGender());
-        clientEntity.setMaritalStatus(validFinishRegistration.getMaritalStatus());
-        clientEntity.setDependentAmount(validFinishRegistration.getDependentAmount());
-        clientEntity.setAccountNumber(validFinishRegistration.getAccountNumber());
         clientEntity.setPassport(PassportDto.builder()
-                .issueBranch(validFinishRegistration.getPassportIssueBranch())
-                .issueDate(validFinishRegistration.getPassportIssueDate())
+                .series("1234")
+                .number("123456")
                 .build());
-        clientEntity.setEmployment(validFinishRegistration.getEmployment());
 
-        ClientEntity savedClientEntity = clientService.enrichClient(validFinishRegistration, clientEntity.getClientId());
+        clientService.applyFinishRegistration(validFinishRegistration, clientEntity);
 
-        assertEquals(validFinishRegistration.getGender(), savedClientEntity.getGender());
-        assertEquals(validFinishRegistration.getMaritalStatus(), savedClientEntity.getMaritalStatus());
-        assertEquals(validFinishRegistration.getDependentAmount(), savedClientEntity.getDependentAmount());
-        assertEquals(validFinishRegistration.getAccountNumber(), savedClientEntity.getAccountNumber());
-        assertEquals(validFinishRegistration.getPassportIssueBranch(), savedClientEntity.getPassport().getIssueBranch());
-        assertEquals(validFinishRegistration.getPassportIssueDate(), savedClientEntity.getPassport().getIssueDate());
-        assertEquals(validFinishRegistration.getEmployment(), savedClientEntity.getEmployment());
+        assertEquals(validFinishRegistration.getGender(), clientEntity.getGender());
+        assertEquals(validFinishRegistration.getMaritalStatus(), clientEntity.getMaritalStatus());
+        assertEquals(validFinishRegistration.getDependentAmount(), clientEntity.getDependentAmount());
+        assertEquals(validFinishRegistration.getAccountNumber(), clientEntity.getAccountNumber());
+        assertEquals(validFinishRegistration.getPassportIssueBranch(), clientEntity.getPassport().getIssueBranch());
+        assertEquals(validFinishRegistration.getPassportIssueDate(), clientEntity.getPassport().getIssueDate());
+        assertEquals(validFinishRegistration.getEmployment(), clientEntity.getEmployment());
+        verify(clientRepository, never()).save(any(ClientEntity.class));
     }
 
 
@@ -13,6 +13,7 @@ import org.springframework.web.client.RestClientResponseException;
 import ru.neoflex.loanissuerlibrary.dto.*;
 import ru.neoflex.loanissuerlibrary.dto.enumeration.*;
 import ru.neoflex.loanissuerlibrary.exception.CreditDeniedException;
+import ru.neoflex.loanissuerlibrary.exception.SesCodeVerificationFailed;
 import ru.neoflex.loanissuerlibrary.exception.StatementChangeBlocked;
 import ru.neoflex.msdeal.model.ClientEntity;
 import ru.neoflex.msdeal.model.CreditEntity;
@@ -35,6 +36,9 @@ public class DealServiceTest {
     @Mock
     private CreditService creditService;
 
+    @Mock
+    private PaymentScheduleService paymentScheduleService;
+
     @Mock
     private StatementService statementService;
 
@@ -47,6 +51,9 @@ public class DealServiceTest {
     @Mock
     private UtilitiesService utilitiesService;
 
+    @Mock
+    private StatementTransitionService statementTransitionService;
+
     @InjectMocks
     private DealService dealService;
 
@@ -57,7 +64,6 @@ public class DealServiceTest {
     private ScoringDataDto validScoringData;
     private LoanOfferDto validLoanOffer;
     private FinishRegistrationRequestDto validFinishRegistration;
-    private CreditDto validCredit;
     private List<LoanOfferDto> validOfferList;
 
     @BeforeEach
@@ -123,24 +129,6 @@ public class DealServiceTest {
                 .accountNumber("12315124")
                 .build();
 
-        validCredit = CreditDto.builder()
-                .amount(new BigDecimal("100000"))
-                .term(18)
-                .monthlyPayment(new BigDecimal("8419.22"))
-                .rate(new BigDecimal("0.20"))
-                .psk(new BigDecimal("151545.89"))
-                .isInsuranceEnabled(true)
-                .isSalaryClient(false)
-                .paymentSchedule(List.of(PaymentScheduleElementDto.builder()
-                        .number(1)
-                        .date(LocalDate.now().plusMonths(1))
-                        .totalPayment(new BigDecimal("8419.22"))
-                        .interestPayment(new BigDecimal("2166.67"))
-                        .debtPayment(new BigDecimal("6252.55"))
-                        .remainingDebt(new BigDecimal("123747.45"))
-                        .build()))
-                .build();
-
         validOfferList = List.of(
                 LoanOfferDto.builder()
                         .statementId(UUID.fromString("be444f33-f8a2-478c-b4eb-6069f9076d5d"))
@@ -214,14 +202,16 @@ public class DealServiceTest {
         statementEntity.setClient(new ClientEntity());
         statementEntity.getClient().setEmail(testEmail);
 
-        when(statementService.findClientByStatementId(validLoanOffer.getStatementId())).thenReturn(statementEntity.getClient());
-        when(statementService.setAppliedOffer(validLoanOffer)).thenReturn(new StatementEntity());
+        when(statementService.findAggregateById(validLoanOffer.getStatementId())).thenReturn(statementEntity);
+        applyTransitionsTo(statementEntity);
         doNothing().when(kafkaSenderService).sendFinishRegistrationMessage(validLoanOffer.getStatementId(), testEmail);
 
         dealService.applyOffer(validLoanOffer);
 
-        verify(statementService, times(1)).findClientByStatementId(validLoanOffer.getStatementId());
-        verify(statementService, times(1)).setAppliedOffer(validLoanOffer);
+        assertEquals(validLoanOffer, statementEntity.getAppliedOffer());
+        verify(statementService, times(1)).findAggregateById(validLoanOffer.getStatementId());
+        verify(statementService, times(1)).recordStatus(statementEntity, ApplicationStatus.APPROVED);
+        verify(statementTransitionService, times(1)).apply(eq(statementEntity), any());
         verify(kafkaSenderService, times(1)).sendFinishRegistrationMessage(validLoanOffer.getStatementId(),
                                                                                                     testEmail);
     }
@@ -238,29 +228,28 @@ public class DealServiceTest {
         clientEntity.setClientId(clientId);
         clientEntity.setEmail("test@test.com");
         CreditEntity creditEntity = new CreditEntity();
-        statementEntity.setCredit(creditEntity);
         statementEntity.setClient(clientEntity);
-
-        when(statementService.isDenied(statementId)).thenReturn(false);
-        when(statementService.findById(statementId)).thenReturn(statementEntity);
-        when(clientService.enrichClient(validFinishRegistration, clientId)).thenReturn(clientEntity);
-        when(statementService.enrichScoringData(validFinishRegistration, statementId)).thenReturn(validScoringData);
-        when(restClientService.getCredit(validScoringData)).thenReturn(validCredit);
-        when(creditService.saveCredit(validCredit)).thenReturn(creditEntity);
-        when(statementService.setCredit(statementId, creditEntity)).thenReturn(statementEntity);
-        doNothing().when(statementService).changeStatementStatus(statementEntity, ApplicationStatus.CC_APPROVED);
+        PaymentScheduleWriter paymentScheduleWriter = mock(PaymentScheduleWriter.class);
+
+        when(statementService.findAggregateById(statementId)).thenReturn(statementEntity);
+        when(statementService.isDenied(statementEntity)).thenReturn(false);
+        when(statementService.enrichScoringData(validFinishRegistration, statementEntity)).thenReturn(validScoringData);
+        when(restClientService.getCredit(eq(validScoringData), any())).thenReturn(paymentScheduleWriter);
+        when(creditService.createCredit(paymentScheduleWriter)).thenReturn(creditEntity);
+        applyTransitionsTo(statementEntity);
         doNothing().when(kafkaSenderService).sendCreateDocumentsMessage(statementId, statementEntity.getClient().getEmail());
 
         dealService.registrationCalculation(validFinishRegistration, statementId);
 
-        verify(clientService, times(1)).enrichClient(validFinishRegistration, clientId);
-        verify(statementService, times(1)).enrichScoringData(validFinishRegistration, statementId);
-        verify(restClientService, times(1)).getCredit(validScoringData);
-        verify(statementService, never()).changeStatementStatus(statementEntity, ApplicationStatus.CC_DENIED);
+        assertSame(creditEntity, statementEntity.getCredit());
+        verify(clientService, times(1)).applyFinishRegistration(validFinishRegistration, clientEntity);
+        verify(statementService, times(1)).enrichScoringData(validFinishRegistration, statementEntity);
+        verify(restClientService, times(1)).getCredit(eq(validScoringData), any());
+        verify(statementService, never()).recordStatus(statementEntity, ApplicationStatus.CC_DENIED);
         verify(kafkaSenderService, never()).sendStatementDeniedMessage(statementId, statementEntity.getClient().getEmail());
-        verify(creditService, times(1)).saveCredit(validCredit);
-        verify(statementService, times(1)).changeStatementStatus(statementEntity,
-                                                                                         ApplicationStatus.CC_APPROVED);
+        verify(creditService, times(1)).createCredit(paymentScheduleWriter);
+        verify(statementService, times(1)).recordStatus(statementEntity, ApplicationStatus.CC_APPROVED);
+        verify(statementTransitionService, times(1)).apply(eq(statementEntity), any());
         verify(kafkaSenderService, times(1)).sendCreateDocumentsMessage(statementId,
                                                                                 statementEntity.getClient().getEmail());
     }
@@ -275,20 +264,17 @@ public class DealServiceTest {
         ClientEntity clientEntity = new ClientEntity();
         clientEntity.setClientId(clientId);
         clientEntity.setEmail("test@test.com");
-        CreditEntity creditEntity = new CreditEntity();
-        statementEntity.setCredit(creditEntity);
         statementEntity.setClient(clientEntity);
 
         RestClientResponseException e = new RestClientResponseException("msg", 403, "status", HttpHeaders.EMPTY, null, null);
 
         validScoringData.getEmployment().setEmploymentStatus(EmploymentStatus.NOT_EMPLOYED);
 
-        when(statementService.isDenied(statementId)).thenReturn(false);
-        when(statementService.findById(statementId)).thenReturn(statementEntity);
-        when(clientService.enrichClient(validFinishRegistration, clientId)).thenReturn(clientEntity);
-        when(statementService.enrichScoringData(validFinishRegistration, statementId)).thenReturn(validScoringData);
-        when(restClientService.getCredit(validScoringData)).thenThrow(e);
-        doNothing().when(statementService).changeStatementStatus(statementEntity, ApplicationStatus.CC_DENIED);
+        when(statementService.findAggregateById(statementId)).thenReturn(statementEntity);
+        when(statementService.isDenied(statementEntity)).thenReturn(false);
+        when(statementService.enrichScoringData(validFinishRegistration, statementEntity)).thenReturn(validScoringData);
+        when(restClientService.getCredit(eq(validScoringData), any())).thenThrow(e);
+        applyTransitionsTo(statementEntity);
         doNothing().when(kafkaSenderService).sendStatementDeniedMessage(statementId,
                                                                         statementEntity.getClient().getEmail());
 
@@ -296,11 +282,13 @@ public class DealServiceTest {
 
         assertThrows(RestClientResponseException.class,
                      ()->dealService.registrationCalculation(validFinishRegistration, statementId));
-        verify(clientService, times(1)).enrichClient(validFinishRegistration, clientId);
-        verify(statementService, times(1)).enrichScoringData(validFinishRegistration, statementId);
-        verify(restClientService, times(1)).getCredit(validScoringData);
-        verify(creditService, never()).saveCredit(any(CreditDto.class));
-        verify(statementService, never()).setCredit(statementId, creditEntity);
+        assertNull(statementEntity.getCredit());
+        verify(clientService, times(1)).applyFinishRegistration(validFinishRegistration, clientEntity);
+        verify(statementService, times(1)).enrichScoringData(validFinishRegistration, statementEntity);
+        verify(restClientService, times(1)).getCredit(eq(validScoringData), any());
+        verify(statementService, times(1)).recordStatus(statementEntity, ApplicationStatus.CC_DENIED);
+        verify(statementTransitionService, times(1)).apply(eq(statementEntity), any());
+        verify(creditService, never()).createCredit(any());
         verify(kafkaSenderService, never()).sendCreateDocumentsMessage(statementId,
                                                                        statementEntity.getClient().getEmail());
     }
@@ -315,19 +303,18 @@ public class DealServiceTest {
         clientEntity.setEmail("test@test.com");
         statementEntity.setClient(clientEntity);
 
-        when(statementService.isDenied(statementId)).thenReturn(false);
-        when(statementService.findById(statementId)).thenReturn(statementEntity);
-        when(statementService.findClientByStatementId(statementId)).thenReturn(clientEntity);
-        doNothing().when(statementService).changeStatementStatus(statementEntity, ApplicationStatus.PREPARE_DOCUMENTS);
+        when(statementService.findAggregateById(statementId)).thenReturn(statementEntity);
+        when(statementService.isDenied(statementEntity)).thenReturn(false);
+        applyTransitionsTo(statementEntity);
         doNothing().when(kafkaSenderService).sendSendDocumentsMessage(statementId,
                                                                         statementEntity.getClient().getEmail());
 
         dealService.sendDocumentEventAndStatus(statementId);
 
-        verify(statementService, times(1)).isDenied(statementId);
-        verify(statementService, times(1)).findClientByStatementId(statementId);
-        verify(statementService, times(1)).changeStatementStatus(statementEntity,
-                                                                                         ApplicationStatus.PREPARE_DOCUMENTS);
+        verify(statementService, times(1)).findAggregateById(statementId);
+        verify(statementService, times(1)).isDenied(statementEntity);
+        verify(statementService, times(1)).recordStatus(statementEntity, ApplicationStatus.PREPARE_DOCUMENTS);
+        verify(statementTransitionService, times(1)).apply(eq(statementEntity), any());
         verify(kafkaSenderService, times(1)).sendSendDocumentsMessage(statementId,
                                                                                 statementEntity.getClient().getEmail());
     }
@@ -342,21 +329,20 @@ public class DealServiceTest {
         statementEntity.setClient(clientEntity);
         String testSes = "123456";
 
-        when(statementService.isDenied(statementId)).thenReturn(false);
-        when(statementService.findClientByStatementId(statementId)).thenReturn(clientEntity);
+        when(statementService.findAggregateById(statementId)).thenReturn(statementEntity);
+        when(statementService.isDenied(statementEntity)).thenReturn(false);
         when(utilitiesService.generateSesCode()).thenReturn(testSes);
-        when(statementService.updateSesCode(statementId, testSes)).thenReturn(statementEntity);
-        when(statementService.getSesByStatementId(statementId)).thenReturn(testSes);
+        applyTransitionsTo(statementEntity);
         doNothing().when(kafkaSenderService).sendSendSesMessage(statementId,
                                                                 testSes,
                                                                 statementEntity.getClient().getEmail());
 
         dealService.sesUpdateEvent(statementId);
 
-        verify(statementService, times(1)).isDenied(statementId);
-        verify(statementService, times(1)).findClientByStatementId(statementId);
+        assertEquals(testSes, statementEntity.getSesCode());
+        verify(statementService, times(1)).findAggregateById(statementId);
         verify(utilitiesService, times(1)).generateSesCode();
-        verify(statementService, times(1)).updateSesCode(statementId, testSes);
+        verify(statementTransitionService, times(1)).apply(eq(statementEntity), any());
         verify(kafkaSenderService, times(1)).sendSendSesMessage(statementId,
                                                                                         testSes,
                                                                                         statementEntity.getClient().getEmail());
@@ -371,46 +357,66 @@ public class DealServiceTest {
         clientEntity.setEmail("test@test.com");
         statementEntity.setClient(clientEntity);
         CreditEntity creditEntity = new CreditEntity();
+        creditEntity.setCreditStatus(CreditStatus.CALCULATED);
         statementEntity.setCredit(creditEntity);
 
         String testSes = "123456";
         statementEntity.setSesCode(testSes);
 
-        when(statementService.isDenied(statementId)).thenReturn(false);
-        when(statementService.findById(statementId)).thenReturn(statementEntity);
-        when(creditService.updateCreditStatus(statementEntity.getCredit().getCreditId())).thenReturn(creditEntity);
-        doNothing().when(statementService).changeStatementStatus(statementEntity, ApplicationStatus.DOCUMENT_SIGNED);
-        when(statementService.issueCredit(statementId)).thenReturn(statementEntity);
+        when(statementService.findAggregateById(statementId)).thenReturn(statementEntity);
+        when(statementService.isDenied(statementEntity)).thenReturn(false);
+        applyTransitionsTo(statementEntity);
         doNothing().when(kafkaSenderService).sendCreditIssuedMessage(statementId, statementEntity.getClient().getEmail());
 
         dealService.sesCodeVerificationEvent(statementId, testSes);
 
-        verify(statementService, times(1)).isDenied(statementId);
-        verify(statementService, times(1)).findById(statementId);
-        verify(creditService, times(1)).updateCreditStatus(statementEntity.getCredit().getCreditId());
-        verify(statementService, times(1)).changeStatementStatus(statementEntity,
-                                                                                         ApplicationStatus.DOCUMENT_SIGNED);
-        verify(statementService, times(1)).issueCredit(statementId);
+        assertEquals(CreditStatus.ISSUED, creditEntity.getCreditStatus());
+        verify(statementService, times(1)).findAggregateById(statementId);
+        verify(statementService, never()).findById(statementId);
+        verify(statementService, times(1)).recordStatus(statementEntity, ApplicationStatus.DOCUMENT_SIGNED);
+        verify(statementService, times(1)).recordCreditIssued(statementEntity);
+        verify(statementTransitionService, times(1)).apply(eq(statementEntity), any());
         verify(kafkaSenderService, times(1)).sendCreditIssuedMessage(statementId,
                                                                                          statementEntity.getClient().getEmail());
     }
 
+    @Test
+    void sesCodeVerificationWithWrongCodeDeniesTheStatement() throws Exception {
+        UUID statementId = UUID.randomUUID();
+        StatementEntity statementEntity = new StatementEntity();
+        statementEntity.setStatementId(statementId);
+        ClientEntity clientEntity = new ClientEntity();
+        clientEntity.setEmail("test@test.com");
+        statementEntity.setClient(clientEntity);
+        statementEntity.setSesCode("123456");
+
+        when(statementService.findAggregateById(statementId)).thenReturn(statementEntity);
+        when(statementService.isDenied(statementEntity)).thenReturn(false);
+        applyTransitionsTo(statementEntity);
+
+        assertThrows(SesCodeVerificationFailed.class, () -> dealService.sesCodeVerificationEvent(statementId, "654321"));
+
+        verify(statementService, times(1)).recordStatus(statementEntity, ApplicationStatus.CC_DENIED);
+        verify(statementTransitionService, times(1)).apply(eq(statementEntity), any());
+        verify(kafkaSenderService, times(1)).sendStatementDeniedMessage(statementId, clientEntity.getEmail());
+        verify(statementService, never()).recordCreditIssued(statementEntity);
+    }
+
     @Test
     void documentCreatedStatusChangeCallsValidMethods() throws Exception {
         UUID statementId = UUID.randomUUID();
         StatementEntity statementEntity = new StatementEntity();
         statementEntity.setStatementId(statementId);
 
-        when(statementService.isDenied(statementId)).thenReturn(false);
-        when(statementService.findById(statementId)).thenReturn(statementEntity);
-        doNothing().when(statementService).changeStatementStatus(statementEntity, ApplicationStatus.DOCUMENT_CREATED);
+        when(statementService.findAggregateById(statementId)).thenReturn(statementEntity);
+        when(statementService.isDenied(statementEntity)).thenReturn(false);
+        applyTransitionsTo(statementEntity);
 
         dealService.documentCreatedStatusChange(statementId);
 
-        verify(statementService, times(1)).isDenied(statementId);
-        verify(statementService, times(1)).findById(statementId);
-        verify(statementService, times(1)).changeStatementStatus(statementEntity,
-                                                                                         ApplicationStatus.DOCUMENT_CREATED);
+        verify(statementService, times(1)).findAggregateById(statementId);
+        verify(statementService, times(1)).recordStatus(statementEntity, ApplicationStatus.DOCUMENT_CREATED);
+        verify(statementTransitionService, times(1)).apply(eq(statementEntity), any());
     }
 
     @Test
@@ -419,27 +425,51 @@ public class DealServiceTest {
         StatementEntity statementEntity = new StatementEntity();
         statementEntity.setStatementId(statementId);
 
-        when(statementService.isDenied(statementId)).thenReturn(false);
-        when(statementService.enrichDocumentData(statementId)).thenReturn(new DocumentDataDto());
+        when(statementService.findAggregateById(statementId)).thenReturn(statementEntity);
+        when(statementService.isDenied(statementEntity)).thenReturn(false);
+        when(statementService.enrichDocumentData(statementEntity)).thenReturn(new DocumentDataDto());
 
         DocumentDataDto documentDataDto = dealService.formDocumentData(statementId);
         assertNotNull(documentDataDto);
     }
 
     @Test
-    void throwIfStatementIsDeniedThrowsStatementChangeBlocked() throws Exception {
+    void changesToDeniedStatementAreBlockedAfterASingleLoad() throws Exception {
         UUID statementId = UUID.randomUUID();
-        when(statementService.isDenied(statementId)).thenReturn(true);
+        StatementEntity statementEntity = new StatementEntity();
+        statementEntity.setStatementId(statementId);
 
-        assertThrowsExactly(StatementChangeBlocked.class, () -> dealService.throwIfStatementIsDenied(statementId));
+        when(statementService.findAggregateById(statementId)).thenReturn(statementEntity);
+        when(statementService.isDenied(statementEntity)).thenReturn(true);
+        applyTransitionsTo(statementEntity);
+
+        assertThrowsExactly(StatementChangeBlocked.class, () -> dealService.sendDocumentEventAndStatus(statementId));
+        verify(statementService, times(1)).findAggregateById(statementId);
+        verify(statementService, never()).recordStatus(any(StatementEntity.class), any(ApplicationStatus.class));
+        verify(kafkaSenderService, never()).sendSendDocumentsMessage(any(UUID.class), anyString());
+    }
+
+    private void applyTransitionsTo(StatementEntity statementEntity) throws Exception {
+        when(statementTransitionService.apply(eq(statementEntity), any())).thenAnswer(invocation -> {
+            invocation.<StatementTransitionService.Transition>getArgument(1).apply(statementEntity);
+            return statementEntity;
+        });
     }
 
     @Test
-    void throwIfStatementIsDeniedDoesNotThrowIfStatementIsCorrect() throws Exception {
-        UUID statementId = UUID.randomUUID();
+    void throwIfStatementIsDeniedThrowsStatementChangeBlocked() {
+        StatementEntity statementEntity = new StatementEntity();
+        when(statementService.isDenied(statementEntity)).thenReturn(true);
+
+        assertThrowsExactly(StatementChangeBlocked.class, () -> dealService.throwIfStatementIsDenied(statementEntity));
+    }
+
+    @Test
+    void throwIfStatementIsDeniedDoesNotThrowIfStatementIsCorrect() {
+        StatementEntity statementEntity = new StatementEntity();
 
-        when(statementService.isDenied(statementId)).thenReturn(false);
+        when(statementService.isDenied(statementEntity)).thenReturn(false);
 
-        assertDoesNotThrow(() -> dealService.throwIfStatementIsDenied(statementId));
+        assertDoesNotThrow(() -> dealService.throwIfStatementIsDenied(statementEntity));
     }
 }
\ No newline at end of file
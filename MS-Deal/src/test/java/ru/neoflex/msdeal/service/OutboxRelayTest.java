@@ -0,0 +1,162 @@
+package ru.neoflex.msdeal.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import ru.neoflex.loanissuerlibrary.dto.EmailMessageDto;
+import ru.neoflex.msdeal.model.OutboxEventEntity;
+import ru.neoflex.msdeal.repository.OutboxEventRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private KafkaTemplate<String, EmailMessageDto> emailKafkaTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TransactionStatus transactionStatus;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        outboxRelay = new OutboxRelay(outboxEventRepository,
+                                      emailKafkaTemplate,
+                                      new KafkaSendMetrics(meterRegistry),
+                                      transactionManager,
+                                      2,
+                                      Duration.ofSeconds(1));
+
+        when(transactionManager.getTransaction(any(TransactionDefinition.class))).thenReturn(transactionStatus);
+    }
+
+    @Test
+    void relaySendsAndDeletesBatchesUntilOutboxIsDrained() {
+        List<OutboxEventEntity> firstBatch = List.of(createEvent("send-ses"), createEvent("credit-issued"));
+        List<OutboxEventEntity> secondBatch = List.of(createEvent("send-documents"));
+
+        when(outboxEventRepository.lockOldest(2)).thenReturn(firstBatch, secondBatch);
+        when(emailKafkaTemplate.send(anyString(), anyString(), any(EmailMessageDto.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        outboxRelay.relay();
+
+        for (OutboxEventEntity event : concat(firstBatch, secondBatch)) {
+            verify(emailKafkaTemplate, times(1)).send(event.getTopic(), event.getMessageKey(), event.getPayload());
+        }
+        verify(outboxEventRepository, times(1)).deleteAllInBatch(firstBatch);
+        verify(outboxEventRepository, times(1)).deleteAllInBatch(secondBatch);
+        verify(transactionManager, times(2)).commit(transactionStatus);
+        assertEquals(3, outboxRelay.getSentEvents());
+        assertEquals(1, meterRegistry.get("deal.kafka.send").tag("topic", "send-ses").tag("outcome", "success")
+                .timer().count());
+    }
+
+    @Test
+    void relayKeepsBatchWhenBrokerFails() {
+        List<OutboxEventEntity> batch = List.of(createEvent("send-ses"));
+
+        when(outboxEventRepository.lockOldest(2)).thenReturn(batch);
+        when(emailKafkaTemplate.send(anyString(), anyString(), any(EmailMessageDto.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker unavailable")));
+
+        assertDoesNotThrow(() -> outboxRelay.relay());
+
+        verify(outboxEventRepository, never()).deleteAllInBatch(any());
+        verify(transactionManager, times(1)).rollback(transactionStatus);
+        assertEquals(0, outboxRelay.getSentEvents());
+        assertEquals(1, meterRegistry.get("deal.kafka.send.failures").tag("topic", "send-ses").counter().count());
+    }
+
+    @Test
+    void sendTimeIncludesTheBlockingPartOfSend() {
+        List<OutboxEventEntity> batch = List.of(createEvent("send-ses"));
+
+        when(outboxEventRepository.lockOldest(2)).thenReturn(batch);
+        when(emailKafkaTemplate.send(anyString(), anyString(), any(EmailMessageDto.class))).thenAnswer(invocation -> {
+            Thread.sleep(50);
+            return CompletableFuture.completedFuture(mock(SendResult.class));
+        });
+
+        outboxRelay.relay();
+
+        assertTrue(meterRegistry.get("deal.kafka.send").tag("topic", "send-ses").tag("outcome", "success")
+                .timer().totalTime(TimeUnit.MILLISECONDS) >= 50);
+    }
+
+    @Test
+    void sendThatFailsBeforeReturningIsRecordedAsFailure() {
+        List<OutboxEventEntity> batch = List.of(createEvent("send-ses"));
+
+        when(outboxEventRepository.lockOldest(2)).thenReturn(batch);
+        when(emailKafkaTemplate.send(anyString(), anyString(), any(EmailMessageDto.class)))
+                .thenThrow(new KafkaException("metadata not available"));
+
+        assertDoesNotThrow(() -> outboxRelay.relay());
+
+        verify(outboxEventRepository, never()).deleteAllInBatch(any());
+        verify(transactionManager, times(1)).rollback(transactionStatus);
+        assertEquals(1, meterRegistry.get("deal.kafka.send").tag("topic", "send-ses").tag("outcome", "failure")
+                .timer().count());
+        assertEquals(1, meterRegistry.get("deal.kafka.send.failures").tag("topic", "send-ses").counter().count());
+    }
+
+    @Test
+    void relayReportsLagOfOldestPendingEvent() {
+        when(outboxEventRepository.lockOldest(2)).thenReturn(List.of());
+        when(outboxEventRepository.findOldestCreatedAt()).thenReturn(LocalDateTime.now().minusMinutes(1));
+        when(outboxEventRepository.count()).thenReturn(5L);
+
+        outboxRelay.relay();
+
+        assertTrue(outboxRelay.getLagSeconds() >= 60);
+        assertEquals(5, outboxRelay.getPendingEvents());
+        verify(emailKafkaTemplate, never()).send(anyString(), anyString(), any(EmailMessageDto.class));
+    }
+
+    private OutboxEventEntity createEvent(String topic) {
+        UUID statementId = UUID.randomUUID();
+        EmailMessageDto message = EmailMessageDto.builder()
+                .statementId(statementId)
+                .address("test@test.com")
+                .build();
+
+        return new OutboxEventEntity(UUID.randomUUID(), topic, statementId.toString(), message, LocalDateTime.now());
+    }
+
+    private List<OutboxEventEntity> concat(List<OutboxEventEntity> first, List<OutboxEventEntity> second) {
+        List<OutboxEventEntity> events = new ArrayList<>(first);
+        events.addAll(second);
+        return events;
+    }
+}
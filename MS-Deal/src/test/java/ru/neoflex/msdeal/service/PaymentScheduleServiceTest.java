@@ -0,0 +1,200 @@
+package ru.neoflex.msdeal.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.neoflex.loanissuerlibrary.dto.CreditDto;
+import ru.neoflex.loanissuerlibrary.dto.PaymentScheduleElementDto;
+import ru.neoflex.msdeal.model.CreditEntity;
+import ru.neoflex.msdeal.model.PaymentScheduleVersion;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PaymentScheduleServiceTest {
+
+    private static final BigDecimal CLIENT_INSURANCE_RATE = new BigDecimal("0.15");
+
+    private PaymentScheduleService paymentScheduleService;
+
+    private CreditDto validCredit;
+    private CreditEntity creditEntity;
+
+    @BeforeEach
+    void setUp() {
+        paymentScheduleService = new PaymentScheduleService(true);
+
+        // Schedule returned by MS-Calculator for 100000 with insurance for a salary client at 25% for 6 months
+        validCredit = CreditDto.builder()
+                .amount(new BigDecimal("100000.00"))
+                .term(6)
+                .monthlyPayment(new BigDecimal("20588.24"))
+                .rate(new BigDecimal("0.25"))
+                .psk(new BigDecimal("123529.41"))
+                .isInsuranceEnabled(true)
+                .isSalaryClient(true)
+                .paymentSchedule(List.of(
+                        element(1, "2025-02-01", "2395.83", "18192.41", "96807.59"),
+                        element(2, "2025-03-01", "2016.82", "18571.42", "78236.17"),
+                        element(3, "2025-04-01", "1629.92", "18958.32", "59277.85"),
+                        element(4, "2025-05-01", "1234.96", "19353.29", "39924.56"),
+                        element(5, "2025-06-01", "831.76", "19756.48", "20168.08"),
+                        element(6, "2025-07-01", "420.17", "20168.08", "0.00")))
+                .build();
+
+        creditEntity = new CreditEntity();
+        creditEntity.setAmount(validCredit.getAmount());
+        creditEntity.setTerm(validCredit.getTerm());
+        creditEntity.setRate(validCredit.getRate());
+    }
+
+    @Test
+    void compactPaymentScheduleKeepsOnlyScheduleParameters() {
+        compact();
+
+        assertNull(creditEntity.getPaymentSchedule());
+        assertEquals(PaymentScheduleVersion.ANNUITY_V1, creditEntity.getScheduleVersion());
+        assertEquals(0, new BigDecimal("115000").compareTo(creditEntity.getSchedulePrincipal()));
+        assertEquals(LocalDate.of(2025, 2, 1), creditEntity.getFirstPaymentDate());
+    }
+
+    @Test
+    void compactedPaymentScheduleIsRecalculatedExactly() {
+        compact();
+
+        assertEquals(validCredit.getPaymentSchedule(), paymentScheduleService.getPaymentSchedule(creditEntity));
+    }
+
+    @Test
+    void compactedPaymentScheduleIsServedPageByPage() {
+        compact();
+
+        assertEquals(validCredit.getPaymentSchedule().subList(2, 4),
+                     paymentScheduleService.getPaymentSchedule(creditEntity, 1, 2));
+        assertEquals(validCredit.getPaymentSchedule().subList(4, 6),
+                     paymentScheduleService.getPaymentSchedule(creditEntity, 1, 4));
+        assertTrue(paymentScheduleService.getPaymentSchedule(creditEntity, 3, 2).isEmpty());
+    }
+
+    @Test
+    void lastPageOfLongScheduleMatchesFullRecalculation() {
+        List<PaymentScheduleElementDto> paymentSchedule = paymentScheduleService.getPaymentSchedule(createLongCredit());
+
+        assertEquals(360, paymentSchedule.size());
+        assertEquals(paymentSchedule.subList(350, 360),
+                     paymentScheduleService.getPaymentSchedule(createLongCredit(), 35, 10));
+        assertEquals(0, BigDecimal.ZERO.compareTo(paymentSchedule.get(359).getRemainingDebt()));
+    }
+
+    @Test
+    void longScheduleIsComparedChunkByChunk() {
+        List<PaymentScheduleElementDto> paymentSchedule = paymentScheduleService.getPaymentSchedule(createLongCredit());
+
+        write(createLongCreditDto(), BigDecimal.ZERO, paymentSchedule);
+
+        assertEquals(PaymentScheduleVersion.ANNUITY_V1, creditEntity.getScheduleVersion());
+        assertEquals(0, new BigDecimal("3000000").compareTo(creditEntity.getSchedulePrincipal()));
+        assertNull(creditEntity.getPaymentSchedule());
+    }
+
+    @Test
+    void longScheduleThatDiffersLateIsStoredWhole() {
+        List<PaymentScheduleElementDto> paymentSchedule =
+                new ArrayList<>(paymentScheduleService.getPaymentSchedule(createLongCredit()));
+        PaymentScheduleElementDto changed = paymentSchedule.get(199);
+        paymentSchedule.set(199, PaymentScheduleElementDto.builder()
+                .number(changed.getNumber())
+                .date(changed.getDate())
+                .totalPayment(changed.getTotalPayment())
+                .interestPayment(changed.getInterestPayment())
+                .debtPayment(changed.getDebtPayment())
+                .remainingDebt(changed.getRemainingDebt().add(new BigDecimal("0.01")))
+                .build());
+
+        write(createLongCreditDto(), BigDecimal.ZERO, paymentSchedule);
+
+        assertEquals(PaymentScheduleVersion.STORED, creditEntity.getScheduleVersion());
+        assertEquals(paymentSchedule, creditEntity.getPaymentSchedule());
+    }
+
+    @Test
+    void scheduleThatCannotBeRecalculatedStaysStored() {
+        List<PaymentScheduleElementDto> paymentSchedule = new ArrayList<>(validCredit.getPaymentSchedule());
+        paymentSchedule.set(3, element(4, "2025-05-01", "1234.96", "19353.29", "39924.57"));
+        validCredit.setPaymentSchedule(paymentSchedule);
+
+        compact();
+
+        assertEquals(PaymentScheduleVersion.STORED, creditEntity.getScheduleVersion());
+        assertEquals(paymentSchedule, creditEntity.getPaymentSchedule());
+        assertEquals(paymentSchedule.subList(2, 4), paymentScheduleService.getPaymentSchedule(creditEntity, 1, 2));
+    }
+
+    @Test
+    void scheduleWithoutInsuranceRateStaysStored() {
+        write(validCredit, null, validCredit.getPaymentSchedule());
+
+        assertEquals(PaymentScheduleVersion.STORED, creditEntity.getScheduleVersion());
+        assertEquals(validCredit.getPaymentSchedule(), creditEntity.getPaymentSchedule());
+    }
+
+    @Test
+    void compactingCanBeTurnedOff() {
+        paymentScheduleService = new PaymentScheduleService(false);
+
+        compact();
+
+        assertEquals(PaymentScheduleVersion.STORED, creditEntity.getScheduleVersion());
+        assertEquals(validCredit.getPaymentSchedule(), creditEntity.getPaymentSchedule());
+    }
+
+    private void compact() {
+        write(validCredit, CLIENT_INSURANCE_RATE, validCredit.getPaymentSchedule());
+    }
+
+    private void write(CreditDto creditDto,
+                       BigDecimal insuranceRate,
+                       List<PaymentScheduleElementDto> paymentSchedule) {
+        PaymentScheduleWriter paymentScheduleWriter = paymentScheduleService.createWriter(creditDto, insuranceRate);
+        paymentSchedule.forEach(paymentScheduleWriter);
+        paymentScheduleWriter.applyTo(creditEntity);
+    }
+
+    private CreditEntity createLongCredit() {
+        CreditEntity longCredit = new CreditEntity();
+        longCredit.setTerm(360);
+        longCredit.setRate(new BigDecimal("0.16"));
+        longCredit.setSchedulePrincipal(new BigDecimal("3000000"));
+        longCredit.setFirstPaymentDate(LocalDate.of(2025, 2, 1));
+        longCredit.setScheduleVersion(PaymentScheduleVersion.ANNUITY_V1);
+        return longCredit;
+    }
+
+    private CreditDto createLongCreditDto() {
+        return CreditDto.builder()
+                .amount(new BigDecimal("3000000"))
+                .term(360)
+                .rate(new BigDecimal("0.16"))
+                .isInsuranceEnabled(false)
+                .isSalaryClient(false)
+                .build();
+    }
+
+    private PaymentScheduleElementDto element(int number,
+                                              String date,
+                                              String interestPayment,
+                                              String debtPayment,
+                                              String remainingDebt) {
+        return PaymentScheduleElementDto.builder()
+                .number(number)
+                .date(LocalDate.parse(date))
+                .totalPayment(new BigDecimal("20588.24"))
+                .interestPayment(new BigDecimal(interestPayment))
+                .debtPayment(new BigDecimal(debtPayment))
+                .remainingDebt(new BigDecimal(remainingDebt))
+                .build();
+    }
+}
@@ -11,8 +11,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientResponseException;
 import ru.neoflex.loanissuerlibrary.dto.*;
@@ -24,10 +28,16 @@ import ru.neoflex.loanissuerlibrary.exception.CreditDeniedException;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 import static org.mockito.Mockito.when;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -46,6 +56,10 @@ public class RestClientServiceTest {
     private List<LoanOfferDto> validOfferList;
     private CreditDto validCredit;
 
+    private CreditDto receivedCredit;
+    private BigDecimal receivedInsuranceRate;
+    private final List<PaymentScheduleElementDto> receivedSchedule = new ArrayList<>();
+
     @BeforeEach
     void setUp() throws JsonProcessingException {
         ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
@@ -191,10 +205,11 @@ public class RestClientServiceTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .body(validScoringData)
                 .retrieve()
-                .body(CreditDto.class))
+                .toEntity(CreditDto.class))
                 .thenThrow(new RestClientResponseException("msg", HttpStatus.FORBIDDEN, "statustxt", null, null, null));
 
-        assertThrows(RestClientResponseException.class, () -> restClientService.getCredit(validScoringData));
+        assertThrows(RestClientResponseException.class,
+                     () -> restClientService.getCredit(validScoringData, this::receive));
     }
 
     @Test
@@ -206,9 +221,91 @@ public class RestClientServiceTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .body(validScoringData)
                 .retrieve()
-                .body(CreditDto.class))
+                .toEntity(CreditDto.class))
                 .thenThrow(RestClientResponseException.class);
 
-        assertThrows(RestClientResponseException.class, () -> restClientService.getCredit(validScoringData));
+        assertThrows(RestClientResponseException.class,
+                     () -> restClientService.getCredit(validScoringData, this::receive));
+    }
+
+    @Test
+    void getCreditInStreamingModeReadsCreditAndPaymentScheduleFromNdjson() throws JsonProcessingException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        RestClient.Builder restClientBuilder = RestClient.builder();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restClientBuilder).build();
+        RestClientService streamingRestClientService = new RestClientService(restClientBuilder.build(),
+                                                                             objectMapper,
+                                                                             "localhost",
+                                                                             "8080",
+                                                                             true);
+
+        List<PaymentScheduleElementDto> paymentSchedule = validCredit.getPaymentSchedule();
+        validCredit.setPaymentSchedule(null);
+        validCredit.setTerm(paymentSchedule.size());
+        String body = objectMapper.writeValueAsString(validCredit) + "\n" +
+                      objectMapper.writeValueAsString(paymentSchedule.get(0)) + "\n";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Insurance-Rate", "0");
+
+        server.expect(requestTo("http://localhost:8080/calculator/calc"))
+                .andExpect(header("Accept", "application/x-ndjson"))
+                .andRespond(withSuccess(body, MediaType.parseMediaType("application/x-ndjson")).headers(headers));
+
+        streamingRestClientService.getCredit(validScoringData, this::receive);
+
+        assertEquals(validCredit.getMonthlyPayment(), receivedCredit.getMonthlyPayment());
+        assertEquals(BigDecimal.ZERO, receivedInsuranceRate);
+        assertNull(receivedCredit.getPaymentSchedule());
+        assertEquals(paymentSchedule, receivedSchedule);
+        server.verify();
+    }
+
+    @Test
+    void getCreditInStreamingModeRejectsPaymentScheduleShorterThanTerm() throws JsonProcessingException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        RestClient.Builder restClientBuilder = RestClient.builder();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restClientBuilder).build();
+        RestClientService streamingRestClientService = new RestClientService(restClientBuilder.build(),
+                                                                             objectMapper,
+                                                                             "localhost",
+                                                                             "8080",
+                                                                             true);
+
+        // A stream cut off after the first element of an 18 month schedule
+        List<PaymentScheduleElementDto> paymentSchedule = validCredit.getPaymentSchedule();
+        validCredit.setPaymentSchedule(null);
+        String body = objectMapper.writeValueAsString(validCredit) + "\n" +
+                      objectMapper.writeValueAsString(paymentSchedule.get(0)) + "\n";
+
+        server.expect(requestTo("http://localhost:8080/calculator/calc"))
+                .andRespond(withSuccess(body, MediaType.parseMediaType("application/x-ndjson")));
+
+        assertThrows(ResourceAccessException.class,
+                     () -> streamingRestClientService.getCredit(validScoringData, this::receive));
+    }
+
+    @Test
+    void getCreditInStreamingModeThrowsRestClientResponseExceptionWith403() {
+        RestClient.Builder restClientBuilder = RestClient.builder();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restClientBuilder).build();
+        RestClientService streamingRestClientService = new RestClientService(restClientBuilder.build(),
+                                                                             Jackson2ObjectMapperBuilder.json().build(),
+                                                                             "localhost",
+                                                                             "8080",
+                                                                             true);
+
+        server.expect(requestTo("http://localhost:8080/calculator/calc"))
+                .andRespond(withStatus(HttpStatus.FORBIDDEN));
+
+        RestClientResponseException exception = assertThrows(RestClientResponseException.class,
+                () -> streamingRestClientService.getCredit(validScoringData, this::receive));
+        assertEquals(HttpStatus.FORBIDDEN, exception.getStatusCode());
+    }
+
+    private Consumer<PaymentScheduleElementDto> receive(CreditDto creditDto, BigDecimal insuranceRate) {
+        receivedCredit = creditDto;
+        receivedInsuranceRate = insuranceRate;
+        return receivedSchedule::add;
     }
 }
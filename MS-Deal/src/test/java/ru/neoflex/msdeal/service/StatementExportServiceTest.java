@@ -0,0 +1,96 @@
+package ru.neoflex.msdeal.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.neoflex.loanissuerlibrary.dto.StatementDto;
+import ru.neoflex.msdeal.model.StatementEntity;
+import ru.neoflex.msdeal.repository.StatementFilter;
+import ru.neoflex.msdeal.repository.StatementRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StatementExportServiceTest {
+
+    @Mock
+    private StatementRepository statementRepository;
+
+    @Mock
+    private StatementService statementService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private StatementExportService statementExportService;
+
+    private StatementFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        statementExportService = new StatementExportService(statementRepository,
+                                                            statementService,
+                                                            entityManager,
+                                                            new ObjectMapper().findAndRegisterModules(),
+                                                            2);
+        filter = new StatementFilter(null, null, null, null);
+    }
+
+    @Test
+    void exportStatementsWritesOneLinePerStatement() throws Exception {
+        List<StatementEntity> statements = new ArrayList<>();
+        for (int i = 0; i < 5; ++i) {
+            StatementEntity statementEntity = new StatementEntity();
+            statementEntity.setStatementId(UUID.randomUUID());
+            statements.add(statementEntity);
+        }
+
+        when(statementRepository.streamAll(filter, 2)).thenReturn(statements.stream());
+        List<Integer> chunkSizes = new ArrayList<>();
+        when(statementService.createStatementDtos(anyList())).thenAnswer(invocation -> {
+            List<StatementEntity> chunk = invocation.getArgument(0);
+            chunkSizes.add(chunk.size());
+            return chunk.stream()
+                    .map(statementEntity -> StatementDto.builder().statementId(statementEntity.getStatementId()).build())
+                    .toList();
+        });
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        long count = statementExportService.exportStatements(filter, outputStream);
+
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(5, count);
+        assertEquals(5, lines.length);
+        for (int i = 0; i < lines.length; ++i) {
+            assertTrue(lines[i].contains(statements.get(i).getStatementId().toString()));
+        }
+        // Histories are read once per chunk of fetchSize statements, the last chunk holds the rest
+        assertEquals(List.of(2, 2, 1), chunkSizes);
+        verify(entityManager, times(3)).clear();
+    }
+
+    @Test
+    void exportStatementsWritesNothingWhenNoStatementMatches() throws Exception {
+        when(statementRepository.streamAll(filter, 2)).thenReturn(Stream.empty());
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        assertEquals(0, statementExportService.exportStatements(filter, outputStream));
+        assertEquals(0, outputStream.size());
+        verify(entityManager, never()).clear();
+        verify(statementService, never()).createStatementDtos(anyList());
+    }
+}
@@ -1,6 +1,5 @@
 package ru.neoflex.msdeal.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,10 +9,14 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import ru.neoflex.loanissuerlibrary.dto.*;
 import ru.neoflex.loanissuerlibrary.dto.enumeration.*;
 import ru.neoflex.loanissuerlibrary.exception.StatementNotFoundException;
+import ru.neoflex.msdeal.exception.InvalidCursorException;
 import ru.neoflex.msdeal.model.ClientEntity;
 import ru.neoflex.msdeal.model.CreditEntity;
 import ru.neoflex.msdeal.model.StatementEntity;
+import ru.neoflex.msdeal.repository.StatementFilter;
 import ru.neoflex.msdeal.repository.StatementRepository;
+import ru.neoflex.msdeal.repository.StatusHistoryRepository;
+import ru.neoflex.msdeal.repository.StatusHistoryRow;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -32,6 +35,12 @@ public class StatementServiceTest {
     @Mock
     private StatementRepository statementRepository;
 
+    @Mock
+    private StatusHistoryRepository statusHistoryRepository;
+
+    @Mock
+    private PaymentScheduleService paymentScheduleService;
+
     @InjectMocks
     private StatementService statementService;
 
@@ -67,22 +76,38 @@ public class StatementServiceTest {
     }
 
     @Test
-    void changeStatementStatusChangesTheStatus() {
+    void findAggregateByIdLoadsTheStatementWithOneQuery() throws Exception {
+        UUID statementId = UUID.randomUUID();
         StatementEntity statementEntity = new StatementEntity();
-        statementEntity.setStatus(null);
-        statementEntity.setStatusHistory(null);
+        statementEntity.setStatementId(statementId);
 
-        ApplicationStatus status = ApplicationStatus.PREAPPROVAL;
+        when(statementRepository.findAggregateById(statementId)).thenReturn(Optional.of(statementEntity));
 
-        when(statementRepository.save(statementEntity)).thenReturn(statementEntity);
+        assertSame(statementEntity, statementService.findAggregateById(statementId));
+        verify(statementRepository, times(1)).findAggregateById(statementId);
+        verify(statementRepository, never()).findById(any(UUID.class));
+    }
+
+    @Test
+    void findAggregateByIdThrowsIfStatementDoesNotExist() {
+        UUID statementId = UUID.randomUUID();
+
+        when(statementRepository.findAggregateById(statementId)).thenReturn(Optional.empty());
 
-        statementService.changeStatementStatus(statementEntity, status);
+        assertThrowsExactly(StatementNotFoundException.class, () -> statementService.findAggregateById(statementId));
+    }
 
-        assertNotNull(statementEntity.getStatusHistory());
+    @Test
+    void recordStatusChangesTheStatusWithoutSaving() {
+        StatementEntity statementEntity = new StatementEntity();
+
+        statementService.recordStatus(statementEntity, ApplicationStatus.APPROVED);
+
+        assertEquals(ApplicationStatus.APPROVED, statementEntity.getStatus());
         assertEquals(1, statementEntity.getStatusHistory().size());
-        assertEquals(status, statementEntity.getStatusHistory().get(0).getStatus());
-        assertEquals(status, statementEntity.getStatus());
-        verify(statementRepository, times(1)).save(statementEntity);
+        assertSame(statementEntity, statementEntity.getStatusHistory().get(0).getStatement());
+        assertEquals(ChangeType.AUTOMATIC, statementEntity.getStatusHistory().get(0).getChangeType());
+        verify(statementRepository, never()).save(any(StatementEntity.class));
     }
 
     @Test
@@ -101,41 +126,11 @@ public class StatementServiceTest {
         assertEquals(ApplicationStatus.PREAPPROVAL, savedStatement.getStatus());
         assertEquals(1, savedStatement.getStatusHistory().size());
         assertEquals(ApplicationStatus.PREAPPROVAL, savedStatement.getStatusHistory().get(0).getStatus());
-        verify(statementRepository, times(2)).save(any(StatementEntity.class));
+        verify(statementRepository, times(1)).save(any(StatementEntity.class));
     }
 
     @Test
-    void setAppliedOfferSetsTheOffer() throws JsonProcessingException, StatementNotFoundException {
-
-        StatementEntity statementEntity = new StatementEntity();
-        statementEntity.setStatementId(UUID.fromString("0467dde7-f431-43aa-aab4-d7c4f56cc365"));
-
-        LoanOfferDto offer = LoanOfferDto.builder()
-                .statementId(UUID.fromString("0467dde7-f431-43aa-aab4-d7c4f56cc365"))
-                .requestedAmount(new BigDecimal("100000"))
-                .totalAmount(new BigDecimal("154941.65"))
-                .term(18)
-                .monthlyPayment(new BigDecimal("8607.87"))
-                .rate(new BigDecimal("0.23"))
-                .isInsuranceEnabled(true)
-                .isSalaryClient(false)
-                .build();
-
-        when(statementRepository.save(any(StatementEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(statementRepository.findById(statementEntity.getStatementId())).thenReturn(Optional.of(statementEntity));
-
-        StatementEntity savedStatement = statementService.setAppliedOffer(offer);
-
-        assertEquals(offer, savedStatement.getAppliedOffer());
-        assertEquals(ApplicationStatus.APPROVED, statementEntity.getStatus());
-        assertEquals(1, statementEntity.getStatusHistory().size());
-        assertEquals(ApplicationStatus.APPROVED, statementEntity.getStatusHistory().get(0).getStatus());
-        verify(statementRepository, times(2)).save(any(StatementEntity.class));
-        verify(statementRepository, times(1)).findById(statementEntity.getStatementId());
-    }
-
-    @Test
-    void enrichScoringDataReturnsCorrectScoringDataDto() throws StatementNotFoundException {
+    void enrichScoringDataReturnsCorrectScoringDataDto() {
 
         LoanOfferDto appliedOffer = LoanOfferDto.builder()
                 .requestedAmount(BigDecimal.valueOf(100000))
@@ -177,9 +172,7 @@ public class StatementServiceTest {
                 .accountNumber("1234567890")
                 .build();
 
-        when(statementRepository.findById(statementEntity.getStatementId())).thenReturn(Optional.of(statementEntity));
-
-        ScoringDataDto returnedScoringData = statementService.enrichScoringData(finishingRequest, statementEntity.getStatementId());
+        ScoringDataDto returnedScoringData = statementService.enrichScoringData(finishingRequest, statementEntity);
 
         assertNotNull(returnedScoringData);
         assertEquals(appliedOffer.getRequestedAmount(), returnedScoringData.getAmount());
@@ -199,90 +192,19 @@ public class StatementServiceTest {
         assertEquals(finishingRequest.getAccountNumber(), returnedScoringData.getAccountNumber());
         assertEquals(appliedOffer.getIsInsuranceEnabled(), returnedScoringData.getIsInsuranceEnabled());
         assertEquals(appliedOffer.getIsSalaryClient(), returnedScoringData.getIsSalaryClient());
-
-        verify(statementRepository, times(1)).findById(statementEntity.getStatementId());
-    }
-
-    @Test
-    void setCreditSetsTheCredit() throws StatementNotFoundException {
-
-        StatementEntity statementEntity = new StatementEntity();
-        CreditEntity creditEntity = new CreditEntity();
-
-        when(statementRepository.findById(statementEntity.getStatementId())).thenReturn(Optional.of(statementEntity));
-        when(statementRepository.save(any(StatementEntity.class))).thenReturn(statementEntity);
-
-        StatementEntity savedStatement = statementService.setCredit(statementEntity.getStatementId(), creditEntity);
-
-        assertNotNull(savedStatement.getCredit());
-        assertEquals(creditEntity.getCreditId(), savedStatement.getCredit().getCreditId());
-    }
-
-    @Test
-    void IssueCreditCallsValidMethods() throws Exception {
-        UUID statementId = UUID.randomUUID();
-        StatementEntity statementEntity = new StatementEntity();
-        statementEntity.setStatementId(statementId);
-
-        when(statementRepository.findById(statementId)).thenReturn(Optional.of(statementEntity));
-        when(statementRepository.save(any(StatementEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
-
-        StatementEntity result = statementService.issueCredit(statementId);
-
-        assertNotNull(result);
-        assertEquals(statementEntity.getStatementId(), result.getStatementId());
-        assertEquals(ApplicationStatus.CREDIT_ISSUED, result.getStatus());
-        assertNotNull(result.getSignDate());
-        verify(statementRepository, times(1)).findById(statementId);
-        verify(statementRepository, times(2)).save(any(StatementEntity.class));
     }
 
     @Test
-    void updateSesCodeSavesTheCode() throws Exception {
-        UUID statementId = UUID.randomUUID();
+    void isDeniedChecksIfDenied() {
         StatementEntity statementEntity = new StatementEntity();
-        statementEntity.setStatementId(statementId);
-
-        when(statementRepository.findById(statementId)).thenReturn(Optional.of(statementEntity));
-        when(statementRepository.save(any(StatementEntity.class))).thenAnswer(invocation -> invocation.getArgument(0));
-
-        statementService.updateSesCode(statementId, "123456");
-
-        verify(statementRepository, times(1)).findById(statementId);
-        verify(statementRepository, times(1)).save(statementEntity);
-    }
-
-    @Test
-    void isDeniedChecksIfDenied() throws Exception {
-        UUID statementId = UUID.randomUUID();
-        StatementEntity statementEntity = new StatementEntity();
-        statementEntity.setStatementId(statementId);
         statementEntity.setStatus(ApplicationStatus.CC_DENIED);
 
-        when(statementRepository.findById(statementEntity.getStatementId())).thenReturn(Optional.of(statementEntity));
-
-        assertEquals(true, statementService.isDenied(statementEntity.getStatementId()));
-    }
-
-    @Test
-    void getSesByStatementIdReturnsSesCode() throws Exception {
-        UUID statementId = UUID.randomUUID();
-        StatementEntity statementEntity = new StatementEntity();
-        statementEntity.setStatementId(statementId);
-
-        String testSes = "123456";
-        statementEntity.setSesCode(testSes);
-
-        when(statementRepository.findById(statementId)).thenReturn(Optional.of(statementEntity));
-
-        assertEquals(testSes, statementService.getSesByStatementId(statementId));
+        assertEquals(true, statementService.isDenied(statementEntity));
     }
 
     @Test
-    void enrichDocumentReturnsValidDocumentData() throws Exception {
-        UUID statementId = UUID.randomUUID();
+    void enrichDocumentReturnsValidDocumentData() {
         StatementEntity statementEntity = new StatementEntity();
-        statementEntity.setStatementId(statementId);
 
         ClientEntity clientEntity = new ClientEntity();
         clientEntity.setFirstName("John");
@@ -314,9 +236,9 @@ public class StatementServiceTest {
         creditEntity.setIsSalaryClient(true);
         statementEntity.setCredit(creditEntity);
 
-        when(statementRepository.findById(statementId)).thenReturn(Optional.of(statementEntity));
+        when(paymentScheduleService.getPaymentSchedule(creditEntity)).thenReturn(List.of(element));
 
-        DocumentDataDto result = statementService.enrichDocumentData(statementId);
+        DocumentDataDto result = statementService.enrichDocumentData(statementEntity);
 
         assertNotNull(result);
         assertEquals(creditDto.getAmount(), result.getCredit().getAmount());
@@ -331,4 +253,52 @@ public class StatementServiceTest {
         assertEquals("M.", result.getMiddleName());
         assertEquals(LocalDate.of(1970, 1, 1), result.getBirthdate());
     }
+
+    @Test
+    void findStatementsMapsThePageAfterTheCursor() throws Exception {
+        StatementFilter filter = new StatementFilter(ApplicationStatus.APPROVED, null, null, "John@Doe.com");
+        LocalDateTime afterCreationDate = LocalDateTime.of(2025, 1, 1, 12, 0);
+        UUID afterStatementId = UUID.randomUUID();
+
+        StatementEntity statementEntity = new StatementEntity();
+        statementEntity.setStatementId(UUID.randomUUID());
+        statementEntity.setClient(new ClientEntity());
+        statementEntity.setStatus(ApplicationStatus.APPROVED);
+
+        StatementEntity statementWithoutHistory = new StatementEntity();
+        statementWithoutHistory.setStatementId(UUID.randomUUID());
+        statementWithoutHistory.setClient(new ClientEntity());
+        statementWithoutHistory.setStatus(ApplicationStatus.PREAPPROVAL);
+
+        when(statementRepository.findPage(filter, afterCreationDate, afterStatementId, 10))
+                .thenReturn(List.of(statementEntity, statementWithoutHistory));
+        when(statusHistoryRepository.findByStatementIds(
+                List.of(statementEntity.getStatementId(), statementWithoutHistory.getStatementId())))
+                .thenReturn(List.of(
+                        new StatusHistoryRow(statementEntity.getStatementId(), ApplicationStatus.PREAPPROVAL,
+                                             afterCreationDate, ChangeType.AUTOMATIC),
+                        new StatusHistoryRow(statementEntity.getStatementId(), ApplicationStatus.APPROVED,
+                                             afterCreationDate.plusMinutes(1), ChangeType.AUTOMATIC)));
+
+        List<StatementDto> statements = statementService.findStatements(filter, afterCreationDate, afterStatementId, 10);
+
+        assertEquals(2, statements.size());
+        assertEquals(statementEntity.getStatementId(), statements.get(0).getStatementId());
+        assertEquals(List.of(ApplicationStatus.PREAPPROVAL, ApplicationStatus.APPROVED),
+                     statements.get(0).getStatusHistory().stream().map(StatusHistoryDto::getStatus).toList());
+        assertEquals(statementWithoutHistory.getStatementId(), statements.get(1).getStatementId());
+        assertTrue(statements.get(1).getStatusHistory().isEmpty());
+        verify(statusHistoryRepository, times(1)).findByStatementIds(any());
+    }
+
+    @Test
+    void findStatementsRejectsHalfSetCursor() {
+        StatementFilter filter = new StatementFilter(null, null, null, null);
+
+        assertThrows(InvalidCursorException.class,
+                     () -> statementService.findStatements(filter, LocalDateTime.now(), null, 10));
+        assertThrows(InvalidCursorException.class,
+                     () -> statementService.findStatements(filter, null, UUID.randomUUID(), 10));
+        verify(statementRepository, never()).findPage(any(), any(), any(), anyInt());
+    }
 }
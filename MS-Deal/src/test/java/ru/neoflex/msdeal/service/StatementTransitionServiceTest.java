@@ -0,0 +1,115 @@
+package ru.neoflex.msdeal.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.ApplicationStatus;
+import ru.neoflex.loanissuerlibrary.exception.StatementChangeBlocked;
+import ru.neoflex.msdeal.model.StatementEntity;
+import ru.neoflex.msdeal.repository.StatementRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StatementTransitionServiceTest {
+
+    @Mock
+    private StatementRepository statementRepository;
+
+    @Mock
+    private StatementService statementService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TransactionStatus transactionStatus;
+
+    private StatementTransitionService statementTransitionService;
+
+    private UUID statementId;
+    private StatementEntity statementEntity;
+
+    @BeforeEach
+    void setUp() {
+        statementTransitionService = new StatementTransitionService(statementRepository,
+                                                                    statementService,
+                                                                    transactionManager,
+                                                                    3);
+
+        statementId = UUID.randomUUID();
+        statementEntity = new StatementEntity();
+        statementEntity.setStatementId(statementId);
+
+        when(transactionManager.getTransaction(any(TransactionDefinition.class))).thenReturn(transactionStatus);
+    }
+
+    @Test
+    void applySavesTheStatementOnceInOneTransaction() throws Exception {
+        when(statementRepository.saveAndFlush(statementEntity)).thenReturn(statementEntity);
+
+        StatementEntity result = statementTransitionService.apply(statementEntity,
+                statement -> statement.setStatus(ApplicationStatus.APPROVED));
+
+        assertEquals(ApplicationStatus.APPROVED, result.getStatus());
+        verify(statementRepository, times(1)).saveAndFlush(statementEntity);
+        verify(transactionManager, times(1)).commit(transactionStatus);
+        verify(transactionManager, never()).rollback(transactionStatus);
+        verify(statementService, never()).findAggregateById(statementId);
+    }
+
+    @Test
+    void applyRetriesOnFreshStatementAfterConflict() throws Exception {
+        StatementEntity freshStatement = new StatementEntity();
+        freshStatement.setStatementId(statementId);
+        List<StatementEntity> transitioned = new ArrayList<>();
+
+        when(statementRepository.saveAndFlush(statementEntity))
+                .thenThrow(new OptimisticLockingFailureException("conflict"));
+        when(statementService.findAggregateById(statementId)).thenReturn(freshStatement);
+        when(statementRepository.saveAndFlush(freshStatement)).thenReturn(freshStatement);
+
+        StatementEntity result = statementTransitionService.apply(statementEntity, transitioned::add);
+
+        assertSame(freshStatement, result);
+        assertEquals(List.of(statementEntity, freshStatement), transitioned);
+        verify(transactionManager, times(1)).rollback(transactionStatus);
+        verify(transactionManager, times(1)).commit(transactionStatus);
+    }
+
+    @Test
+    void applyGivesUpAfterMaxAttempts() throws Exception {
+        when(statementRepository.saveAndFlush(statementEntity))
+                .thenThrow(new OptimisticLockingFailureException("conflict"));
+        when(statementService.findAggregateById(statementId)).thenReturn(statementEntity);
+
+        assertThrows(OptimisticLockingFailureException.class,
+                     () -> statementTransitionService.apply(statementEntity, statement -> {}));
+
+        verify(statementRepository, times(3)).saveAndFlush(statementEntity);
+        verify(transactionManager, times(3)).rollback(transactionStatus);
+        verify(transactionManager, never()).commit(transactionStatus);
+    }
+
+    @Test
+    void applyRollsBackBlockedTransitionWithoutSaving() {
+        assertThrowsExactly(StatementChangeBlocked.class,
+                            () -> statementTransitionService.apply(statementEntity, statement -> {
+                                throw new StatementChangeBlocked("Statement had been denied earlier!");
+                            }));
+
+        verify(statementRepository, never()).saveAndFlush(any(StatementEntity.class));
+        verify(transactionManager, times(1)).rollback(transactionStatus);
+    }
+}
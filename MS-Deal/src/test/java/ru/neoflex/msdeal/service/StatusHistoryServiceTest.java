@@ -0,0 +1,55 @@
+package ru.neoflex.msdeal.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.ApplicationStatus;
+import ru.neoflex.msdeal.exception.InvalidPeriodException;
+import ru.neoflex.msdeal.repository.StatusCount;
+import ru.neoflex.msdeal.repository.StatusHistoryRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StatusHistoryServiceTest {
+
+    @Mock
+    private StatusHistoryRepository statusHistoryRepository;
+
+    @InjectMocks
+    private StatusHistoryService statusHistoryService;
+
+    @Test
+    void countStatementsByStatusCountsEveryStatusInOneQuery() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2025, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+
+        when(statusHistoryRepository.countStatementsByStatus(from, to))
+                .thenReturn(List.of(new StatusCount(ApplicationStatus.CC_DENIED, 7L),
+                                    new StatusCount(ApplicationStatus.PREAPPROVAL, 12L)));
+
+        Map<ApplicationStatus, Long> counts = statusHistoryService.countStatementsByStatus(from, to);
+
+        assertEquals(ApplicationStatus.values().length, counts.size());
+        assertEquals(7L, counts.get(ApplicationStatus.CC_DENIED));
+        assertEquals(12L, counts.get(ApplicationStatus.PREAPPROVAL));
+        assertEquals(0L, counts.get(ApplicationStatus.DOCUMENT_SIGNED));
+        verify(statusHistoryRepository, times(1)).countStatementsByStatus(from, to);
+    }
+
+    @Test
+    void countStatementsByStatusRejectsReversedPeriod() {
+        LocalDateTime from = LocalDateTime.of(2025, 1, 2, 0, 0);
+
+        assertThrows(InvalidPeriodException.class,
+                     () -> statusHistoryService.countStatementsByStatus(from, from.minusDays(1)));
+        verifyNoInteractions(statusHistoryRepository);
+    }
+}
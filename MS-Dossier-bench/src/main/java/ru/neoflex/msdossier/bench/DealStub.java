@@ -0,0 +1,114 @@
+package ru.neoflex.msdossier.bench;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.StringJoiner;
+import java.util.concurrent.Executors;
+
+/**
+ * Stand-in for the two MS-Deal endpoints MS-Dossier calls for send-documents events, on a free local port.
+ * Every statement gets the same document data, with a payment schedule of {@code payments} elements.
+ */
+class DealStub implements AutoCloseable {
+
+    private final HttpServer server;
+    private final byte[] documentData;
+
+    DealStub(int payments) throws IOException {
+        this.documentData = createDocumentData(payments).getBytes(StandardCharsets.UTF_8);
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        // GET /deal/document/{statementId}/data
+        server.createContext("/deal/document", this::sendDocumentData);
+        // PUT /deal/admin/statement/{statementId}/status
+        server.createContext("/deal/admin/statement", this::acceptStatus);
+        server.start();
+    }
+
+    int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void sendDocumentData(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            exchange.getRequestBody().readAllBytes();
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, documentData.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(documentData);
+            }
+        }
+    }
+
+    private void acceptStatus(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, -1);
+        }
+    }
+
+    private String createDocumentData(int payments) {
+        BigDecimal amount = BigDecimal.valueOf(300_000);
+        BigDecimal debtPayment = amount.divide(BigDecimal.valueOf(payments), 2, RoundingMode.HALF_EVEN);
+        BigDecimal interestPayment = new BigDecimal("2500.00");
+        LocalDate today = LocalDate.now();
+
+        StringJoiner paymentSchedule = new StringJoiner(",\n", "[\n", "\n]");
+        BigDecimal remainingDebt = amount;
+        for (int number = 1; number <= payments; ++number) {
+            remainingDebt = remainingDebt.subtract(debtPayment).max(BigDecimal.ZERO);
+            paymentSchedule.add("""
+                    {
+                      "number": %d,
+                      "date": "%s",
+                      "totalPayment": %s,
+                      "interestPayment": %s,
+                      "debtPayment": %s,
+                      "remainingDebt": %s
+                    }""".formatted(number,
+                                   today.plusMonths(number),
+                                   debtPayment.add(interestPayment),
+                                   interestPayment,
+                                   debtPayment,
+                                   remainingDebt));
+        }
+
+        return """
+                {
+                  "firstName": "Load",
+                  "lastName": "Test",
+                  "middleName": "Client",
+                  "birthdate": "%s",
+                  "credit": {
+                    "amount": %s,
+                    "term": %d,
+                    "monthlyPayment": %s,
+                    "rate": 10.00,
+                    "psk": %s,
+                    "isInsuranceEnabled": false,
+                    "isSalaryClient": false,
+                    "paymentSchedule": %s
+                  }
+                }""".formatted(today.minusYears(30),
+                               amount,
+                               payments,
+                               debtPayment.add(interestPayment),
+                               debtPayment.add(interestPayment).multiply(BigDecimal.valueOf(payments)),
+                               paymentSchedule);
+    }
+}
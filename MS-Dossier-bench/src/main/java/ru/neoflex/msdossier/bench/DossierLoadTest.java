@@ -0,0 +1,254 @@
+package ru.neoflex.msdossier.bench;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import ru.neoflex.loanissuerlibrary.dto.EmailMessageDto;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.EmailTheme;
+import ru.neoflex.msdossier.MsDossierApplication;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end throughput test of MS-Dossier without a real mail server, Kafka or MS-Deal. Starts an embedded
+ * Kafka broker, an SMTP sink ({@link SmtpSink}) and an MS-Deal stub ({@link DealStub}), runs MS-Dossier
+ * against them with the loadtest profile, and replays {@code events} events at {@code rate} events/s,
+ * round-robin across the six topics.
+ * <p>
+ * Reports the throughput of emails received by the sink, the latency percentiles from publishing an event
+ * to its email being received, per topic as well, and the documents written per second. Every other
+ * --property=value argument is passed to MS-Dossier, so settings can be compared run against run:
+ * <pre>
+ * java -jar dossier-bench.jar --rate=500 --events=30000 --msdossier.documents.in-memory=true
+ * </pre>
+ */
+public class DossierLoadTest {
+
+    private static final String[] TOPICS = {
+            "finish-registration", "create-documents", "send-documents",
+            "send-ses", "credit-issued", "statement-denied"
+    };
+    private static final EmailTheme[] THEMES = {
+            EmailTheme.FINISH_REGISTRATION, EmailTheme.CREATE_DOCUMENTS, EmailTheme.SEND_DOCUMENTS,
+            EmailTheme.SEND_SES, EmailTheme.CREDIT_ISSUED, EmailTheme.STATEMENT_DENIED
+    };
+    // Matches kafka.topic.partitions of MS-Deal
+    private static final int PARTITIONS = 6;
+    private static final Pattern EVENT_ID = Pattern.compile("loadtest-event-(\\d+)");
+    private static final Set<String> OPTIONS = Set.of("rate", "events", "payments", "drain-timeout");
+
+    private final int rate;
+    private final int events;
+    private final int payments;
+    private final Duration drainTimeout;
+    private final List<String> dossierArgs;
+
+    private final long[] publishedAt;
+    private final AtomicLongArray receivedAt;
+    private final AtomicInteger duplicates = new AtomicInteger();
+    private final CountDownLatch allReceived;
+
+    DossierLoadTest(int rate, int events, int payments, Duration drainTimeout, List<String> dossierArgs) {
+        this.rate = rate;
+        this.events = events;
+        this.payments = payments;
+        this.drainTimeout = drainTimeout;
+        this.dossierArgs = dossierArgs;
+
+        this.publishedAt = new long[events];
+        this.receivedAt = new AtomicLongArray(events);
+        this.allReceived = new CountDownLatch(events);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        List<String> dossierArgs = new ArrayList<>();
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            if (OPTIONS.contains(option[0])) {
+                options.put(option[0], option.length > 1 ? option[1] : "");
+            } else {
+                dossierArgs.add(arg);
+            }
+        }
+
+        new DossierLoadTest(Integer.parseInt(options.getOrDefault("rate", "200")),
+                            Integer.parseInt(options.getOrDefault("events", "12000")),
+                            Integer.parseInt(options.getOrDefault("payments", "12")),
+                            Duration.parse(options.getOrDefault("drain-timeout", "PT2M")),
+                            dossierArgs)
+                .run();
+    }
+
+    void run() throws Exception {
+        Path documentsPath = Files.createTempDirectory("dossier-load-test");
+
+        try (SmtpSink smtpSink = new SmtpSink(this::onEmail);
+             DealStub dealStub = new DealStub(payments)) {
+            EmbeddedKafkaBroker kafkaBroker = new EmbeddedKafkaKraftBroker(1, PARTITIONS, TOPICS);
+            kafkaBroker.afterPropertiesSet();
+
+            try (ConfigurableApplicationContext dossier = startDossier(kafkaBroker.getBrokersAsString(),
+                                                                       smtpSink.getPort(),
+                                                                       dealStub.getPort(),
+                                                                       documentsPath)) {
+                // Events published before the consumers joined would wait for the rebalance
+                for (MessageListenerContainer container
+                        : dossier.getBean(KafkaListenerEndpointRegistry.class).getListenerContainers()) {
+                    ContainerTestUtils.waitForAssignment(container, PARTITIONS);
+                }
+
+                KafkaTemplate<String, EmailMessageDto> kafkaTemplate = createKafkaTemplate(kafkaBroker.getBrokersAsString());
+                long start = System.nanoTime();
+                publish(kafkaTemplate, start);
+                boolean drained = allReceived.await(drainTimeout.toMillis(), TimeUnit.MILLISECONDS);
+                kafkaTemplate.destroy();
+
+                // Closing waits for the document archive executor, which may still be writing files
+                dossier.close();
+                report(start, drained, countDocuments(documentsPath));
+            } finally {
+                kafkaBroker.destroy();
+            }
+        }
+    }
+
+    private ConfigurableApplicationContext startDossier(String bootstrapServers,
+                                                        int smtpPort,
+                                                        int dealPort,
+                                                        Path documentsPath) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.kafka.bootstrap-servers=" + bootstrapServers,
+                "--spring.mail.port=" + smtpPort,
+                "--msdeal.port=" + dealPort,
+                "--msdossier.documents.path=" + documentsPath,
+                "--server.port=0"));
+        args.addAll(dossierArgs);
+
+        return new SpringApplicationBuilder(MsDossierApplication.class)
+                .profiles("loadtest")
+                .run(args.toArray(String[]::new));
+    }
+
+    private KafkaTemplate<String, EmailMessageDto> createKafkaTemplate(String bootstrapServers) {
+        JsonSerializer<EmailMessageDto> valueSerializer = new JsonSerializer<>();
+        valueSerializer.setAddTypeInfo(false);
+
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(
+                Map.of(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers),
+                new StringSerializer(),
+                valueSerializer));
+    }
+
+    /**
+     * Publishes the events on a fixed schedule, so a slow consumer shows up as latency rather than
+     * as a lower publishing rate.
+     */
+    private void publish(KafkaTemplate<String, EmailMessageDto> kafkaTemplate, long start) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+
+        for (int event = 0; event < events; ++event) {
+            long wait;
+            while ((wait = start + event * intervalNanos - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            int topic = event % TOPICS.length;
+            UUID statementId = UUID.randomUUID();
+            EmailMessageDto message = EmailMessageDto.builder()
+                    .address("load.test" + event + "@loadtest.com")
+                    .theme(THEMES[topic])
+                    .statementId(statementId)
+                    .text("Load test email loadtest-event-" + event)
+                    .build();
+
+            publishedAt[event] = System.nanoTime();
+            kafkaTemplate.send(TOPICS[topic], statementId.toString(), message);
+        }
+        kafkaTemplate.flush();
+    }
+
+    private void onEmail(String data) {
+        long now = System.nanoTime();
+        Matcher matcher = EVENT_ID.matcher(data);
+        if (!matcher.find()) {
+            return;
+        }
+
+        int event = Integer.parseInt(matcher.group(1));
+        if (receivedAt.compareAndSet(event, 0, now)) {
+            allReceived.countDown();
+        } else {
+            // A retried batch sends again the emails that had gone out before the failure
+            duplicates.incrementAndGet();
+        }
+    }
+
+    private long countDocuments(Path documentsPath) throws IOException {
+        try (Stream<Path> files = Files.walk(documentsPath)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private void report(long start, boolean drained, long documents) {
+        long end = start;
+        List<List<Long>> topicLatencies = new ArrayList<>();
+        for (int topic = 0; topic < TOPICS.length; ++topic) {
+            topicLatencies.add(new ArrayList<>());
+        }
+        List<Long> latencies = new ArrayList<>();
+        for (int event = 0; event < events; ++event) {
+            long received = receivedAt.get(event);
+            if (received != 0) {
+                end = Math.max(end, received);
+                latencies.add(received - publishedAt[event]);
+                topicLatencies.get(event % TOPICS.length).add(received - publishedAt[event]);
+            }
+        }
+        double elapsedSeconds = (end - start) / 1e9;
+
+        System.out.printf("Events: %d at %d events/s, emails received: %d%s, duplicates: %d%n",
+                          events, rate, latencies.size(), drained ? "" : " (timed out)", duplicates.get());
+        System.out.printf("Elapsed: %.1f s, throughput: %.1f events/s, documents written: %d (%.1f documents/s)%n",
+                          elapsedSeconds, latencies.size() / elapsedSeconds, documents, documents / elapsedSeconds);
+        System.out.println("Publish to email latency ms " + formatLatencies(latencies));
+        for (int topic = 0; topic < TOPICS.length; ++topic) {
+            System.out.printf("  %s: %s%n", TOPICS[topic], formatLatencies(topicLatencies.get(topic)));
+        }
+    }
+
+    private String formatLatencies(List<Long> latencies) {
+        if (latencies.isEmpty()) {
+            return "n/a";
+        }
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+        return String.format("p50 %.1f, p99 %.1f, max %.1f",
+                             percentile(sorted, 0.50), percentile(sorted, 0.99), sorted[sorted.length - 1] / 1e6);
+    }
+
+    private double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+}
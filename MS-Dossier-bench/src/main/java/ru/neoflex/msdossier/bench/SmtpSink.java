@@ -0,0 +1,97 @@
+package ru.neoflex.msdossier.bench;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Stand-in for the mail server: a minimal SMTP server on a free local port that accepts every message,
+ * without authentication or TLS, and hands its data to {@code onMessage} as soon as it is received.
+ * Connections are kept open for as long as the client wants, so pooled connections are reused as usual.
+ */
+class SmtpSink implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Consumer<String> onMessage;
+
+    SmtpSink(Consumer<String> onMessage) throws IOException {
+        this.serverSocket = new ServerSocket(0, 1024, InetAddress.getLoopbackAddress());
+        this.onMessage = onMessage;
+        executor.submit(this::accept);
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                executor.submit(() -> handle(socket));
+            } catch (IOException e) {
+                // Closed by close()
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket;
+             BufferedReader reader = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+             Writer writer = new BufferedWriter(
+                     new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.ISO_8859_1))) {
+            reply(writer, "220 localhost SMTP sink");
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String command = line.length() > 4 ? line.substring(0, 4) : line;
+                switch (command.toUpperCase(Locale.ROOT)) {
+                    case "EHLO", "HELO" -> reply(writer, "250 localhost");
+                    case "DATA" -> {
+                        reply(writer, "354 End data with <CR><LF>.<CR><LF>");
+                        onMessage.accept(readData(reader));
+                        reply(writer, "250 OK");
+                    }
+                    case "QUIT" -> {
+                        reply(writer, "221 Bye");
+                        return;
+                    }
+                    // MAIL, RCPT, RSET and NOOP
+                    default -> reply(writer, "250 OK");
+                }
+            }
+        } catch (IOException e) {
+            // The client dropped the connection
+        }
+    }
+
+    private String readData(BufferedReader reader) throws IOException {
+        StringBuilder data = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null && !line.equals(".")) {
+            // Dot-stuffing: a leading dot of the content was doubled by the client
+            data.append(line.startsWith("..") ? line.substring(1) : line).append('\n');
+        }
+        return data.toString();
+    }
+
+    private void reply(Writer writer, String reply) throws IOException {
+        writer.write(reply);
+        writer.write("\r\n");
+        writer.flush();
+    }
+}
@@ -0,0 +1,60 @@
+package ru.neoflex.msdossier.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * One bounded executor per stage of {@link ru.neoflex.msdossier.service.DocumentPipeline}, so a slow
+ * mail server only fills the mail stage. A stage whose queue is full runs the task on the submitting thread.
+ */
+@Configuration
+public class DocumentPipelineConfig {
+
+    @Value(value = "${dossier.documents.pipeline.max-in-flight:50}")
+    private int maxInFlight;
+
+    @Bean
+    public ThreadPoolTaskExecutor documentFetchExecutor(
+            @Value("${dossier.documents.pipeline.fetch.threads:4}") int threads) {
+        return createExecutor("fetch", threads);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor documentRenderExecutor(
+            @Value("${dossier.documents.pipeline.render.threads:2}") int threads) {
+        return createExecutor("render", threads);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor documentStatusExecutor(
+            @Value("${dossier.documents.pipeline.status.threads:4}") int threads) {
+        return createExecutor("status", threads);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor documentMailExecutor(
+            @Value("${dossier.documents.pipeline.mail.threads:8}") int threads) {
+        return createExecutor("mail", threads);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor documentArchiveExecutor(
+            @Value("${dossier.documents.pipeline.archive.threads:1}") int threads) {
+        return createExecutor("archive", threads);
+    }
+
+    private ThreadPoolTaskExecutor createExecutor(String stage, int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(maxInFlight);
+        executor.setThreadNamePrefix("document-" + stage + "-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
@@ -1,20 +1,32 @@
 package ru.neoflex.msdossier.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.util.backoff.FixedBackOff;
 import ru.neoflex.loanissuerlibrary.dto.EmailMessageDto;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Listener containers of the email topics. Concurrency and records per poll are set per topic
+ * on the listeners themselves, see {@link ru.neoflex.msdossier.service.KafkaListenerService}.
+ */
 @EnableKafka
 @Configuration
 public class KafkaConsumerConfig {
@@ -25,26 +37,79 @@ public class KafkaConsumerConfig {
     @Value(value = "${spring.kafka.consumer.group-id}")
     private String groupId;
 
+    // Matches kafka.topic.partitions of MS-Deal: one consumer per partition, events of a statement
+    // share a key and therefore a partition, so they are still handled in order
+    @Value(value = "${spring.kafka.listener.concurrency:6}")
+    private int concurrency;
+
+    @Value(value = "${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value(value = "${dossier.kafka.retry.interval:PT1S}")
+    private Duration retryInterval;
+
+    @Value(value = "${dossier.kafka.retry.max-attempts:3}")
+    private long retryMaxAttempts;
+
     @Bean
-    public ConsumerFactory<String, EmailMessageDto> emailConsumerFactory() {
+    public ConsumerFactory<String, EmailMessageDto> emailConsumerFactory(MeterRegistry meterRegistry) {
         Map<String, Object> props = new HashMap<>();
 
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapAddress);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
-        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
 
-        return new DefaultKafkaConsumerFactory<>(props,
+        DefaultKafkaConsumerFactory<String, EmailMessageDto> consumerFactory = new DefaultKafkaConsumerFactory<>(props,
                 new StringDeserializer(),
-                new JsonDeserializer<>(EmailMessageDto.class));
+                // An event that can not be read is handed on as null instead of failing every poll
+                new ErrorHandlingDeserializer<>(new JsonDeserializer<>(EmailMessageDto.class)));
+        // Publishes the consumers' own metrics as kafka.consumer.*, records-lag-max among them
+        consumerFactory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return consumerFactory;
+    }
+
+    /**
+     * Lightweight email topics: the listener gets the whole poll and acknowledges it once every email was sent.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, EmailMessageDto> emailKafkaListenerContainerFactory(
+            ConsumerFactory<String, EmailMessageDto> emailConsumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<String, EmailMessageDto> factory
+                                                = createListenerContainerFactory(emailConsumerFactory);
+        factory.setBatchListener(true);
+        return factory;
     }
 
+    /**
+     * send-documents: events are handed to the document pipeline one by one and acknowledged
+     * out of order from its threads when their documents are sent. The pipeline retries failed
+     * events itself, so they never reach the error handler.
+     */
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, EmailMessageDto> emailKafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, EmailMessageDto> documentKafkaListenerContainerFactory(
+            ConsumerFactory<String, EmailMessageDto> emailConsumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<String, EmailMessageDto> factory
+                                                = createListenerContainerFactory(emailConsumerFactory);
+        factory.getContainerProperties().setAsyncAcks(true);
+        return factory;
+    }
 
+    private ConcurrentKafkaListenerContainerFactory<String, EmailMessageDto> createListenerContainerFactory(
+            ConsumerFactory<String, EmailMessageDto> consumerFactory) {
         ConcurrentKafkaListenerContainerFactory<String, EmailMessageDto> factory
                                                 = new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(emailConsumerFactory());
+        factory.setConsumerFactory(consumerFactory);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        if (virtualThreads) {
+            // Boot only switches its own container factory to virtual threads
+            SimpleAsyncTaskExecutor listenerTaskExecutor = new SimpleAsyncTaskExecutor("dossier-kafka-");
+            listenerTaskExecutor.setVirtualThreads(true);
+            factory.getContainerProperties().setListenerTaskExecutor(listenerTaskExecutor);
+        }
+        // A failed event is retried from where it failed; after the last attempt it is logged and skipped
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(retryInterval.toMillis(),
+                                                                               retryMaxAttempts - 1)));
         return factory;
     }
 }
@@ -0,0 +1,48 @@
+package ru.neoflex.msdossier.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.neoflex.msdossier.mail.PooledJavaMailSender;
+
+import java.time.Duration;
+import java.util.Properties;
+
+/**
+ * Replaces Spring Boot's mail sender with one that reuses its SMTP connections, configured
+ * from the same spring.mail properties.
+ */
+@Configuration
+@EnableConfigurationProperties(MailProperties.class)
+public class MailSenderConfig {
+
+    @Value(value = "${dossier.mail.pool.size:8}")
+    private int poolSize;
+
+    @Value(value = "${dossier.mail.pool.idle-timeout:PT1M}")
+    private Duration idleTimeout;
+
+    @Bean
+    public PooledJavaMailSender mailSender(MailProperties mailProperties) {
+        PooledJavaMailSender mailSender = new PooledJavaMailSender(poolSize, idleTimeout);
+
+        mailSender.setHost(mailProperties.getHost());
+        if (mailProperties.getPort() != null) {
+            mailSender.setPort(mailProperties.getPort());
+        }
+        mailSender.setUsername(mailProperties.getUsername());
+        mailSender.setPassword(mailProperties.getPassword());
+        mailSender.setProtocol(mailProperties.getProtocol());
+        if (mailProperties.getDefaultEncoding() != null) {
+            mailSender.setDefaultEncoding(mailProperties.getDefaultEncoding().name());
+        }
+
+        Properties javaMailProperties = new Properties();
+        javaMailProperties.putAll(mailProperties.getProperties());
+        mailSender.setJavaMailProperties(javaMailProperties);
+
+        return mailSender;
+    }
+}
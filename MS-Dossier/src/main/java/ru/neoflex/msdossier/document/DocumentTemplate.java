@@ -0,0 +1,58 @@
+package ru.neoflex.msdossier.document;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A text template with {@code {name}} placeholders, split once into literal parts and parameter
+ * positions, so rendering only appends to a buffer.
+ */
+public final class DocumentTemplate {
+
+    private final String[] literals;
+    private final int[] parameters;
+
+    private DocumentTemplate(String[] literals, int[] parameters) {
+        this.literals = literals;
+        this.parameters = parameters;
+    }
+
+    /**
+     * @param parameterNames names of the placeholders, in the order their values are passed to {@link #render}
+     * @throws IllegalArgumentException if the template has an unclosed or unknown placeholder
+     */
+    public static DocumentTemplate compile(String template, String... parameterNames) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> parameters = new ArrayList<>();
+
+        int literalStart = 0;
+        int placeholderStart;
+        while ((placeholderStart = template.indexOf('{', literalStart)) >= 0) {
+            int placeholderEnd = template.indexOf('}', placeholderStart);
+            if (placeholderEnd < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at " + placeholderStart);
+            }
+
+            String name = template.substring(placeholderStart + 1, placeholderEnd);
+            int parameter = List.of(parameterNames).indexOf(name);
+            if (parameter < 0) {
+                throw new IllegalArgumentException("Unknown placeholder {" + name + "}");
+            }
+
+            literals.add(template.substring(literalStart, placeholderStart));
+            parameters.add(parameter);
+            literalStart = placeholderEnd + 1;
+        }
+        literals.add(template.substring(literalStart));
+
+        return new DocumentTemplate(literals.toArray(String[]::new),
+                                    parameters.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    public StringBuilder render(StringBuilder output, Object... values) {
+        for (int index = 0; index < parameters.length; ++index) {
+            output.append(literals[index]).append(values[parameters[index]]);
+        }
+        return output.append(literals[parameters.length]);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.neoflex.msdossier.document;
+
+/**
+ * A statement's credit documents rendered in memory, UTF-8 encoded.
+ */
+public record RenderedDocuments(byte[] creditDocument, byte[] creditSchedule) {
+}
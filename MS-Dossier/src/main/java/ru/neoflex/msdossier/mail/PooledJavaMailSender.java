@@ -0,0 +1,191 @@
+package ru.neoflex.msdossier.mail;
+
+import jakarta.mail.Address;
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.Nullable;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JavaMailSenderImpl} that keeps its SMTP connections open between sends instead of connecting,
+ * doing STARTTLS and authenticating for every email.
+ * <p>
+ * At most {@code poolSize} connections are open at a time; a send waits for a free one. A connection
+ * is checked before it is reused and closed once it has been unused for {@code idleTimeout}.
+ * All the messages of one {@code send} call go over the same connection, in order. Sending stops at the
+ * first message that fails: it and the messages after it are the failed messages of the
+ * {@link MailSendException}, so the messages before it are exactly the ones that were delivered.
+ */
+@Slf4j
+public class PooledJavaMailSender extends JavaMailSenderImpl implements DisposableBean {
+
+    private static final String HEADER_MESSAGE_ID = "Message-ID";
+
+    private final Semaphore connections;
+    private final long idleTimeoutNanos;
+
+    // Most recently used first, so the ones left at the tail are the ones to expire
+    private final Deque<IdleTransport> idleTransports = new ArrayDeque<>();
+    private final ScheduledExecutorService evictor;
+
+    public PooledJavaMailSender(int poolSize, Duration idleTimeout) {
+        this.connections = new Semaphore(poolSize, true);
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("smtp-pool-evictor").daemon().factory());
+        evictor.scheduleWithFixedDelay(this::closeExpired,
+                                       idleTimeout.toMillis(), idleTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, @Nullable Object[] originalMessages) throws MailException {
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+
+        try {
+            connections.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Interrupted while waiting for a mail server connection", e);
+        }
+
+        Transport transport = null;
+        try {
+            try {
+                transport = borrowTransport();
+            } catch (AuthenticationFailedException e) {
+                throw new MailAuthenticationException(e);
+            } catch (MessagingException e) {
+                putFailed(failedMessages, mimeMessages, originalMessages, 0, e);
+                throw new MailSendException("Mail server connection failed", e, failedMessages);
+            }
+
+            for (int index = 0; index < mimeMessages.length; ++index) {
+                MimeMessage mimeMessage = mimeMessages[index];
+                try {
+                    if (mimeMessage.getSentDate() == null) {
+                        mimeMessage.setSentDate(new Date());
+                    }
+                    String messageId = mimeMessage.getMessageID();
+                    mimeMessage.saveChanges();
+                    if (messageId != null) {
+                        mimeMessage.setHeader(HEADER_MESSAGE_ID, messageId);
+                    }
+                    Address[] addresses = mimeMessage.getAllRecipients();
+                    transport.sendMessage(mimeMessage, addresses != null ? addresses : new Address[0]);
+                } catch (Exception e) {
+                    putFailed(failedMessages, mimeMessages, originalMessages, index, e);
+                    // The server may have dropped the connection, it is not returned to the pool then
+                    if (!transport.isConnected()) {
+                        close(transport);
+                        transport = null;
+                    }
+                    break;
+                }
+            }
+        } finally {
+            if (transport != null) {
+                releaseTransport(transport);
+            }
+            connections.release();
+        }
+
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        evictor.shutdownNow();
+
+        List<IdleTransport> transports;
+        synchronized (idleTransports) {
+            transports = new ArrayList<>(idleTransports);
+            idleTransports.clear();
+        }
+        transports.forEach(idle -> close(idle.transport()));
+    }
+
+    private Transport borrowTransport() throws MessagingException {
+        while (true) {
+            IdleTransport idle;
+            synchronized (idleTransports) {
+                idle = idleTransports.pollFirst();
+            }
+            if (idle == null) {
+                log.debug("Opening a new mail server connection.");
+                return connectTransport();
+            }
+            if (!idle.isExpired(System.nanoTime()) && idle.transport().isConnected()) {
+                return idle.transport();
+            }
+            close(idle.transport());
+        }
+    }
+
+    private void releaseTransport(Transport transport) {
+        synchronized (idleTransports) {
+            idleTransports.addFirst(new IdleTransport(transport, System.nanoTime() + idleTimeoutNanos));
+        }
+    }
+
+    private void closeExpired() {
+        long now = System.nanoTime();
+        List<IdleTransport> expired = new ArrayList<>();
+        synchronized (idleTransports) {
+            while (!idleTransports.isEmpty() && idleTransports.peekLast().isExpired(now)) {
+                expired.add(idleTransports.pollLast());
+            }
+        }
+        if (!expired.isEmpty()) {
+            log.debug("Closing {} idle mail server connections.", expired.size());
+            expired.forEach(idle -> close(idle.transport()));
+        }
+    }
+
+    private void close(Transport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            log.debug("Could not close mail server connection: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Marks the message at {@code from} and the ones after it, which were not sent, as failed.
+     */
+    private void putFailed(Map<Object, Exception> failedMessages, MimeMessage[] mimeMessages,
+                           @Nullable Object[] originalMessages, int from, Exception failure) {
+        for (int index = from; index < mimeMessages.length; ++index) {
+            failedMessages.put(originalMessages != null ? originalMessages[index] : mimeMessages[index], failure);
+        }
+    }
+
+    private record IdleTransport(Transport transport, long expiresAtNanos) {
+
+        boolean isExpired(long now) {
+            return now - expiresAtNanos > 0;
+        }
+    }
+}
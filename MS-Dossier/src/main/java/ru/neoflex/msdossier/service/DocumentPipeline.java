@@ -0,0 +1,213 @@
+package ru.neoflex.msdossier.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.MessagingException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import ru.neoflex.loanissuerlibrary.dto.DocumentDataDto;
+import ru.neoflex.loanissuerlibrary.dto.EmailMessageDto;
+import ru.neoflex.msdossier.document.RenderedDocuments;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Handles send-documents events off the Kafka consumer thread in four stages, each on its own executor:
+ * fetch the document data from MS-Deal, render the documents, mail the documents and put DOCUMENT_CREATED.
+ * The status is put only once the documents went out, so a statement is never left DOCUMENT_CREATED without them.
+ * <p>
+ * With {@code msdossier.documents.in-memory} the rendered documents are attached to the email straight from
+ * memory, and their files are written on the archive executor alongside instead of before the email.
+ * <p>
+ * At most {@code maxInFlight} events are handled at a time: when the limit is reached the send-documents
+ * listener is paused, and it is resumed once half of them are done.
+ * <p>
+ * A failed stage is retried on its own executor after {@code dossier.kafka.retry.interval}, up to
+ * {@code dossier.kafka.retry.max-attempts} attempts, so the stages before it are not repeated. An event is
+ * acknowledged when its pipeline completes, or after the last attempt of a stage failed: it is logged and
+ * counted then, so that it does not hold back the partition's offset.
+ */
+@Slf4j
+@Service
+public class DocumentPipeline {
+
+    public static final String LISTENER_ID = "send-documents";
+
+    private final RestClientService restClientService;
+    private final DocumentService documentService;
+    private final EmailService emailService;
+    private final KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+    private final ThreadPoolTaskExecutor fetchExecutor;
+    private final ThreadPoolTaskExecutor renderExecutor;
+    private final ThreadPoolTaskExecutor statusExecutor;
+    private final ThreadPoolTaskExecutor mailExecutor;
+    private final ThreadPoolTaskExecutor archiveExecutor;
+    private final int maxInFlight;
+    private final boolean inMemoryDocuments;
+    private final Duration retryInterval;
+    private final int retryMaxAttempts;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final MeterRegistry meterRegistry;
+    private final Counter failedDocuments;
+
+    public DocumentPipeline(RestClientService restClientService,
+                            DocumentService documentService,
+                            EmailService emailService,
+                            KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry,
+                            @Qualifier("documentFetchExecutor") ThreadPoolTaskExecutor fetchExecutor,
+                            @Qualifier("documentRenderExecutor") ThreadPoolTaskExecutor renderExecutor,
+                            @Qualifier("documentStatusExecutor") ThreadPoolTaskExecutor statusExecutor,
+                            @Qualifier("documentMailExecutor") ThreadPoolTaskExecutor mailExecutor,
+                            @Qualifier("documentArchiveExecutor") ThreadPoolTaskExecutor archiveExecutor,
+                            @Value("${dossier.documents.pipeline.max-in-flight:50}") int maxInFlight,
+                            @Value("${msdossier.documents.in-memory:false}") boolean inMemoryDocuments,
+                            @Value("${dossier.kafka.retry.interval:PT1S}") Duration retryInterval,
+                            @Value("${dossier.kafka.retry.max-attempts:3}") int retryMaxAttempts,
+                            MeterRegistry meterRegistry) {
+        this.restClientService = restClientService;
+        this.documentService = documentService;
+        this.emailService = emailService;
+        this.kafkaListenerEndpointRegistry = kafkaListenerEndpointRegistry;
+        this.fetchExecutor = fetchExecutor;
+        this.renderExecutor = renderExecutor;
+        this.statusExecutor = statusExecutor;
+        this.mailExecutor = mailExecutor;
+        this.archiveExecutor = archiveExecutor;
+        this.maxInFlight = maxInFlight;
+        this.inMemoryDocuments = inMemoryDocuments;
+        this.retryInterval = retryInterval;
+        this.retryMaxAttempts = retryMaxAttempts;
+        this.meterRegistry = meterRegistry;
+
+        this.failedDocuments = Counter.builder("dossier.documents.failed").register(meterRegistry);
+        Gauge.builder("dossier.documents.in-flight", inFlight, AtomicInteger::get).register(meterRegistry);
+    }
+
+    public CompletableFuture<Void> submit(EmailMessageDto message, Acknowledgment acknowledgment) {
+        if (inFlight.incrementAndGet() >= maxInFlight) {
+            pauseListener();
+        }
+        UUID statementId = message.getStatementId();
+
+        return stage("fetch", statementId, () -> restClientService.getDocumentData(statementId), fetchExecutor)
+                .thenCompose(documentDataDto -> stage("render", statementId,
+                                                      () -> render(statementId, documentDataDto), renderExecutor))
+                .thenCompose(documents -> stage("mail", statementId, () -> mail(message, documents), mailExecutor))
+                .thenCompose(sent -> stage("status", statementId,
+                                           () -> putDocumentsCreatedStatus(statementId), statusExecutor))
+                .whenComplete((result, failure) -> {
+                    if (failure != null) {
+                        failedDocuments.increment();
+                        log.error("Could not create and send documents of statement {} in {} attempts: {}",
+                                  statementId, retryMaxAttempts, failure.getMessage());
+                    } else {
+                        log.info("Documents of statement {} created and sent.", statementId);
+                    }
+
+                    acknowledgment.acknowledge();
+                    if (inFlight.decrementAndGet() <= maxInFlight / 2) {
+                        resumeListener();
+                    }
+                });
+    }
+
+    private <T> CompletableFuture<T> stage(String stage, UUID statementId, Supplier<T> task, Executor executor) {
+        return attempt(stage, statementId, task, executor, 1);
+    }
+
+    private <T> CompletableFuture<T> attempt(String stage, UUID statementId, Supplier<T> task, Executor executor,
+                                             int attempt) {
+        Executor attemptExecutor = attempt == 1
+                ? executor
+                : CompletableFuture.delayedExecutor(retryInterval.toMillis(), TimeUnit.MILLISECONDS, executor);
+
+        return CompletableFuture.supplyAsync(() -> record(stage, task), attemptExecutor)
+                .exceptionallyCompose(failure -> {
+                    if (attempt >= retryMaxAttempts) {
+                        return CompletableFuture.failedFuture(failure);
+                    }
+                    log.warn("Stage {} of statement {} failed, attempt {} of {}: {}",
+                             stage, statementId, attempt, retryMaxAttempts, failure.getMessage());
+                    return attempt(stage, statementId, task, executor, attempt + 1);
+                });
+    }
+
+    /**
+     * @return the documents rendered in memory, or null if they were written to the documents path
+     */
+    private RenderedDocuments render(UUID statementId, DocumentDataDto documentDataDto) {
+        if (!inMemoryDocuments) {
+            documentService.createCreditDocument(statementId, documentDataDto);
+            documentService.createCreditScheduleDocument(statementId, documentDataDto);
+            return null;
+        }
+
+        RenderedDocuments documents = documentService.renderDocuments(documentDataDto);
+        archiveExecutor.execute(() -> record("archive", () -> archive(statementId, documents)));
+        return documents;
+    }
+
+    private Void archive(UUID statementId, RenderedDocuments documents) {
+        documentService.archiveDocuments(statementId, documents);
+        return null;
+    }
+
+    private Void putDocumentsCreatedStatus(UUID statementId) {
+        restClientService.putDocumentsCreatedStatus(statementId);
+        return null;
+    }
+
+    private Void mail(EmailMessageDto message, RenderedDocuments documents) {
+        try {
+            if (documents != null) {
+                emailService.sendEmailWithAttachments(message, "Your loan documents.", documents);
+            } else {
+                emailService.sendEmailWithAttachments(message, "Your loan documents.");
+            }
+            return null;
+        } catch (MessagingException | IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private <T> T record(String stage, Supplier<T> task) {
+        return Timer.builder("dossier.documents.stage")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(task);
+    }
+
+    private synchronized void pauseListener() {
+        MessageListenerContainer container = kafkaListenerEndpointRegistry.getListenerContainer(LISTENER_ID);
+        if (container != null && !container.isPauseRequested()) {
+            log.info("{} documents in flight, pausing {} listener.", inFlight.get(), LISTENER_ID);
+            container.pause();
+        }
+    }
+
+    private synchronized void resumeListener() {
+        MessageListenerContainer container = kafkaListenerEndpointRegistry.getListenerContainer(LISTENER_ID);
+        if (container != null && container.isPauseRequested()) {
+            log.info("{} documents in flight, resuming {} listener.", inFlight.get(), LISTENER_ID);
+            container.resume();
+        }
+    }
+}
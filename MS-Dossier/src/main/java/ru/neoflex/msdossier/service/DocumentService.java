@@ -3,131 +3,167 @@ package ru.neoflex.msdossier.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import ru.neoflex.loanissuerlibrary.dto.CreditDto;
 import ru.neoflex.loanissuerlibrary.dto.DocumentDataDto;
 import ru.neoflex.loanissuerlibrary.dto.PaymentScheduleElementDto;
+import ru.neoflex.msdossier.document.DocumentTemplate;
+import ru.neoflex.msdossier.document.RenderedDocuments;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
+import java.nio.file.StandardOpenOption;
 import java.util.UUID;
 
 @Slf4j
 @Service
 public class DocumentService {
 
+    private static final DocumentTemplate CREDIT_DOCUMENT = DocumentTemplate.compile("""
+            ФИО: {fullName}\n
+            Дата рождения: {birthdate}\n
+            Сумма займа: {amount} рублей\n
+            Длительность: {term} месяцев\n
+            Ставка: {rate} % годовых\n
+            ПСК: {psk} рублей\n
+            Застрахован ли кредит: {isInsuranceEnabled}\n
+            Получает ли заёмщик зарплату в банке: {isSalaryClient}
+            """,
+            "fullName", "birthdate", "amount", "term", "rate", "psk", "isInsuranceEnabled", "isSalaryClient");
+
+    private static final DocumentTemplate CREDIT_SCHEDULE_ELEMENT = DocumentTemplate.compile("""
+            Номер платежа: {number}\n
+            Дата платежа: {date}\n
+            Общая сумма платежа: {totalPayment}\n
+            Погашение процентов: {interestPayment}\n
+            Погашение основного долга: {debtPayment}\n
+            Остаток долга: {remainingDebt}\n\n
+            """,
+            "number", "date", "totalPayment", "interestPayment", "debtPayment", "remainingDebt");
+
+    // Every thread that renders keeps its own buffer between documents: normally the document pipeline's
+    // render threads, but also a fetch thread when the render queue is full and CallerRunsPolicy runs it there
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(64 * 1024));
+
+    public static final String CREDIT_DOCUMENT_FILENAME = "credit_document.txt";
+    public static final String CREDIT_SCHEDULE_FILENAME = "credit_schedule.txt";
+
     @Value(value = "${msdossier.documents.path}")
     private String documentsPath;
 
+    /**
+     * @throws UncheckedIOException if the file could not be written, so the document pipeline retries rendering
+     *                              instead of mailing a missing or stale file
+     */
     public void createCreditDocument(UUID statementId, DocumentDataDto documentDataDto) {
         try {
-            Files.createDirectories(Paths.get(documentsPath + File.separator + statementId.toString()));
-        } catch (IOException e) {
-            log.error("Could not create directory to store documents in: " + e.getMessage());
-            e.printStackTrace();
-        }
-
-        String filepath = documentsPath + File.separator +
-                          statementId.toString() + File.separator + "credit_document.txt";
-
-        try(FileOutputStream fileOutputStream = new FileOutputStream(filepath)) {
-
-            String fullName = documentDataDto.getLastName() + " " + documentDataDto.getFirstName();
-            if (documentDataDto.getMiddleName() != null) {
-                fullName += " " + documentDataDto.getMiddleName();
-            }
-
-            String birthdate = String.format("%s.%s.%s", documentDataDto.getBirthdate().getDayOfMonth(),
-                                                         documentDataDto.getBirthdate().getMonthValue(),
-                                                         documentDataDto.getBirthdate().getYear());
-
-            String amount = documentDataDto.getCredit().getAmount().toString();
-            String term = documentDataDto.getCredit().getTerm().toString();
-            String rate = documentDataDto.getCredit().getRate().toString();
-            String psk = documentDataDto.getCredit().getPsk().toString();
-            String isInsuranceEnabled = (documentDataDto.getCredit().getIsInsuranceEnabled() ? "Да" : "Нет");
-            String isSalaryClient = (documentDataDto.getCredit().getIsSalaryClient() ? "Да" : "Нет");
-
-            String body = String.format("""
-                    ФИО: %s\n
-                    Дата рождения: %s\n
-                    Сумма займа: %s рублей\n
-                    Длительность: %s месяцев\n
-                    Ставка: %s %% годовых\n
-                    ПСК: %s рублей\n
-                    Застрахован ли кредит: %s\n
-                    Получает ли заёмщик зарплату в банке: %s
-                    """,
-                    fullName,
-                    birthdate,
-                    amount,
-                    term,
-                    rate,
-                    psk,
-                    isInsuranceEnabled,
-                    isSalaryClient
-                    );
-
-            fileOutputStream.write(body.getBytes());
+            write(statementId, CREDIT_DOCUMENT_FILENAME, encode(renderCreditDocument(documentDataDto)));
             log.info("Created credit document file.");
-        } catch (FileNotFoundException e) {
-            log.error("Could not create credit document file: " + e.getMessage());
-            e.printStackTrace();
         } catch (IOException e) {
             log.error("Could not create credit document file: " + e.getMessage());
-            e.printStackTrace();
+            throw new UncheckedIOException(e);
         }
     }
 
+    /**
+     * @throws UncheckedIOException if the file could not be written
+     */
     public void createCreditScheduleDocument(UUID statementId, DocumentDataDto documentDataDto) {
         try {
-            Files.createDirectories(Paths.get(documentsPath + File.separator + statementId.toString()));
+            write(statementId, CREDIT_SCHEDULE_FILENAME, encode(renderCreditSchedule(documentDataDto)));
+            log.info("Created credit schedule document file.");
         } catch (IOException e) {
-            e.printStackTrace();
+            log.error("Could not create credit schedule file: " + e.getMessage());
+            throw new UncheckedIOException(e);
         }
+    }
 
-        String filepath = documentsPath + File.separator +
-                          statementId.toString() + File.separator + "credit_schedule.txt";
-
-        try(FileOutputStream fileOutputStream = new FileOutputStream(filepath)) {
-
-            List<PaymentScheduleElementDto> paymentSchedule = documentDataDto.getCredit().getPaymentSchedule();
-
-            for(PaymentScheduleElementDto element : paymentSchedule) {
-                String number = element.getNumber().toString();
-                String date = element.getDate().toString();
-                String totalPayment = element.getTotalPayment().toString();
-                String interestPayment = element.getInterestPayment().toString();
-                String debtPayment = element.getDebtPayment().toString();
-                String remainingDebt = element.getRemainingDebt().toString();
-
-                String body = String.format("""
-                                Номер платежа: %s\n
-                                Дата платежа: %s\n
-                                Общая сумма платежа: %s\n
-                                Погашение процентов: %s\n
-                                Погашение основного долга: %s\n
-                                Остаток долга: %s\n\n
-                                """,
-                        number,
-                        date,
-                        totalPayment,
-                        interestPayment,
-                        debtPayment,
-                        remainingDebt);
-
-                fileOutputStream.write(body.getBytes());
-                log.info("Created credit schedule document file.");
-            }
-        } catch (FileNotFoundException e) {
-            log.error("Could not create credit schedule file: " + e.getMessage());
-            e.printStackTrace();
+    /**
+     * Renders both documents without touching the documents path.
+     */
+    public RenderedDocuments renderDocuments(DocumentDataDto documentDataDto) {
+        return new RenderedDocuments(encode(renderCreditDocument(documentDataDto)).array(),
+                                     encode(renderCreditSchedule(documentDataDto)).array());
+    }
+
+    /**
+     * Writes documents rendered in memory to the documents path, where they are kept for archival.
+     */
+    public void archiveDocuments(UUID statementId, RenderedDocuments documents) {
+        try {
+            write(statementId, CREDIT_DOCUMENT_FILENAME, ByteBuffer.wrap(documents.creditDocument()));
+            write(statementId, CREDIT_SCHEDULE_FILENAME, ByteBuffer.wrap(documents.creditSchedule()));
+            log.info("Archived documents of statement {}.", statementId);
         } catch (IOException e) {
-            log.error("Could not create credit schedule file: " + e.getMessage());
-            e.printStackTrace();
+            log.error("Could not archive documents of statement {}: {}", statementId, e.getMessage());
+        }
+    }
+
+    private StringBuilder renderCreditDocument(DocumentDataDto documentDataDto) {
+        String fullName = documentDataDto.getLastName() + " " + documentDataDto.getFirstName();
+        if (documentDataDto.getMiddleName() != null) {
+            fullName += " " + documentDataDto.getMiddleName();
+        }
+
+        String birthdate = documentDataDto.getBirthdate().getDayOfMonth() + "."
+                           + documentDataDto.getBirthdate().getMonthValue() + "."
+                           + documentDataDto.getBirthdate().getYear();
+
+        CreditDto credit = documentDataDto.getCredit();
+        return CREDIT_DOCUMENT.render(clearBuffer(),
+                fullName,
+                birthdate,
+                credit.getAmount(),
+                credit.getTerm(),
+                credit.getRate(),
+                credit.getPsk(),
+                credit.getIsInsuranceEnabled() ? "Да" : "Нет",
+                credit.getIsSalaryClient() ? "Да" : "Нет");
+    }
+
+    private StringBuilder renderCreditSchedule(DocumentDataDto documentDataDto) {
+        StringBuilder document = clearBuffer();
+        for (PaymentScheduleElementDto element : documentDataDto.getCredit().getPaymentSchedule()) {
+            CREDIT_SCHEDULE_ELEMENT.render(document,
+                    element.getNumber(),
+                    element.getDate(),
+                    element.getTotalPayment(),
+                    element.getInterestPayment(),
+                    element.getDebtPayment(),
+                    element.getRemainingDebt());
+        }
+        return document;
+    }
+
+    private ByteBuffer encode(CharSequence document) {
+        return ByteBuffer.wrap(document.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private StringBuilder clearBuffer() {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        return buffer;
+    }
+
+    /**
+     * Writes the whole document to the statement's directory with a single channel write
+     * (more only if the file system accepts fewer bytes at once).
+     */
+    private void write(UUID statementId, String filename, ByteBuffer bytes) throws IOException {
+        Path directory = Files.createDirectories(Paths.get(documentsPath, statementId.toString()));
+
+        try (FileChannel channel = FileChannel.open(directory.resolve(filename),
+                                                    StandardOpenOption.CREATE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING,
+                                                    StandardOpenOption.WRITE)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
         }
     }
 }
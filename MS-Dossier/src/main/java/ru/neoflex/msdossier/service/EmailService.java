@@ -1,5 +1,6 @@
 package ru.neoflex.msdossier.service;
 
+import jakarta.activation.DataHandler;
 import jakarta.mail.Message;
 import jakarta.mail.MessagingException;
 import jakarta.mail.Multipart;
@@ -7,18 +8,25 @@ import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeBodyPart;
 import jakarta.mail.internet.MimeMessage;
 import jakarta.mail.internet.MimeMultipart;
+import jakarta.mail.util.ByteArrayDataSource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 import ru.neoflex.loanissuerlibrary.dto.EmailMessageDto;
+import ru.neoflex.msdossier.document.RenderedDocuments;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
 
 @Slf4j
 @Service
@@ -32,42 +40,75 @@ public class EmailService {
     public EmailService(JavaMailSenderImpl mailSender) {
         this.mailSender = mailSender;
         mailSender.setDefaultEncoding("UTF-8");
-        mailSender.setHost("smtp.gmail.com");
     }
 
+    /**
+     * @throws MailException if the email could not be sent, so the Kafka event is not acknowledged
+     */
     public void sendEmail(EmailMessageDto emailMessageDto, String subject) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setFrom("neoflexBanking@gmail.com");
-        message.setTo(emailMessageDto.getAddress());
-        message.setSubject(subject);
-        message.setText(emailMessageDto.getText());
+        SimpleMailMessage message = createMessage(emailMessageDto, subject);
 
         try {
             log.info("Sending email to " + emailMessageDto.getAddress() + " with theme " + emailMessageDto.getTheme());
             mailSender.send(message);
         } catch (MailException e) {
             log.error("Could not send email: " + e.getMessage());
-            e.printStackTrace();
+            throw e;
         }
     }
 
-    public void sendEmailWithAttachments(EmailMessageDto emailMessageDto, String subject)
-                                                    throws MessagingException, IOException {
-        MimeMessage message = mailSender.createMimeMessage();
+    /**
+     * Sends an email for every event in one call, so they all go over the same mail server connection.
+     * The emails are sent in order and sending stops at the first one that fails.
+     *
+     * @return index of the first email that could not be sent, or -1 if all of them were sent;
+     *         the emails before it were sent, the ones from it on were not
+     * @throws MailException if none of the emails could be sent for a reason other than a failed email,
+     *                       e.g. the mail server rejected the credentials
+     */
+    public int sendEmails(List<EmailMessageDto> emailMessageDtos, String subject) {
+        SimpleMailMessage[] messages = emailMessageDtos.stream()
+                .map(emailMessageDto -> createMessage(emailMessageDto, subject))
+                .toArray(SimpleMailMessage[]::new);
+
+        try {
+            log.info("Sending " + messages.length + " emails with subject " + subject);
+            mailSender.send(messages);
+            return -1;
+        } catch (MailSendException e) {
+            log.error("Could not send emails: " + e.getMessage());
+            // Matched by identity: equal emails to the same address are different events
+            Set<Object> failedMessages = Collections.newSetFromMap(new IdentityHashMap<>());
+            failedMessages.addAll(e.getFailedMessages().keySet());
+            for (int index = 0; index < messages.length; ++index) {
+                if (failedMessages.contains(messages[index])) {
+                    return index;
+                }
+            }
+            throw e;
+        } catch (MailException e) {
+            log.error("Could not send emails: " + e.getMessage());
+            throw e;
+        }
+    }
 
+    private SimpleMailMessage createMessage(EmailMessageDto emailMessageDto, String subject) {
+        SimpleMailMessage message = new SimpleMailMessage();
         message.setFrom("neoflexBanking@gmail.com");
-        message.setRecipient(Message.RecipientType.TO, new InternetAddress(emailMessageDto.getAddress()));
+        message.setTo(emailMessageDto.getAddress());
         message.setSubject(subject);
+        message.setText(emailMessageDto.getText());
+        return message;
+    }
 
-        MimeBodyPart messageBodyPart = new MimeBodyPart();
-        messageBodyPart.setText(emailMessageDto.getText());
-
+    public void sendEmailWithAttachments(EmailMessageDto emailMessageDto, String subject)
+                                                    throws MessagingException, IOException {
         String creditDocumentPath = filepath + File.separator
                                     + emailMessageDto.getStatementId().toString() + File.separator
-                                    + "credit_document.txt";
+                                    + DocumentService.CREDIT_DOCUMENT_FILENAME;
         String paymentSchedulePath = filepath + File.separator
                                      + emailMessageDto.getStatementId().toString() + File.separator
-                                     + "credit_schedule.txt";
+                                     + DocumentService.CREDIT_SCHEDULE_FILENAME;
         log.info(paymentSchedulePath);
 
         MimeBodyPart creditAttachmentBodyPart = new MimeBodyPart();
@@ -76,10 +117,43 @@ public class EmailService {
         MimeBodyPart scheduleAttachmentBodyPart = new MimeBodyPart();
         scheduleAttachmentBodyPart.attachFile(new File(paymentSchedulePath));
 
+        sendWithAttachments(emailMessageDto, subject, creditAttachmentBodyPart, scheduleAttachmentBodyPart);
+    }
+
+    /**
+     * Attaches documents rendered in memory as they are, without reading them back from the documents path.
+     */
+    public void sendEmailWithAttachments(EmailMessageDto emailMessageDto, String subject, RenderedDocuments documents)
+                                                    throws MessagingException {
+        sendWithAttachments(emailMessageDto,
+                            subject,
+                            createAttachment(DocumentService.CREDIT_DOCUMENT_FILENAME, documents.creditDocument()),
+                            createAttachment(DocumentService.CREDIT_SCHEDULE_FILENAME, documents.creditSchedule()));
+    }
+
+    private MimeBodyPart createAttachment(String filename, byte[] content) throws MessagingException {
+        MimeBodyPart attachmentBodyPart = new MimeBodyPart();
+        attachmentBodyPart.setDataHandler(new DataHandler(new ByteArrayDataSource(content, "text/plain; charset=UTF-8")));
+        attachmentBodyPart.setFileName(filename);
+        return attachmentBodyPart;
+    }
+
+    private void sendWithAttachments(EmailMessageDto emailMessageDto, String subject, MimeBodyPart... attachments)
+                                                    throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+
+        message.setFrom("neoflexBanking@gmail.com");
+        message.setRecipient(Message.RecipientType.TO, new InternetAddress(emailMessageDto.getAddress()));
+        message.setSubject(subject);
+
+        MimeBodyPart messageBodyPart = new MimeBodyPart();
+        messageBodyPart.setText(emailMessageDto.getText());
+
         Multipart multipart = new MimeMultipart();
         multipart.addBodyPart(messageBodyPart);
-        multipart.addBodyPart(creditAttachmentBodyPart);
-        multipart.addBodyPart(scheduleAttachmentBodyPart);
+        for (MimeBodyPart attachment : attachments) {
+            multipart.addBodyPart(attachment);
+        }
 
         message.setContent(multipart);
 
@@ -88,7 +162,7 @@ public class EmailService {
             mailSender.send(message);
         } catch (MailException e) {
             log.error("Could not send email: " + e.getMessage());
-            e.printStackTrace();
+            throw e;
         }
     }
 
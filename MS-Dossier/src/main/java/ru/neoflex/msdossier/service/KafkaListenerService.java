@@ -1,74 +1,129 @@
 package ru.neoflex.msdossier.service;
 
-import jakarta.mail.MessagingException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.mail.MailException;
 import org.springframework.stereotype.Service;
-import ru.neoflex.loanissuerlibrary.dto.DocumentDataDto;
 import ru.neoflex.loanissuerlibrary.dto.EmailMessageDto;
 
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 @Slf4j
 @Service
 public class KafkaListenerService {
 
     private EmailService emailService;
-    private RestClientService restClientService;
-    private DocumentService documentService;
+    private DocumentPipeline documentPipeline;
+    private boolean batchEmails;
 
     public KafkaListenerService(EmailService emailService,
-                                RestClientService restClientService,
-                                DocumentService documentService) {
+                                DocumentPipeline documentPipeline,
+                                @Value("${dossier.mail.batch.enabled:true}") boolean batchEmails) {
         this.emailService = emailService;
-        this.restClientService = restClientService;
-        this.documentService = documentService;
+        this.documentPipeline = documentPipeline;
+        this.batchEmails = batchEmails;
     }
 
-    @KafkaListener(topics = "finish-registration", groupId = "dossier")
-    public void sendFinishRegistrationMessage(EmailMessageDto message) {
-        log.info("Got an event in finish-registration topic.");
-        emailService.sendEmail(message, "Finish your registration.");
+    @KafkaListener(topics = "finish-registration", groupId = "dossier",
+                   containerFactory = "emailKafkaListenerContainerFactory",
+                   concurrency = "${dossier.kafka.finish-registration.concurrency:6}",
+                   properties = "max.poll.records=${dossier.kafka.finish-registration.max-poll-records:100}")
+    public void sendFinishRegistrationMessages(List<EmailMessageDto> messages, Acknowledgment acknowledgment) {
+        log.info("Got {} events in finish-registration topic.", messages.size());
+        sendEmails(messages, "Finish your registration.", acknowledgment);
     }
 
-    @KafkaListener(topics = "create-documents", groupId = "dossier")
-    public void sendCreateDocumentsMessage(EmailMessageDto message) {
-        log.info("Got an event in create-documents topic.");
-        emailService.sendEmail(message, "Create documents.");
+    @KafkaListener(topics = "create-documents", groupId = "dossier",
+                   containerFactory = "emailKafkaListenerContainerFactory",
+                   concurrency = "${dossier.kafka.create-documents.concurrency:6}",
+                   properties = "max.poll.records=${dossier.kafka.create-documents.max-poll-records:100}")
+    public void sendCreateDocumentsMessages(List<EmailMessageDto> messages, Acknowledgment acknowledgment) {
+        log.info("Got {} events in create-documents topic.", messages.size());
+        sendEmails(messages, "Create documents.", acknowledgment);
     }
 
-    @KafkaListener(topics = "send-documents", groupId = "dossier")
-    public void sendSendDocumentsMessage(EmailMessageDto message) throws MessagingException, IOException {
-        log.info("Got an event in send-documents topic.");
-
-        log.info("Proceeding to GET documentDataDto");
-        DocumentDataDto documentDataDto = restClientService.getDocumentData(message.getStatementId());
-        log.info("Creating credit document file...");
-        documentService.createCreditDocument(message.getStatementId(), documentDataDto);
-        log.info("Creating payment schedule file...");
-        documentService.createCreditScheduleDocument(message.getStatementId(), documentDataDto);
-        log.info("Putting DOCUMENT_CREATED through REST-client...");
-        restClientService.putDocumentsCreatedStatus(message.getStatementId());
+    @KafkaListener(id = DocumentPipeline.LISTENER_ID, idIsGroup = false,
+                   topics = "send-documents", groupId = "dossier",
+                   containerFactory = "documentKafkaListenerContainerFactory",
+                   concurrency = "${dossier.kafka.send-documents.concurrency:6}",
+                   properties = "max.poll.records=${dossier.kafka.send-documents.max-poll-records:5}")
+    public void sendSendDocumentsMessage(EmailMessageDto message, Acknowledgment acknowledgment) {
+        log.info("Got an event in send-documents topic. Handing it to the document pipeline.");
+        documentPipeline.submit(message, acknowledgment);
+    }
 
-        log.info("Documents created, status changed. Proceeding to send email.");
-        emailService.sendEmailWithAttachments(message, "Your loan documents.");
+    @KafkaListener(topics = "send-ses", groupId = "dossier",
+                   containerFactory = "emailKafkaListenerContainerFactory",
+                   concurrency = "${dossier.kafka.send-ses.concurrency:6}",
+                   properties = "max.poll.records=${dossier.kafka.send-ses.max-poll-records:100}")
+    public void sendSendSesMessages(List<EmailMessageDto> messages, Acknowledgment acknowledgment) {
+        log.info("Got {} events in send-ses topic.", messages.size());
+        sendEmails(messages, "Confirm your agreement.", acknowledgment);
     }
 
-    @KafkaListener(topics = "send-ses", groupId = "dossier")
-    public void sendSendSesMessage(EmailMessageDto message) {
-        log.info("Got an event in send-ses topic.");
-        emailService.sendEmail(message, "Confirm your agreement.");
+    @KafkaListener(topics = "credit-issued", groupId = "dossier",
+                   containerFactory = "emailKafkaListenerContainerFactory",
+                   concurrency = "${dossier.kafka.credit-issued.concurrency:6}",
+                   properties = "max.poll.records=${dossier.kafka.credit-issued.max-poll-records:100}")
+    public void sendCreditIssuedMessages(List<EmailMessageDto> messages, Acknowledgment acknowledgment) {
+        log.info("Got {} events in credit-issued topic.", messages.size());
+        sendEmails(messages, "Your credit issued.", acknowledgment);
     }
 
-    @KafkaListener(topics = "credit-issued", groupId = "dossier")
-    public void sendCreditIssuedMessage(EmailMessageDto message) {
-        log.info("Got an event in credit-issued topic.");
-        emailService.sendEmail(message, "Your credit issued.");
+    @KafkaListener(topics = "statement-denied", groupId = "dossier",
+                   containerFactory = "emailKafkaListenerContainerFactory",
+                   concurrency = "${dossier.kafka.statement-denied.concurrency:6}",
+                   properties = "max.poll.records=${dossier.kafka.statement-denied.max-poll-records:100}")
+    public void sendStatementDeniedMessages(List<EmailMessageDto> messages, Acknowledgment acknowledgment) {
+        log.info("Got {} events in statement-denied topic.", messages.size());
+        sendEmails(messages, "Your credit has been denied.", acknowledgment);
     }
 
-    @KafkaListener(topics = "statement-denied", groupId = "dossier")
-    public void sendStatementDeniedMessage(EmailMessageDto message) {
-        log.info("Got an event in statement-denied topic.");
-        emailService.sendEmail(message, "Your credit has been denied.");
+    /**
+     * Sends an email for every event of the batch and acknowledges the batch. If an email can not
+     * be sent, the events before it are committed and the batch is retried from the failed one.
+     * Events that could not be deserialized arrive as null and are skipped, a retry would not read them either.
+     * <p>
+     * With dossier.mail.batch.enabled the emails are sent in one call over one mail server connection.
+     * Sending stops at the failed email as well, so the retry does not send any email twice.
+     */
+    private void sendEmails(List<EmailMessageDto> events, String subject, Acknowledgment acknowledgment) {
+        List<EmailMessageDto> messages = new ArrayList<>(events.size());
+        // Index in the batch of every message, the failed one is reported by it
+        int[] eventIndexes = new int[events.size()];
+        for (int index = 0; index < events.size(); ++index) {
+            if (events.get(index) == null) {
+                log.warn("Skipping event {} of the batch, it could not be deserialized", index);
+                continue;
+            }
+            eventIndexes[messages.size()] = index;
+            messages.add(events.get(index));
+        }
+
+        if (batchEmails && !messages.isEmpty()) {
+            int failedIndex;
+            try {
+                failedIndex = emailService.sendEmails(messages, subject);
+            } catch (MailException e) {
+                // None of the emails was sent
+                throw new BatchListenerFailedException("Could not send emails", e, 0);
+            }
+            if (failedIndex >= 0) {
+                throw new BatchListenerFailedException("Could not send email", eventIndexes[failedIndex]);
+            }
+        } else {
+            for (int index = 0; index < messages.size(); ++index) {
+                try {
+                    emailService.sendEmail(messages.get(index), subject);
+                } catch (MailException e) {
+                    throw new BatchListenerFailedException("Could not send email", e, eventIndexes[index]);
+                }
+            }
+        }
+        acknowledgment.acknowledge();
     }
 }
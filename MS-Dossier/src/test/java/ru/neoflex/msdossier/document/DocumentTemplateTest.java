@@ -0,0 +1,49 @@
+package ru.neoflex.msdossier.document;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DocumentTemplateTest {
+
+    @Test
+    void renderReplacesPlaceholdersInTemplateOrder() {
+        DocumentTemplate template = DocumentTemplate.compile("{b} and {a}, {b} again", "a", "b");
+
+        assertEquals("2 and 1, 2 again", template.render(new StringBuilder(), 1, 2).toString());
+    }
+
+    @Test
+    void renderAppendsToOutput() {
+        DocumentTemplate template = DocumentTemplate.compile("Name: {name}\n", "name");
+
+        StringBuilder output = new StringBuilder("Header\n");
+        template.render(output, "John");
+        template.render(output, "Jane");
+
+        assertEquals("Header\nName: John\nName: Jane\n", output.toString());
+    }
+
+    @Test
+    void templateWithoutPlaceholdersIsRenderedAsIs() {
+        DocumentTemplate template = DocumentTemplate.compile("No placeholders");
+
+        assertEquals("No placeholders", template.render(new StringBuilder()).toString());
+    }
+
+    @Test
+    void compileRejectsUnknownPlaceholder() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> DocumentTemplate.compile("Name: {name}, rate: {rate}", "name"));
+
+        assertEquals("Unknown placeholder {rate}", exception.getMessage());
+    }
+
+    @Test
+    void compileRejectsUnclosedPlaceholder() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> DocumentTemplate.compile("Name: {name", "name"));
+
+        assertEquals("Unclosed placeholder at 6", exception.getMessage());
+    }
+}
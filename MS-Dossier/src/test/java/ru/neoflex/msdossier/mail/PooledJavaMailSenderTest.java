@@ -0,0 +1,137 @@
+package ru.neoflex.msdossier.mail;
+
+import jakarta.mail.Address;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PooledJavaMailSenderTest {
+
+    private final List<FakeTransport> transports = new ArrayList<>();
+    private final Set<String> rejectedRecipients = new HashSet<>();
+    private boolean dropConnectionOnRejection;
+    private boolean connectionFails;
+
+    private PooledJavaMailSender mailSender;
+
+    @BeforeEach
+    void setUp() {
+        mailSender = new PooledJavaMailSender(2, Duration.ofMinutes(1)) {
+            @Override
+            protected Transport connectTransport() throws MessagingException {
+                if (connectionFails) {
+                    throw new MessagingException("Connection refused");
+                }
+                FakeTransport transport = new FakeTransport(getSession());
+                transports.add(transport);
+                return transport;
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        mailSender.destroy();
+    }
+
+    @Test
+    void sendingStopsAtFirstFailedMessage() {
+        SimpleMailMessage[] messages = {createMessage("john@doe.com"),
+                                        createMessage("jane@doe.com"),
+                                        createMessage("jim@doe.com")};
+        rejectedRecipients.add("jane@doe.com");
+
+        MailSendException exception = assertThrows(MailSendException.class, () -> mailSender.send(messages));
+
+        assertEquals(List.of(messages[1], messages[2]), List.copyOf(exception.getFailedMessages().keySet()));
+        assertEquals(List.of("john@doe.com"), transports.get(0).recipients);
+    }
+
+    @Test
+    void connectionIsReusedBetweenSends() {
+        mailSender.send(createMessage("john@doe.com"));
+        mailSender.send(createMessage("jane@doe.com"), createMessage("jim@doe.com"));
+
+        assertEquals(1, transports.size());
+        assertEquals(List.of("john@doe.com", "jane@doe.com", "jim@doe.com"), transports.get(0).recipients);
+    }
+
+    @Test
+    void droppedConnectionIsReplacedOnNextSend() {
+        rejectedRecipients.add("jane@doe.com");
+        dropConnectionOnRejection = true;
+
+        assertThrows(MailSendException.class, () -> mailSender.send(createMessage("jane@doe.com")));
+        mailSender.send(createMessage("john@doe.com"));
+
+        assertEquals(2, transports.size());
+        assertEquals(List.of("john@doe.com"), transports.get(1).recipients);
+    }
+
+    @Test
+    void failedConnectionFailsEveryMessage() {
+        SimpleMailMessage[] messages = {createMessage("john@doe.com"), createMessage("jane@doe.com")};
+        connectionFails = true;
+
+        MailSendException exception = assertThrows(MailSendException.class, () -> mailSender.send(messages));
+
+        assertEquals(List.of(messages[0], messages[1]), List.copyOf(exception.getFailedMessages().keySet()));
+    }
+
+    private SimpleMailMessage createMessage(String address) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom("neoflexBanking@gmail.com");
+        message.setTo(address);
+        message.setSubject("Finish your registration.");
+        message.setText("Hello, " + address);
+        return message;
+    }
+
+    /**
+     * Records the recipients instead of talking to a mail server.
+     */
+    private class FakeTransport extends Transport {
+
+        private final List<String> recipients = new ArrayList<>();
+        private boolean connected = true;
+
+        FakeTransport(Session session) {
+            super(session, null);
+        }
+
+        @Override
+        public void sendMessage(Message message, Address[] addresses) throws MessagingException {
+            String recipient = addresses[0].toString();
+            if (rejectedRecipients.contains(recipient)) {
+                connected = !dropConnectionOnRejection;
+                throw new SendFailedException("Rejected " + recipient);
+            }
+            recipients.add(recipient);
+        }
+
+        @Override
+        public boolean isConnected() {
+            return connected;
+        }
+
+        @Override
+        public void close() {
+            connected = false;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package ru.neoflex.msdossier.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.client.ResourceAccessException;
+import ru.neoflex.loanissuerlibrary.dto.DocumentDataDto;
+import ru.neoflex.loanissuerlibrary.dto.EmailMessageDto;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.EmailTheme;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DocumentPipelineTest {
+
+    private static final String SUBJECT = "Your loan documents.";
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Mock
+    private RestClientService restClientService;
+
+    @Mock
+    private DocumentService documentService;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+
+    @Mock
+    private MessageListenerContainer listenerContainer;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private final List<ThreadPoolTaskExecutor> executors = new ArrayList<>();
+
+    private final DocumentDataDto documentData = new DocumentDataDto();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executors.forEach(ThreadPoolTaskExecutor::shutdown);
+    }
+
+    @Test
+    void eventIsAcknowledgedAfterDocumentsAreMailedAndStatusIsPut() throws Exception {
+        EmailMessageDto message = createMessage();
+        when(restClientService.getDocumentData(message.getStatementId())).thenReturn(documentData);
+
+        createPipeline(50).submit(message, acknowledgment).join();
+
+        InOrder inOrder = inOrder(restClientService, documentService, emailService, acknowledgment);
+        inOrder.verify(restClientService).getDocumentData(message.getStatementId());
+        inOrder.verify(documentService).createCreditDocument(message.getStatementId(), documentData);
+        inOrder.verify(emailService).sendEmailWithAttachments(message, SUBJECT);
+        inOrder.verify(restClientService).putDocumentsCreatedStatus(message.getStatementId());
+        inOrder.verify(acknowledgment).acknowledge();
+        assertEquals(0, failedDocuments());
+    }
+
+    @Test
+    void failedStageIsRetriedWithoutRepeatingEarlierStages() throws Exception {
+        EmailMessageDto message = createMessage();
+        when(restClientService.getDocumentData(message.getStatementId())).thenReturn(documentData);
+        doThrow(new MessagingException("Mail server unavailable"))
+                .doNothing()
+                .when(emailService).sendEmailWithAttachments(message, SUBJECT);
+
+        createPipeline(50).submit(message, acknowledgment).join();
+
+        verify(restClientService, times(1)).getDocumentData(message.getStatementId());
+        verify(documentService, times(1)).createCreditDocument(message.getStatementId(), documentData);
+        verify(emailService, times(2)).sendEmailWithAttachments(message, SUBJECT);
+        verify(restClientService, times(1)).putDocumentsCreatedStatus(message.getStatementId());
+        verify(acknowledgment, times(1)).acknowledge();
+        assertEquals(0, failedDocuments());
+    }
+
+    @Test
+    void documentFileThatCanNotBeWrittenIsRenderedAgainBeforeMailing() throws Exception {
+        EmailMessageDto message = createMessage();
+        when(restClientService.getDocumentData(message.getStatementId())).thenReturn(documentData);
+        doThrow(new UncheckedIOException(new IOException("No space left on device")))
+                .doNothing()
+                .when(documentService).createCreditDocument(message.getStatementId(), documentData);
+
+        createPipeline(50).submit(message, acknowledgment).join();
+
+        InOrder inOrder = inOrder(documentService, emailService);
+        inOrder.verify(documentService, times(2)).createCreditDocument(message.getStatementId(), documentData);
+        inOrder.verify(emailService).sendEmailWithAttachments(message, SUBJECT);
+        verify(restClientService, times(1)).getDocumentData(message.getStatementId());
+        verify(documentService, times(1)).createCreditScheduleDocument(message.getStatementId(), documentData);
+        verify(acknowledgment, times(1)).acknowledge();
+        assertEquals(0, failedDocuments());
+    }
+
+    @Test
+    void failedStatusUpdateDoesNotMailDocumentsAgain() throws Exception {
+        EmailMessageDto message = createMessage();
+        when(restClientService.getDocumentData(message.getStatementId())).thenReturn(documentData);
+        doThrow(new ResourceAccessException("MS-Deal unavailable"))
+                .doNothing()
+                .when(restClientService).putDocumentsCreatedStatus(message.getStatementId());
+
+        createPipeline(50).submit(message, acknowledgment).join();
+
+        verify(emailService, times(1)).sendEmailWithAttachments(message, SUBJECT);
+        verify(restClientService, times(2)).putDocumentsCreatedStatus(message.getStatementId());
+        verify(acknowledgment, times(1)).acknowledge();
+        assertEquals(0, failedDocuments());
+    }
+
+    @Test
+    void eventIsAcknowledgedAndCountedAfterLastAttemptFails() {
+        EmailMessageDto message = createMessage();
+        when(restClientService.getDocumentData(message.getStatementId()))
+                .thenThrow(new ResourceAccessException("MS-Deal unavailable"));
+
+        CompletableFuture<Void> pipeline = createPipeline(50).submit(message, acknowledgment);
+
+        assertThrows(CompletionException.class, pipeline::join);
+        verify(restClientService, times(MAX_ATTEMPTS)).getDocumentData(message.getStatementId());
+        verify(restClientService, never()).putDocumentsCreatedStatus(any());
+        verifyNoInteractions(documentService, emailService);
+        verify(acknowledgment, times(1)).acknowledge();
+        assertEquals(1, failedDocuments());
+    }
+
+    @Test
+    void listenerIsPausedAtMaxInFlightAndResumedWhenHalfAreDone() throws Exception {
+        CountDownLatch fetchReleased = new CountDownLatch(1);
+        AtomicBoolean paused = new AtomicBoolean();
+        when(kafkaListenerEndpointRegistry.getListenerContainer(DocumentPipeline.LISTENER_ID))
+                .thenReturn(listenerContainer);
+        when(listenerContainer.isPauseRequested()).thenAnswer(invocation -> paused.get());
+        doAnswer(invocation -> { paused.set(true); return null; }).when(listenerContainer).pause();
+        doAnswer(invocation -> { paused.set(false); return null; }).when(listenerContainer).resume();
+        when(restClientService.getDocumentData(any(UUID.class))).thenAnswer(invocation -> {
+            fetchReleased.await();
+            return documentData;
+        });
+        DocumentPipeline documentPipeline = createPipeline(2);
+
+        CompletableFuture<Void> first = documentPipeline.submit(createMessage(), acknowledgment);
+        verify(listenerContainer, never()).pause();
+        CompletableFuture<Void> second = documentPipeline.submit(createMessage(), acknowledgment);
+        verify(listenerContainer, times(1)).pause();
+        verify(listenerContainer, never()).resume();
+
+        fetchReleased.countDown();
+        CompletableFuture.allOf(first, second).join();
+
+        verify(listenerContainer, times(1)).resume();
+        verify(acknowledgment, times(2)).acknowledge();
+        assertFalse(paused.get());
+    }
+
+    private DocumentPipeline createPipeline(int maxInFlight) {
+        return new DocumentPipeline(restClientService,
+                                    documentService,
+                                    emailService,
+                                    kafkaListenerEndpointRegistry,
+                                    createExecutor(),
+                                    createExecutor(),
+                                    createExecutor(),
+                                    createExecutor(),
+                                    createExecutor(),
+                                    maxInFlight,
+                                    false,
+                                    Duration.ofMillis(10),
+                                    MAX_ATTEMPTS,
+                                    meterRegistry);
+    }
+
+    private ThreadPoolTaskExecutor createExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.initialize();
+        executors.add(executor);
+        return executor;
+    }
+
+    private double failedDocuments() {
+        return meterRegistry.get("dossier.documents.failed").counter().count();
+    }
+
+    private EmailMessageDto createMessage() {
+        return EmailMessageDto.builder()
+                .address("john@doe.com")
+                .theme(EmailTheme.SEND_DOCUMENTS)
+                .statementId(UUID.randomUUID())
+                .text("Your loan documents are ready.")
+                .build();
+    }
+}
@@ -0,0 +1,141 @@
+package ru.neoflex.msdossier.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.neoflex.loanissuerlibrary.dto.CreditDto;
+import ru.neoflex.loanissuerlibrary.dto.DocumentDataDto;
+import ru.neoflex.loanissuerlibrary.dto.PaymentScheduleElementDto;
+import ru.neoflex.msdossier.document.RenderedDocuments;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DocumentServiceTest {
+
+    private static final String CREDIT_DOCUMENT = "ФИО: Doe John Johnson\n\n"
+                                                  + "Дата рождения: 5.3.1990\n\n"
+                                                  + "Сумма займа: 100000 рублей\n\n"
+                                                  + "Длительность: 2 месяцев\n\n"
+                                                  + "Ставка: 15.00 % годовых\n\n"
+                                                  + "ПСК: 101252.08 рублей\n\n"
+                                                  + "Застрахован ли кредит: Да\n\n"
+                                                  + "Получает ли заёмщик зарплату в банке: Нет\n";
+
+    private static final String CREDIT_SCHEDULE = "Номер платежа: 1\n\n"
+                                                  + "Дата платежа: 2025-02-01\n\n"
+                                                  + "Общая сумма платежа: 50626.04\n\n"
+                                                  + "Погашение процентов: 1250.00\n\n"
+                                                  + "Погашение основного долга: 49376.04\n\n"
+                                                  + "Остаток долга: 50623.96\n\n\n"
+                                                  + "Номер платежа: 2\n\n"
+                                                  + "Дата платежа: 2025-03-01\n\n"
+                                                  + "Общая сумма платежа: 50626.04\n\n"
+                                                  + "Погашение процентов: 632.80\n\n"
+                                                  + "Погашение основного долга: 49993.24\n\n"
+                                                  + "Остаток долга: 630.72\n\n\n";
+
+    @TempDir
+    private Path documentsPath;
+
+    private DocumentService documentService;
+
+    @BeforeEach
+    void setUp() {
+        documentService = new DocumentService();
+        ReflectionTestUtils.setField(documentService, "documentsPath", documentsPath.toString());
+    }
+
+    @Test
+    void renderDocumentsProducesExpectedText() {
+        RenderedDocuments documents = documentService.renderDocuments(createDocumentData("Johnson"));
+
+        assertEquals(CREDIT_DOCUMENT, new String(documents.creditDocument(), StandardCharsets.UTF_8));
+        assertEquals(CREDIT_SCHEDULE, new String(documents.creditSchedule(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void renderingAgainDoesNotKeepPreviousDocument() {
+        documentService.renderDocuments(createDocumentData("Johnson"));
+
+        RenderedDocuments documents = documentService.renderDocuments(createDocumentData(null));
+
+        assertEquals(CREDIT_DOCUMENT.replace("Doe John Johnson", "Doe John"),
+                     new String(documents.creditDocument(), StandardCharsets.UTF_8));
+        assertEquals(CREDIT_SCHEDULE, new String(documents.creditSchedule(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void createdDocumentFilesMatchRenderedDocuments() throws IOException {
+        UUID statementId = UUID.randomUUID();
+        DocumentDataDto documentData = createDocumentData("Johnson");
+
+        documentService.createCreditDocument(statementId, documentData);
+        documentService.createCreditScheduleDocument(statementId, documentData);
+
+        Path statementDirectory = documentsPath.resolve(statementId.toString());
+        assertEquals(CREDIT_DOCUMENT, Files.readString(
+                statementDirectory.resolve(DocumentService.CREDIT_DOCUMENT_FILENAME), StandardCharsets.UTF_8));
+        assertEquals(CREDIT_SCHEDULE, Files.readString(
+                statementDirectory.resolve(DocumentService.CREDIT_SCHEDULE_FILENAME), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void documentFileThatCanNotBeWrittenFailsCreation() throws IOException {
+        UUID statementId = UUID.randomUUID();
+        DocumentDataDto documentData = createDocumentData("Johnson");
+        // A file where the statement's directory should be
+        Files.createFile(documentsPath.resolve(statementId.toString()));
+
+        assertThrows(UncheckedIOException.class, () -> documentService.createCreditDocument(statementId, documentData));
+        assertThrows(UncheckedIOException.class,
+                     () -> documentService.createCreditScheduleDocument(statementId, documentData));
+    }
+
+    private DocumentDataDto createDocumentData(String middleName) {
+        CreditDto credit = CreditDto.builder()
+                .amount(new BigDecimal("100000"))
+                .term(2)
+                .monthlyPayment(new BigDecimal("50626.04"))
+                .rate(new BigDecimal("15.00"))
+                .psk(new BigDecimal("101252.08"))
+                .isInsuranceEnabled(true)
+                .isSalaryClient(false)
+                .paymentSchedule(List.of(
+                        PaymentScheduleElementDto.builder()
+                                .number(1)
+                                .date(LocalDate.of(2025, 2, 1))
+                                .totalPayment(new BigDecimal("50626.04"))
+                                .interestPayment(new BigDecimal("1250.00"))
+                                .debtPayment(new BigDecimal("49376.04"))
+                                .remainingDebt(new BigDecimal("50623.96"))
+                                .build(),
+                        PaymentScheduleElementDto.builder()
+                                .number(2)
+                                .date(LocalDate.of(2025, 3, 1))
+                                .totalPayment(new BigDecimal("50626.04"))
+                                .interestPayment(new BigDecimal("632.80"))
+                                .debtPayment(new BigDecimal("49993.24"))
+                                .remainingDebt(new BigDecimal("630.72"))
+                                .build()))
+                .build();
+
+        DocumentDataDto documentData = new DocumentDataDto();
+        documentData.setCredit(credit);
+        documentData.setFirstName("John");
+        documentData.setLastName("Doe");
+        documentData.setMiddleName(middleName);
+        documentData.setBirthdate(LocalDate.of(1990, 3, 5));
+        return documentData;
+    }
+}
@@ -0,0 +1,107 @@
+package ru.neoflex.msdossier.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import ru.neoflex.loanissuerlibrary.dto.EmailMessageDto;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.EmailTheme;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EmailServiceTest {
+
+    private static final String SUBJECT = "Finish your registration.";
+
+    @Mock
+    private JavaMailSenderImpl mailSender;
+
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() {
+        emailService = new EmailService(mailSender);
+    }
+
+    @Test
+    void sendEmailsSendsAllEmailsInOneCall() {
+        List<EmailMessageDto> messages = List.of(createMessage("john@doe.com"), createMessage("jane@doe.com"));
+
+        assertEquals(-1, emailService.sendEmails(messages, SUBJECT));
+
+        verify(mailSender, times(1)).send(toMailMessage(messages.get(0)), toMailMessage(messages.get(1)));
+    }
+
+    @Test
+    void sendEmailsReturnsIndexOfFirstFailedEmail() {
+        List<EmailMessageDto> messages = List.of(createMessage("john@doe.com"),
+                                                 createMessage("jane@doe.com"),
+                                                 createMessage("jim@doe.com"));
+        failSendingFrom(1);
+
+        assertEquals(1, emailService.sendEmails(messages, SUBJECT));
+    }
+
+    @Test
+    void sendEmailsDoesNotTakeSentDuplicateForFailedOne() {
+        EmailMessageDto message = createMessage("john@doe.com");
+        List<EmailMessageDto> messages = List.of(message, message, createMessage("jane@doe.com"));
+        failSendingFrom(1);
+
+        assertEquals(1, emailService.sendEmails(messages, SUBJECT));
+    }
+
+    @Test
+    void sendEmailsRethrowsWhenNoEmailCouldBeSent() {
+        List<EmailMessageDto> messages = List.of(createMessage("john@doe.com"));
+        doThrow(new MailAuthenticationException("Bad credentials"))
+                .when(mailSender).send(any(SimpleMailMessage[].class));
+
+        assertThrows(MailAuthenticationException.class, () -> emailService.sendEmails(messages, SUBJECT));
+    }
+
+    /**
+     * Fails the emails from {@code from} on, keyed by the sent instances as the mail sender does.
+     */
+    private void failSendingFrom(int from) {
+        doAnswer(invocation -> {
+            Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+            Object[] sent = invocation.getArguments();
+            for (int index = from; index < sent.length; ++index) {
+                failedMessages.put(sent[index], new IllegalStateException("Rejected"));
+            }
+            throw new MailSendException(failedMessages);
+        }).when(mailSender).send(any(SimpleMailMessage[].class));
+    }
+
+    private SimpleMailMessage toMailMessage(EmailMessageDto emailMessageDto) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom("neoflexBanking@gmail.com");
+        message.setTo(emailMessageDto.getAddress());
+        message.setSubject(SUBJECT);
+        message.setText(emailMessageDto.getText());
+        return message;
+    }
+
+    private EmailMessageDto createMessage(String address) {
+        return EmailMessageDto.builder()
+                .address(address)
+                .theme(EmailTheme.FINISH_REGISTRATION)
+                .statementId(UUID.randomUUID())
+                .text("Finish your registration, " + address)
+                .build();
+    }
+}
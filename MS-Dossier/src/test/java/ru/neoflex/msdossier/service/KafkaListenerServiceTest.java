@@ -0,0 +1,112 @@
+package ru.neoflex.msdossier.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.mail.MailAuthenticationException;
+import ru.neoflex.loanissuerlibrary.dto.EmailMessageDto;
+import ru.neoflex.loanissuerlibrary.dto.enumeration.EmailTheme;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class KafkaListenerServiceTest {
+
+    private static final String SUBJECT = "Finish your registration.";
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private DocumentPipeline documentPipeline;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    private final List<EmailMessageDto> messages = List.of(createMessage(), createMessage(), createMessage());
+
+    @Test
+    void sentBatchIsAcknowledged() {
+        when(emailService.sendEmails(messages, SUBJECT)).thenReturn(-1);
+
+        createListener(true).sendFinishRegistrationMessages(messages, acknowledgment);
+
+        verify(acknowledgment, times(1)).acknowledge();
+    }
+
+    @Test
+    void batchIsRetriedFromFirstFailedEmail() {
+        when(emailService.sendEmails(messages, SUBJECT)).thenReturn(1);
+
+        BatchListenerFailedException exception = assertThrows(BatchListenerFailedException.class,
+                () -> createListener(true).sendFinishRegistrationMessages(messages, acknowledgment));
+
+        assertEquals(1, exception.getIndex());
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @Test
+    void batchIsRetriedFromStartWhenNoEmailWasSent() {
+        when(emailService.sendEmails(messages, SUBJECT)).thenThrow(new MailAuthenticationException("Bad credentials"));
+
+        BatchListenerFailedException exception = assertThrows(BatchListenerFailedException.class,
+                () -> createListener(true).sendFinishRegistrationMessages(messages, acknowledgment));
+
+        assertEquals(0, exception.getIndex());
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @Test
+    void emailsAreSentOneByOneWithoutBatching() {
+        doNothing().doThrow(new MailAuthenticationException("Bad credentials"))
+                .when(emailService).sendEmail(any(EmailMessageDto.class), eq(SUBJECT));
+
+        BatchListenerFailedException exception = assertThrows(BatchListenerFailedException.class,
+                () -> createListener(false).sendFinishRegistrationMessages(messages, acknowledgment));
+
+        assertEquals(1, exception.getIndex());
+        verify(emailService, never()).sendEmails(any(), any());
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @Test
+    void undeserializableEventsAreSkippedAndFailedEmailKeepsItsBatchIndex() {
+        List<EmailMessageDto> events = Arrays.asList(null, messages.get(0), null, messages.get(1));
+        when(emailService.sendEmails(List.of(messages.get(0), messages.get(1)), SUBJECT)).thenReturn(1);
+
+        BatchListenerFailedException exception = assertThrows(BatchListenerFailedException.class,
+                () -> createListener(true).sendFinishRegistrationMessages(events, acknowledgment));
+
+        assertEquals(3, exception.getIndex());
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @Test
+    void batchOfUndeserializableEventsIsAcknowledged() {
+        createListener(true).sendFinishRegistrationMessages(Arrays.asList(null, null), acknowledgment);
+
+        verifyNoInteractions(emailService);
+        verify(acknowledgment, times(1)).acknowledge();
+    }
+
+    private KafkaListenerService createListener(boolean batchEmails) {
+        return new KafkaListenerService(emailService, documentPipeline, batchEmails);
+    }
+
+    private static EmailMessageDto createMessage() {
+        return EmailMessageDto.builder()
+                .address("john@doe.com")
+                .theme(EmailTheme.FINISH_REGISTRATION)
+                .statementId(UUID.randomUUID())
+                .text("Finish your registration.")
+                .build();
+    }
+}